@@ -0,0 +1,64 @@
+package com.lieuu.fetcher.benchmark;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completed-value reads of a blocking concurrent fetcher shared by 1 to 64
+ * threads. Thread counts cannot be a JMH parameter, hence one method each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbstractConcurrentFetcherBenchmark {
+
+  private Fetcher<String> fetcher;
+
+  @Setup
+  public void setup() throws FetcherException {
+    this.fetcher = Fetchers.getBlockingConcurrentFetcher(() -> "value");
+    this.fetcher.fetch();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String threads1() throws FetcherException {
+    return this.fetcher.fetch();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String threads4() throws FetcherException {
+    return this.fetcher.fetch();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public String threads16() throws FetcherException {
+    return this.fetcher.fetch();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String threads64() throws FetcherException {
+    return this.fetcher.fetch();
+  }
+
+}
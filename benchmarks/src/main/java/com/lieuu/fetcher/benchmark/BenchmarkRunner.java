@@ -0,0 +1,44 @@
+package com.lieuu.fetcher.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line and always
+ * adds the GC profiler, so every run reports gc.alloc.rate.norm (bytes
+ * allocated per operation) next to the timing.
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(final String[] args)
+      throws CommandLineOptionException, RunnerException, IOException {
+
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+    if (commandLineOptions.shouldHelp()) {
+      commandLineOptions.showHelp();
+      return;
+    }
+
+    final Runner runner = new Runner(
+      new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class).build());
+
+    if (commandLineOptions.shouldList()) {
+      runner.list();
+      return;
+    }
+
+    runner.run();
+
+  }
+
+}
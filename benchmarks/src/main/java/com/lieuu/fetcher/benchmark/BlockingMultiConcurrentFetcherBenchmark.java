@@ -0,0 +1,69 @@
+package com.lieuu.fetcher.benchmark;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out over the given number of sources. cached reads the completed
+ * futures, fanOut clears them on every fetch and races all sources on the
+ * shared executor again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockingMultiConcurrentFetcherBenchmark {
+
+  @Param({ "1", "2", "5", "10", "20" })
+  private int sources;
+
+  private MultiFetcher<String> cachedFetcher;
+  private MultiFetcher<String> fanOutFetcher;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws FetcherException {
+
+    final Fetcher<String>[] fetchers = new Fetcher[this.sources];
+
+    for (int i = 0; i < this.sources; i++) {
+      final String value = "value" + i;
+      fetchers[i] = () -> value;
+    }
+
+    this.cachedFetcher = MultiFetchers.getMultiConcurrentFetcher(fetchers);
+    this.cachedFetcher.fetch();
+
+    this.fanOutFetcher = MultiFetchers.getExpiringMultiConcurrentFetcher(0, fetchers);
+
+  }
+
+  @Benchmark
+  public FetcherResponse<String> cached() throws FetcherException {
+    return this.cachedFetcher.fetch();
+  }
+
+  @Benchmark
+  public FetcherResponse<String> fanOut() throws FetcherException {
+    return this.fanOutFetcher.fetch();
+  }
+
+}
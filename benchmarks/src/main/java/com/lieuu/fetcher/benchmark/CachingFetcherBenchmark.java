@@ -0,0 +1,40 @@
+package com.lieuu.fetcher.benchmark;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachingFetcherBenchmark {
+
+  private Fetcher<String> fetcher;
+
+  @Setup
+  public void setup() throws FetcherException {
+    this.fetcher = Fetchers.getCachingFetcher(() -> "value");
+    this.fetcher.fetch();
+  }
+
+  @Benchmark
+  public String hit() throws FetcherException {
+    return this.fetcher.fetch();
+  }
+
+}
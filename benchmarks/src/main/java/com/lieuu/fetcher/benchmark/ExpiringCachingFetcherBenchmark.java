@@ -0,0 +1,68 @@
+package com.lieuu.fetcher.benchmark;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hits and expiries of an expiring caching fetcher, from one thread and from
+ * 32 threads sharing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpiringCachingFetcherBenchmark {
+
+  private Fetcher<String> hitFetcher;
+  private Fetcher<String> expiryFetcher;
+
+  @Setup
+  public void setup() throws FetcherException {
+
+    this.hitFetcher = Fetchers.getExpiringCachingFetcher(() -> "value", Integer.MAX_VALUE);
+    this.hitFetcher.fetch();
+
+    // zero cache time reloads on every fetch
+    this.expiryFetcher = Fetchers.getExpiringCachingFetcher(() -> "value", 0);
+
+  }
+
+  @Benchmark
+  public String hit() throws FetcherException {
+    return this.hitFetcher.fetch();
+  }
+
+  @Benchmark
+  public String expiry() throws FetcherException {
+    return this.expiryFetcher.fetch();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String hitThreads32() throws FetcherException {
+    return this.hitFetcher.fetch();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String expiryThreads32() throws FetcherException {
+    return this.expiryFetcher.fetch();
+  }
+
+}
@@ -0,0 +1,108 @@
+package com.lieuu.fetcher.benchmark;
+
+import com.lieuu.fetcher.AsyncFetchers;
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of async fetches blocking on simulated IO, run on a cached platform
+ * thread pool or on virtual threads. The virtual case fails its setup on JDKs
+ * older than 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VirtualThreadExecutorBenchmark {
+
+  private final static int BLOCKING_TIME_MS = 10;
+
+  @Param({ "platform", "virtual" })
+  private String executor;
+
+  @Param({ "1000", "10000" })
+  private int fetches;
+
+  private ExecutorService platform;
+  private Fetcher<ExecutorService> executorServiceFetcher;
+  private Fetcher<Integer> blocking;
+
+  @Setup
+  public void setup() throws FetcherException {
+
+    if ("virtual".equals(this.executor)) {
+      this.executorServiceFetcher = Fetchers.getVirtualThreadExecutorServiceFetcher();
+      this.executorServiceFetcher.fetch(); // fails before JDK 21
+    }
+    else {
+      this.platform = Executors.newCachedThreadPool();
+      this.executorServiceFetcher = () -> this.platform;
+    }
+
+    this.blocking = () -> {
+
+      try {
+        Thread.sleep(VirtualThreadExecutorBenchmark.BLOCKING_TIME_MS);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return 1;
+
+    };
+
+  }
+
+  @TearDown
+  public void tearDown() {
+
+    if (this.platform != null) {
+      this.platform.shutdown();
+    }
+
+  }
+
+  @Benchmark
+  public int blockingBatch() {
+
+    final List<CompletableFuture<Integer>> futures = new ArrayList<>(this.fetches);
+
+    for (int i = 0; i < this.fetches; i++) {
+      futures.add(AsyncFetchers.getAsyncFetcher(this.executorServiceFetcher, this.blocking)
+          .fetchAsync().toCompletableFuture());
+    }
+
+    int total = 0;
+
+    for (final CompletableFuture<Integer> future : futures) {
+      total += future.join();
+    }
+
+    return total;
+
+  }
+
+}
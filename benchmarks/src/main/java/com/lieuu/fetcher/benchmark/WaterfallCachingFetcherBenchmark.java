@@ -0,0 +1,64 @@
+package com.lieuu.fetcher.benchmark;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waterfall where every source but the last fails, so each fetch walks the
+ * whole chain of cached failures before reaching the value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaterfallCachingFetcherBenchmark {
+
+  @Param({ "1", "2", "5", "10", "20" })
+  private int sources;
+
+  private MultiFetcher<String> fetcher;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws FetcherException {
+
+    final Fetcher<String>[] fetchers = new Fetcher[this.sources];
+
+    for (int i = 0; i < (this.sources - 1); i++) {
+      fetchers[i] = () -> {
+        throw new FetcherException("source down");
+      };
+    }
+
+    fetchers[this.sources - 1] = () -> "value";
+
+    this.fetcher = MultiFetchers.getWaterfallFetcher(e -> {
+    }, fetchers);
+    this.fetcher.fetch();
+
+  }
+
+  @Benchmark
+  public FetcherResponse<String> fetch() throws FetcherException {
+    return this.fetcher.fetch();
+  }
+
+}
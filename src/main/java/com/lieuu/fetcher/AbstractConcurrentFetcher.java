@@ -4,26 +4,31 @@
  */
 package com.lieuu.fetcher;
 
-import com.lieuu.fetcher.concurrent.FetcherCallable;
 import com.lieuu.fetcher.exception.FetcherException;
 import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.exception.FetcherRejectedException;
 
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Single-flight concurrent fetcher. The future slot moves through the states
+ * empty (null) -> in-flight (incomplete future) -> completed/failed (done
+ * future) and is only ever installed with a compare-and-set, so exactly one
+ * caller submits the underlying fetcher and every read of a completed value is
+ * a single volatile read with no lock acquisition.
+ */
 abstract class AbstractConcurrentFetcher<T> implements Fetcher<T> {
 
-  private final ReadWriteLock futureLock;
+  private final AtomicReference<CompletableFuture<T>> future;
 
   private final Fetcher<T> fetcher;
-  protected volatile Future<T> future;
   private final long maxWaitNanos;
   private final Fetcher<ExecutorService> executorServiceFetcher;
 
   protected AbstractConcurrentFetcher(final Fetcher<T> fetcher,
     final Fetcher<ExecutorService> executorServiceFetcher, final long maxWaitNanos) {
-    this.futureLock = new ReentrantReadWriteLock();
+    this.future = new AtomicReference<>();
     this.executorServiceFetcher = executorServiceFetcher;
     this.fetcher = fetcher;
     this.maxWaitNanos = maxWaitNanos;
@@ -32,65 +37,118 @@ abstract class AbstractConcurrentFetcher<T> implements Fetcher<T> {
   @Override
   public T fetch() throws FetcherException {
 
-    this.futureLock.writeLock().lock();
+    final CompletableFuture<T> current = this.getOrSubmitFuture();
 
     try {
+      return current.get(this.maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+    catch (final TimeoutException e1) {
+      throw new FetcherNotReadyException(e1);
+    }
+    catch (final ExecutionException e1) {
 
-      if (this.futureIsNull()) {
-        this.future = this.executorServiceFetcher.fetch().submit(
-          new FetcherCallable<>(this.fetcher));
+      if (e1.getCause() instanceof FetcherRejectedException) {
+        throw (FetcherRejectedException) e1.getCause(); // lost the race to a rejected submit
       }
 
+      throw new FetcherException(e1);
+
     }
-    finally {
-      this.futureLock.writeLock().unlock();
+    catch (final InterruptedException | CancellationException e1) {
+      throw new FetcherException(e1);
     }
 
-    this.futureLock.readLock().lock();
+  }
 
-    try {
+  /**
+   * Returns the current future, submitting the underlying fetcher if the slot
+   * is empty. Only the thread that wins the compare-and-set submits.
+   *
+   * @return current future of type CompletableFuture
+   * @throws FetcherException if the executor service could not be fetched or
+   *           rejected the task
+   */
+  protected final CompletableFuture<T> getOrSubmitFuture() throws FetcherException {
 
-      try {
-        return this.future.get(this.maxWaitNanos, TimeUnit.NANOSECONDS);
-      }
-      catch (final TimeoutException e1) {
-        throw new FetcherNotReadyException(e1);
-      }
-      catch (final ExecutionException | InterruptedException | NullPointerException e1) {
-        throw new FetcherException(e1);
-      }
+    CompletableFuture<T> current = this.future.get();
 
+    if (current != null) {
+      return current; // fast path: in-flight or completed
     }
-    finally {
-      this.futureLock.readLock().unlock();
+
+    final CancellableFuture<T> created = new CancellableFuture<>();
+
+    while (!this.future.compareAndSet(null, created)) {
+
+      current = this.future.get();
+
+      if (current != null) {
+        return current; // another thread won the race
+      }
+
     }
 
-  }
+    created.whenComplete((value, e) -> {
 
-  private boolean futureIsNull() {
+      if (e instanceof FetcherRejectedException) {
+        this.future.compareAndSet(created, null); // discarded, the next fetch submits again
+      }
 
-    this.futureLock.readLock().lock();
+    });
 
     try {
-      return this.future == null;
+
+      final RunnableFuture<Void> task = created.newTask(this.fetcher);
+
+      created.setTask(task);
+      this.executorServiceFetcher.fetch().execute(task);
+
     }
-    finally {
-      this.futureLock.readLock().unlock();
+    catch (final FetcherException | RuntimeException e) {
+      final FetcherException submitException = ExecutorServices.submitException(e);
+      created.completeExceptionally(submitException); // release any waiting losers
+      this.future.compareAndSet(created, null);
+      throw submitException;
     }
 
+    return created;
+
   }
 
-  public void clearFuture() {
+  /**
+   * @return the current future without submitting, or null if the slot is
+   *         empty
+   */
+  protected final CompletableFuture<T> peekFuture() {
+    return this.future.get();
+  }
 
-    this.futureLock.writeLock().lock();
+  /**
+   * Cancels the in-flight fetch, interrupting it on the executor, and empties
+   * the slot so the next fetch submits again. Completed futures are left as
+   * they are.
+   *
+   * @return ns the cancelled fetch had been in flight, or -1 if nothing was
+   *         cancelled
+   */
+  public long cancelFuture() {
 
-    try {
-      this.future = null;
-    }
-    finally {
-      this.futureLock.writeLock().unlock();
+    final CompletableFuture<T> current = this.future.get();
+
+    if (!(current instanceof CancellableFuture) || current.isDone()) {
+      return -1;
     }
 
+    final long inFlightNanos = ((CancellableFuture<T>) current).cancelInFlight();
+
+    this.future.compareAndSet(current, null);
+
+    return inFlightNanos;
+
+  }
+
+  public void clearFuture() {
+    this.future.set(null);
   }
 
 }
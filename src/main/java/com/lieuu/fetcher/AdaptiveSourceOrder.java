@@ -0,0 +1,216 @@
+package com.lieuu.fetcher;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Order in which an adaptive waterfall tries its sources. Each attempt adds to
+ * lock-free per-source counters of attempts, successes and time spent; about
+ * once every REORDER_INTERVAL fetches the sources are sorted by their expected
+ * time per success, mean attempt time over success rate, which minimises the
+ * expected latency of trying them in turn. Sources that keep failing sink to
+ * the back and are only tried once the others have failed.
+ * <p>
+ * Counters of every source are halved once DECAY_ATTEMPTS attempts have been
+ * recorded in total, so the order follows recent behaviour even for sources
+ * no longer tried. A source that has sunk below a lower ranked one is tried
+ * first on one fetch about every EXPLORE_INTERVAL_NANOS; if it succeeds its
+ * history of failures is dropped, so it rises again once it has recovered.
+ * One exploration runs at a time; it ends with the first attempt on the
+ * explored source, whether or not that attempt reached the origin.
+ */
+final class AdaptiveSourceOrder {
+
+  private final static int REORDER_INTERVAL = 64;
+  private final static long DECAY_ATTEMPTS = 1024;
+  private final static long EXPLORE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+  private final AtomicLongArray attempts;
+  private final AtomicLongArray successes;
+  private final AtomicLongArray nanos;
+  private final AtomicBoolean reordering;
+  private final AtomicLong nextExploreNanos;
+
+  private final AtomicInteger exploring;
+
+  private volatile int[] order;
+
+  public AdaptiveSourceOrder(final int sources) {
+
+    this.attempts = new AtomicLongArray(sources);
+    this.successes = new AtomicLongArray(sources);
+    this.nanos = new AtomicLongArray(sources);
+    this.reordering = new AtomicBoolean(false);
+    this.nextExploreNanos = new AtomicLong(System.nanoTime()
+        + AdaptiveSourceOrder.EXPLORE_INTERVAL_NANOS);
+    this.exploring = new AtomicInteger(-1);
+
+    final int[] initial = new int[sources];
+
+    for (int i = 0; i < sources; i++) {
+      initial[i] = i;
+    }
+
+    this.order = initial;
+
+  }
+
+  /**
+   * @return 0-based source indexes in the order to try them, not to be
+   *         modified
+   */
+  int[] getOrder() {
+
+    if (ThreadLocalRandom.current().nextInt(AdaptiveSourceOrder.REORDER_INTERVAL) == 0) {
+      this.reorder();
+      return this.explore();
+    }
+
+    return this.order;
+
+  }
+
+  void record(final int source, final boolean success, final long durationNanos) {
+
+    if (this.endExploration(source)) {
+
+      if (success) { // recovered, its failures are history
+        this.attempts.set(source, 1);
+        this.successes.set(source, 1);
+        this.nanos.set(source, durationNanos);
+        return;
+      }
+
+    }
+
+    this.attempts.incrementAndGet(source);
+    this.nanos.addAndGet(source, durationNanos);
+
+    if (success) {
+      this.successes.incrementAndGet(source);
+    }
+
+  }
+
+  /**
+   * Ends the exploration of source, if it is the one explored.
+   *
+   * @return true if this call ended it
+   */
+  boolean endExploration(final int source) {
+    return (this.exploring.get() == source) && this.exploring.compareAndSet(source, -1);
+  }
+
+  /**
+   * @return expected ns spent on the source per success it returns
+   */
+  double getExpectedCost(final int source) {
+
+    final long sourceAttempts = this.attempts.get(source);
+
+    if (sourceAttempts == 0) {
+      return Double.MAX_VALUE; // untried sources stay behind, in rank order
+    }
+
+    final double meanNanos = (double) this.nanos.get(source) / sourceAttempts;
+    final double successRate = (this.successes.get(source) + 1.0) / (sourceAttempts + 2.0);
+
+    return meanNanos / successRate;
+
+  }
+
+  /**
+   * @return the current order, or once per EXPLORE_INTERVAL_NANOS, unless an
+   *         exploration is still running, a copy of it with a source ranked
+   *         above the first one moved to the front
+   */
+  private int[] explore() {
+
+    final int[] current = this.order;
+    final long now = System.nanoTime();
+    final long next = this.nextExploreNanos.get();
+
+    if ((current[0] == 0) || ((now - next) < 0) || !this.nextExploreNanos.compareAndSet(next,
+      now + AdaptiveSourceOrder.EXPLORE_INTERVAL_NANOS)) {
+      return current; // in rank order, or explored recently
+    }
+
+    final int demoted = ThreadLocalRandom.current().nextInt(current[0]);
+
+    if (!this.exploring.compareAndSet(-1, demoted)) {
+      return current; // the previous exploration has not been tried yet
+    }
+
+    final int[] explored = new int[current.length];
+
+    explored[0] = demoted;
+
+    for (int k = 0, j = 1; k < current.length; k++) {
+
+      if (current[k] != demoted) {
+        explored[j++] = current[k];
+      }
+
+    }
+
+    return explored;
+
+  }
+
+  private void reorder() {
+
+    if (!this.reordering.compareAndSet(false, true)) {
+      return; // another caller is on it
+    }
+
+    try {
+
+      final int sources = this.attempts.length();
+      final double[] costs = new double[sources];
+      final Integer[] sorted = new Integer[sources];
+
+      long totalAttempts = 0;
+
+      for (int i = 0; i < sources; i++) {
+        totalAttempts += this.attempts.get(i);
+      }
+
+      for (int i = 0; i < sources; i++) {
+
+        if (totalAttempts >= AdaptiveSourceOrder.DECAY_ATTEMPTS) {
+          this.attempts.set(i, this.attempts.get(i) / 2); // racy, counts are estimates
+          this.successes.set(i, this.successes.get(i) / 2);
+          this.nanos.set(i, (this.attempts.get(i) > 0) ? (this.nanos.get(i) / 2) : 0);
+        }
+
+        costs[i] = this.getExpectedCost(i);
+        sorted[i] = i;
+
+      }
+
+      Arrays.sort(sorted, (a, b) -> {
+        final int byCost = Double.compare(costs[a], costs[b]);
+        return (byCost != 0) ? byCost : Integer.compare(a, b);
+      });
+
+      final int[] updated = new int[sources];
+
+      for (int i = 0; i < sources; i++) {
+        updated[i] = sorted[i];
+      }
+
+      this.order = updated;
+
+    }
+    finally {
+      this.reordering.set(false);
+    }
+
+  }
+
+}
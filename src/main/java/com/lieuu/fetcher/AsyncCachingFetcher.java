@@ -0,0 +1,129 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Async counterpart of CachingFetcher. The first caller starts the underlying
+ * fetch and every other caller shares its result; failures are cached the
+ * same way CachingFetcher caches them, except FetcherNotReadyException.
+ * Callers get a dependent stage rather than the shared future, so completing
+ * or cancelling it does not affect the other callers; a shared future that
+ * ends cancelled is dropped and fetched again.
+ */
+class AsyncCachingFetcher<T> implements AsyncFetcher<T> {
+
+  private final AsyncFetcher<T> fetcher;
+  private final AtomicReference<CompletableFuture<T>> future;
+
+  public AsyncCachingFetcher(final AsyncFetcher<T> fetcher) {
+    this.fetcher = fetcher;
+    this.future = new AtomicReference<>();
+  }
+
+  @Override
+  public CompletionStage<T> fetchAsync() {
+
+    final CancellableFuture<T> created = new CancellableFuture<>();
+
+    while (!this.future.compareAndSet(null, created)) {
+
+      final CompletableFuture<T> current = this.future.get();
+
+      if ((current != null) && current.isCancelled()) {
+        this.future.compareAndSet(current, null); // fetch again
+      }
+      else if (current != null) {
+        return current.thenApply(Function.identity()); // callers can't complete the shared one
+      }
+
+    }
+
+    CompletionStage<T> stage;
+
+    try {
+      stage = this.fetcher.fetchAsync();
+    }
+    catch (final RuntimeException e) {
+      stage = AsyncFetchers.failedFuture(e);
+    }
+
+    created.setTask(stage.toCompletableFuture()); // cancelling propagates to the source
+
+    created.whenComplete((value, e) -> {
+
+      if (created.isCancelled()) {
+        this.future.compareAndSet(created, null); // never serve a cancellation
+      }
+
+    });
+
+    stage.whenComplete((value, e) -> {
+
+      if (e != null) {
+
+        final Throwable cause = AsyncFetchers.unwrap(e);
+
+        if (cause instanceof FetcherNotReadyException) {
+          this.future.compareAndSet(created, null); // retry on the next call
+        }
+
+        created.completeExceptionally(
+          (cause instanceof FetcherException) ? cause : new FetcherException(cause));
+
+      }
+      else if (value == null) {
+        created.completeExceptionally(
+          new FetcherException(new NullPointerException("Value from fetcher was null")));
+      }
+      else {
+        created.complete(value);
+      }
+
+    });
+
+    return created.thenApply(Function.identity());
+
+  }
+
+  /**
+   * @return the cached future without starting a fetch, or null if there is
+   *         none
+   */
+  protected CompletableFuture<T> peekCachedFuture() {
+    return this.future.get();
+  }
+
+  /**
+   * Cancels the in-flight fetch, propagating the cancellation to the
+   * underlying stage, and empties the cache so the next call fetches again.
+   *
+   * @return ns the cancelled fetch had been in flight, or -1 if nothing was
+   *         cancelled
+   */
+  protected long cancelCachedFuture() {
+
+    final CompletableFuture<T> current = this.future.get();
+
+    if (!(current instanceof CancellableFuture) || current.isDone()) {
+      return -1;
+    }
+
+    final long inFlightNanos = ((CancellableFuture<T>) current).cancelInFlight();
+
+    this.future.compareAndSet(current, null);
+
+    return inFlightNanos;
+
+  }
+
+  protected void clearCachedFuture() {
+    this.future.set(null);
+  }
+
+}
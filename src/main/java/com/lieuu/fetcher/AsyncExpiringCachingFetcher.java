@@ -0,0 +1,36 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AsyncExpiringCachingFetcher<T> extends AsyncCachingFetcher<T> {
+
+  private final AtomicLong lastClearTime;
+  private final double maxCacheTime;
+
+  public AsyncExpiringCachingFetcher(final AsyncFetcher<T> fetcher, final int maxCacheTime) {
+    this(fetcher, (double) maxCacheTime);
+  }
+
+  public AsyncExpiringCachingFetcher(final AsyncFetcher<T> fetcher, final double maxCacheTime) {
+    super(fetcher);
+    this.lastClearTime = new AtomicLong(System.currentTimeMillis());
+    this.maxCacheTime = maxCacheTime;
+  }
+
+  @Override
+  public CompletionStage<T> fetchAsync() {
+
+    final long now = System.currentTimeMillis();
+    final long lastClear = this.lastClearTime.get();
+
+    if (((now - lastClear) >= this.maxCacheTime)
+        && this.lastClearTime.compareAndSet(lastClear, now)) {
+      this.clearCachedFuture();
+    }
+
+    return super.fetchAsync();
+
+  }
+
+}
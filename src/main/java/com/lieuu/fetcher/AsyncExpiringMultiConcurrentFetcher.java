@@ -0,0 +1,41 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AsyncExpiringMultiConcurrentFetcher<T> extends AsyncMultiConcurrentFetcher<T> {
+
+  private final AtomicLong lastClearTime;
+  private final double maxCacheTimeMs;
+
+  public AsyncExpiringMultiConcurrentFetcher(final double maxCacheTimeMs,
+    final List<AsyncCachingFetcher<T>> fetchers) {
+    this(maxCacheTimeMs, false, fetchers);
+  }
+
+  public AsyncExpiringMultiConcurrentFetcher(final double maxCacheTimeMs,
+    final boolean cancelLosers, final List<AsyncCachingFetcher<T>> fetchers) {
+    super(cancelLosers, fetchers);
+    this.maxCacheTimeMs = maxCacheTimeMs;
+    this.lastClearTime = new AtomicLong(System.currentTimeMillis());
+  }
+
+  @Override
+  public final CompletionStage<FetcherResponse<T>> fetchAsync() {
+
+    final long now = System.currentTimeMillis();
+    final long lastClear = this.lastClearTime.get();
+
+    if (((now - lastClear) >= this.maxCacheTimeMs)
+        && this.lastClearTime.compareAndSet(lastClear, now)) {
+      this.clearFuture();
+    }
+
+    return super.fetchAsync();
+
+  }
+
+}
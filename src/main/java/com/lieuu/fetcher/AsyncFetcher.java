@@ -0,0 +1,16 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.CompletionStage;
+
+public interface AsyncFetcher<T> {
+
+  /**
+   * Starts fetching an object of generic type T without blocking the calling
+   * thread. Failures complete the returned stage exceptionally, usually with a
+   * FetcherException.
+   *
+   * @return stage completed with t of type T
+   */
+  public CompletionStage<T> fetchAsync();
+
+}
@@ -0,0 +1,40 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Adapts an AsyncFetcher to a Fetcher by blocking until its stage completes.
+ */
+class AsyncFetcherBlockingWrapper<T> implements Fetcher<T> {
+
+  private final AsyncFetcher<T> fetcher;
+
+  public AsyncFetcherBlockingWrapper(final AsyncFetcher<T> fetcher) {
+    this.fetcher = fetcher;
+  }
+
+  @Override
+  public final T fetch() throws FetcherException {
+
+    try {
+      return this.fetcher.fetchAsync().toCompletableFuture().get();
+    }
+    catch (final ExecutionException e) {
+
+      if (e.getCause() instanceof FetcherException) {
+        throw (FetcherException) e.getCause();
+      }
+
+      throw new FetcherException(e.getCause());
+
+    }
+    catch (final InterruptedException | CancellationException e) {
+      throw new FetcherException(e);
+    }
+
+  }
+
+}
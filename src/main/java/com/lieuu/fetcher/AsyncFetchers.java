@@ -0,0 +1,87 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+public final class AsyncFetchers {
+
+  @SafeVarargs
+  public final static <T> AsyncFetcher<T> getMultiConcurrentFetcher(
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiFetcherValueWrapper<>(AsyncMultiFetchers.getMultiConcurrentFetcher(
+      fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncFetcher<T> getMultiConcurrentFetcher(final int maxTimeMs,
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiFetcherValueWrapper<>(AsyncMultiFetchers.getMultiConcurrentFetcher(
+      maxTimeMs, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncFetcher<T> getExpiringMultiConcurrentFetcher(final long maxTimeMs,
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiFetcherValueWrapper<>(
+      AsyncMultiFetchers.getExpiringMultiConcurrentFetcher(maxTimeMs, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncFetcher<T> getWaterfallFetcher(final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiFetcherValueWrapper<>(AsyncMultiFetchers.getWaterfallFetcher(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncFetcher<T> getWaterfallFetcher(final FetcherErrorCallback callback,
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiFetcherValueWrapper<>(AsyncMultiFetchers.getWaterfallFetcher(callback,
+      fetchers));
+  }
+
+  public final static <T> AsyncFetcher<T> getCachingFetcher(final AsyncFetcher<T> fetcher) {
+    return new AsyncCachingFetcher<>(fetcher);
+  }
+
+  public final static <T> AsyncFetcher<T> getExpiringCachingFetcher(final AsyncFetcher<T> fetcher,
+    final int maxCacheTime) {
+    return new AsyncExpiringCachingFetcher<>(fetcher, maxCacheTime);
+  }
+
+  public final static <T> AsyncFetcher<T> getAsyncFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final Fetcher<T> fetcher) {
+    return new ExecutorAsyncFetcher<>(fetcher, executorServiceFetcher);
+  }
+
+  public final static <T> AsyncFetcher<T> getAsyncFetcher(final Fetcher<T> fetcher) {
+    return AsyncFetchers.getAsyncFetcher(Fetchers.getExecutorServiceFetcher(), fetcher);
+  }
+
+  public final static <T> Fetcher<T> getBlockingFetcher(final AsyncFetcher<T> fetcher) {
+    return new AsyncFetcherBlockingWrapper<>(fetcher);
+  }
+
+  static <T> CompletableFuture<T> failedFuture(final Throwable e) {
+
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(e);
+
+    return future;
+
+  }
+
+  static Throwable unwrap(final Throwable e) {
+
+    if (((e instanceof CompletionException) || (e instanceof ExecutionException))
+        && (e.getCause() != null)) {
+      return e.getCause();
+    }
+
+    return e;
+
+  }
+
+}
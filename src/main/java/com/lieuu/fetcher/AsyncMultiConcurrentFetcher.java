@@ -0,0 +1,219 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Async counterpart of BlockingMultiConcurrentFetcher. Every source is started
+ * at once; whenever one completes, the sources are scanned in rank order and
+ * the first successful value completes the response. The deadline is enforced
+ * by the shared scheduler, so no thread waits on the sources.
+ */
+class AsyncMultiConcurrentFetcher<T> implements InstrumentedAsyncMultiFetcher<T> {
+
+  private final static FetcherErrorCallback DEFAULT_ERROR_CALLBACK = e -> {
+  };
+
+  private final static double DEFAULT_MAX_TIME_MS = 2 * 1000;
+
+  private final FetcherErrorCallback errorCallback;
+  private final double maxTimeMs;
+  private final boolean cancelLosers;
+  private final CancellationCounter cancellations;
+
+  private final List<AsyncCachingFetcher<T>> fetchers;
+  private final FetcherResponseFactory<T> responseFactory;
+
+  public AsyncMultiConcurrentFetcher(final List<AsyncCachingFetcher<T>> fetchers) {
+    this(AsyncMultiConcurrentFetcher.DEFAULT_MAX_TIME_MS, fetchers);
+  }
+
+  public AsyncMultiConcurrentFetcher(final double maxTimeMs,
+    final List<AsyncCachingFetcher<T>> fetchers) {
+    this(AsyncMultiConcurrentFetcher.DEFAULT_ERROR_CALLBACK, maxTimeMs, fetchers);
+  }
+
+  public AsyncMultiConcurrentFetcher(final FetcherErrorCallback errorCallback,
+    final double maxTimeMs, final List<AsyncCachingFetcher<T>> fetchers) {
+    this(errorCallback, maxTimeMs, false, fetchers);
+  }
+
+  public AsyncMultiConcurrentFetcher(final boolean cancelLosers,
+    final List<AsyncCachingFetcher<T>> fetchers) {
+    this(AsyncMultiConcurrentFetcher.DEFAULT_ERROR_CALLBACK,
+      AsyncMultiConcurrentFetcher.DEFAULT_MAX_TIME_MS, cancelLosers, fetchers);
+  }
+
+  /**
+   * @param errorCallback
+   * @param maxTimeMs
+   * @param cancelLosers if true, sources still in flight when the response
+   *          completes with another source's value are cancelled, which
+   *          interrupts executor-backed sources
+   * @param fetchers
+   */
+  public AsyncMultiConcurrentFetcher(final FetcherErrorCallback errorCallback,
+    final double maxTimeMs, final boolean cancelLosers,
+    final List<AsyncCachingFetcher<T>> fetchers) {
+    this.fetchers = Collections.unmodifiableList(fetchers);
+    this.errorCallback = errorCallback;
+    this.maxTimeMs = maxTimeMs;
+    this.cancelLosers = cancelLosers;
+    this.cancellations = new CancellationCounter();
+    this.responseFactory = new FetcherResponseFactory<>(fetchers.size());
+  }
+
+  @Override
+  public CompletionStage<FetcherResponse<T>> fetchAsync() {
+
+    if (this.fetchers.isEmpty()) {
+      return AsyncFetchers.failedFuture(new FetcherException("Number of fetchers was zero!"));
+    }
+
+    if (this.cancelLosers) {
+
+      for (int i = 0; i < this.fetchers.size(); i++) { // don't restart cancelled losers
+
+        final CompletableFuture<T> kept = this.fetchers.get(i).peekCachedFuture();
+
+        if ((kept != null) && kept.isDone() && !kept.isCompletedExceptionally()) {
+          return CompletableFuture.completedFuture(
+            this.responseFactory.getCachedFetcherResponse(i + 1, kept.getNow(null)));
+        }
+
+      }
+
+    }
+
+    final List<CompletableFuture<T>> futures = new ArrayList<>(this.fetchers.size());
+
+    for (final AsyncCachingFetcher<T> fetcher : this.fetchers) {
+      futures.add(fetcher.fetchAsync().toCompletableFuture());
+    }
+
+    final CompletableFuture<FetcherResponse<T>> response = new CompletableFuture<>();
+
+    for (final CompletableFuture<T> future : futures) {
+
+      future.whenComplete((value, e) -> {
+
+        if (e != null) {
+          this.errorCallback.onError(AsyncFetchers.unwrap(e));
+        }
+
+        this.completeIfReady(response, futures);
+
+      });
+
+    }
+
+    if (!response.isDone()) {
+      this.scheduleTimeout(response);
+    }
+
+    return response;
+
+  }
+
+  private void completeIfReady(final CompletableFuture<FetcherResponse<T>> response,
+    final List<CompletableFuture<T>> futures) {
+
+    boolean allDone = true;
+
+    for (int i = 0; i < futures.size(); i++) {
+
+      final CompletableFuture<T> future = futures.get(i);
+
+      if (!future.isDone()) {
+        allDone = false;
+      }
+      else if (!future.isCompletedExceptionally()) {
+
+        if (response.complete(
+          this.responseFactory.getCachedFetcherResponse(i + 1, future.getNow(null)))) {
+          this.cancelInFlightLosers(i);
+        }
+
+        return;
+
+      }
+
+    }
+
+    if (!allDone) {
+      return;
+    }
+
+    final CompletableFuture<T> last = futures.get(futures.size() - 1);
+    response.completeExceptionally(AsyncFetchers.unwrap(last.handle((value, e) -> e).getNow(null)));
+
+  }
+
+  private void scheduleTimeout(final CompletableFuture<FetcherResponse<T>> response) {
+
+    try {
+
+      final ScheduledExecutorService scheduler = Fetchers.getScheduledExecutorServiceFetcher()
+          .fetch();
+
+      final ScheduledFuture<?> timeout = scheduler.schedule(
+        () -> response.completeExceptionally(new FetcherNotReadyException(
+          new TimeoutException("No fetcher completed within " + this.maxTimeMs + "ms"))),
+        (long) (this.maxTimeMs * 1000 * 1000), TimeUnit.NANOSECONDS);
+
+      response.whenComplete((value, e) -> timeout.cancel(false));
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+      response.completeExceptionally(e);
+    }
+
+  }
+
+  private void cancelInFlightLosers(final int winner) {
+
+    if (!this.cancelLosers) {
+      return;
+    }
+
+    for (int i = 0; i < this.fetchers.size(); i++) {
+
+      if (i != winner) {
+        this.cancellations.record(this.fetchers.get(i).cancelCachedFuture());
+      }
+
+    }
+
+  }
+
+  @Override
+  public long getCancelledFetches() {
+    return this.cancellations.getCancelledFetches();
+  }
+
+  @Override
+  public long getCancelledFetchMillis() {
+    return this.cancellations.getCancelledFetchMillis();
+  }
+
+  protected void clearFuture() {
+
+    for (final AsyncCachingFetcher<T> fetcher : this.fetchers) {
+      fetcher.clearCachedFuture();
+    }
+
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.concurrent.CompletionStage;
+
+class AsyncMultiFetcherValueWrapper<T> implements AsyncFetcher<T> {
+
+  private final AsyncMultiFetcher<T> fetcher;
+
+  public AsyncMultiFetcherValueWrapper(final AsyncMultiFetcher<T> fetcher) {
+    this.fetcher = fetcher;
+  }
+
+  @Override
+  public final CompletionStage<T> fetchAsync() {
+    return this.fetcher.fetchAsync().thenApply(FetcherResponse::value);
+  }
+
+}
@@ -0,0 +1,70 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class AsyncMultiFetchers {
+
+  @SafeVarargs
+  public final static <T> AsyncMultiFetcher<T> getMultiConcurrentFetcher(
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiConcurrentFetcher<>(AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncMultiFetcher<T> getMultiConcurrentFetcher(final int maxTimeMs,
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiConcurrentFetcher<>(maxTimeMs, AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncMultiFetcher<T> getExpiringMultiConcurrentFetcher(
+    final long maxTimeMs, final AsyncFetcher<T>... fetchers) {
+    return new AsyncExpiringMultiConcurrentFetcher<>(maxTimeMs, AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  /**
+   * Multi concurrent fetcher that cancels the sources still in flight once the
+   * response completes with another source's value.
+   */
+  @SafeVarargs
+  public final static <T> InstrumentedAsyncMultiFetcher<T> getCancellingMultiConcurrentFetcher(
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncMultiConcurrentFetcher<>(true, AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedAsyncMultiFetcher<T> getExpiringCancellingMultiConcurrentFetcher(
+    final long maxTimeMs, final AsyncFetcher<T>... fetchers) {
+    return new AsyncExpiringMultiConcurrentFetcher<>(maxTimeMs, true,
+      AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncMultiFetcher<T> getWaterfallFetcher(
+    final AsyncFetcher<T>... fetchers) {
+    return new AsyncWaterfallFetcher<>(AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> AsyncMultiFetcher<T> getWaterfallFetcher(
+    final FetcherErrorCallback callback, final AsyncFetcher<T>... fetchers) {
+    return new AsyncWaterfallFetcher<>(callback, AsyncMultiFetchers.wrap(fetchers));
+  }
+
+  @SafeVarargs
+  private final static <T> List<AsyncCachingFetcher<T>> wrap(final AsyncFetcher<T>... fetchers) {
+
+    final List<AsyncCachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final AsyncFetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new AsyncCachingFetcher<>(fetcher));
+    }
+
+    return fetchersWrapped;
+
+  }
+
+}
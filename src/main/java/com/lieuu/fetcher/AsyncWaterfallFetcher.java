@@ -0,0 +1,70 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Async counterpart of WaterfallCachingFetcher. Each fallback is only started
+ * once the previous stage has failed, without parking a thread in between.
+ */
+class AsyncWaterfallFetcher<T> implements AsyncMultiFetcher<T> {
+
+  private final static FetcherErrorCallback DEFAULT_ERROR_CALLBACK = e -> e.printStackTrace();
+
+  private final FetcherErrorCallback errorCallback;
+  private final List<AsyncCachingFetcher<T>> fetchers;
+  private final FetcherResponseFactory<T> responseFactory;
+
+  public AsyncWaterfallFetcher(final List<AsyncCachingFetcher<T>> fetchers) {
+    this(AsyncWaterfallFetcher.DEFAULT_ERROR_CALLBACK, fetchers);
+  }
+
+  public AsyncWaterfallFetcher(final FetcherErrorCallback errorCallback,
+    final List<AsyncCachingFetcher<T>> fetchers) {
+    this.fetchers = Collections.unmodifiableList(fetchers);
+    this.errorCallback = errorCallback;
+    this.responseFactory = new FetcherResponseFactory<>(fetchers.size());
+  }
+
+  @Override
+  public CompletionStage<FetcherResponse<T>> fetchAsync() {
+
+    if (this.fetchers.isEmpty()) {
+      return AsyncFetchers.failedFuture(new FetcherException("Number of fetchers was zero!"));
+    }
+
+    return this.fetchFrom(0);
+
+  }
+
+  private CompletionStage<FetcherResponse<T>> fetchFrom(final int index) {
+
+    final CompletionStage<FetcherResponse<T>> stage = this.fetchers.get(index).fetchAsync()
+        .thenApply(value -> this.responseFactory.getCachedFetcherResponse(index + 1, value));
+
+    if (index == (this.fetchers.size() - 1)) {
+      return stage;
+    }
+
+    return stage.handle((response, e) -> {
+
+      if (e == null) {
+        return CompletableFuture.completedFuture(response);
+      }
+
+      this.errorCallback.onError(AsyncFetchers.unwrap(e));
+
+      return this.fetchFrom(index + 1);
+
+    }).thenCompose(Function.identity());
+
+  }
+
+}
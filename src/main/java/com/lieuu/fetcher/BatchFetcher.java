@@ -0,0 +1,21 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface BatchFetcher<K, V> {
+
+  /**
+   * Fetches the objects for all given keys in one call and throws
+   * FetcherException if it encounters an error. Keys missing from the returned
+   * map fail individually.
+   *
+   * @param keys keys of type K
+   * @return values of type V by key
+   * @throws FetcherException
+   */
+  public Map<K, V> fetchAll(final Set<K> keys) throws FetcherException;
+
+}
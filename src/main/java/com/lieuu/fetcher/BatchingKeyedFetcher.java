@@ -0,0 +1,291 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.exception.FetcherRejectedException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent single-key fetches into bulk fetchAll calls. The first
+ * key opens a batch; the batch is dispatched on the executor once windowMs has
+ * elapsed or maxBatchSize distinct keys have been collected, whichever comes
+ * first, and every waiting caller receives its own key's value. A batch the
+ * executor rejects, or discards by cancelling it, fails all of its callers.
+ * With a maxTimeMs, callers stop waiting after windowMs plus maxTimeMs.
+ */
+class BatchingKeyedFetcher<K, V> implements InstrumentedBatchingFetcher<K, V> {
+
+  private final class Batch {
+
+    final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    final long openNanos = System.nanoTime();
+
+  }
+
+  private final BatchFetcher<K, V> fetcher;
+  private final int maxBatchSize;
+  private final long windowMs;
+  private final long maxTimeMs;
+  private final Fetcher<ExecutorService> executorServiceFetcher;
+
+  private final Object lock = new Object();
+  private Batch current;
+
+  private final AtomicLong batches = new AtomicLong();
+  private final AtomicLong batchedKeys = new AtomicLong();
+  private final AtomicInteger largestBatch = new AtomicInteger();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong fetchNanos = new AtomicLong();
+
+  public BatchingKeyedFetcher(final BatchFetcher<K, V> fetcher, final int maxBatchSize,
+    final long windowMs, final Fetcher<ExecutorService> executorServiceFetcher) {
+    this(fetcher, maxBatchSize, windowMs, Long.MAX_VALUE, executorServiceFetcher);
+  }
+
+  /**
+   * @param fetcher
+   * @param maxBatchSize
+   * @param windowMs
+   * @param maxTimeMs time in ms a caller waits for the batch fetch once the
+   *          window has passed, Long.MAX_VALUE to wait until it completes
+   * @param executorServiceFetcher
+   */
+  public BatchingKeyedFetcher(final BatchFetcher<K, V> fetcher, final int maxBatchSize,
+    final long windowMs, final long maxTimeMs,
+    final Fetcher<ExecutorService> executorServiceFetcher) {
+
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+    }
+
+    this.fetcher = fetcher;
+    this.maxBatchSize = maxBatchSize;
+    this.windowMs = windowMs;
+    this.maxTimeMs = maxTimeMs;
+    this.executorServiceFetcher = executorServiceFetcher;
+
+  }
+
+  @Override
+  public V fetch(final K key) throws FetcherException {
+
+    CompletableFuture<V> future;
+    Batch full = null;
+    Batch opened = null;
+
+    synchronized (this.lock) {
+
+      if (this.current == null) {
+        this.current = new Batch();
+        opened = this.current;
+      }
+
+      future = this.current.futures.get(key);
+
+      if (future == null) {
+        future = new CompletableFuture<>();
+        this.current.futures.put(key, future);
+      }
+
+      if (this.current.futures.size() >= this.maxBatchSize) {
+        full = this.current;
+        this.current = null;
+      }
+
+    }
+
+    if (full != null) {
+      this.dispatch(full);
+    }
+    else if (opened != null) {
+      this.scheduleDispatch(opened);
+    }
+
+    try {
+
+      if (this.maxTimeMs > (Long.MAX_VALUE - this.windowMs)) {
+        return future.get();
+      }
+
+      return future.get(this.windowMs + this.maxTimeMs, TimeUnit.MILLISECONDS);
+
+    }
+    catch (final TimeoutException e) {
+      throw new FetcherNotReadyException(e);
+    }
+    catch (final ExecutionException e) {
+
+      if (e.getCause() instanceof FetcherException) {
+        throw (FetcherException) e.getCause();
+      }
+
+      throw new FetcherException(e.getCause());
+
+    }
+    catch (final InterruptedException e) {
+      throw new FetcherException(e);
+    }
+
+  }
+
+  private void scheduleDispatch(final Batch batch) {
+
+    try {
+
+      final ScheduledExecutorService scheduler = Fetchers.getScheduledExecutorServiceFetcher()
+          .fetch();
+
+      scheduler.schedule(() -> {
+
+        synchronized (this.lock) {
+
+          if (this.current != batch) {
+            return; // already dispatched because it filled up
+          }
+
+          this.current = null;
+
+        }
+
+        this.dispatch(batch);
+
+      }, this.windowMs, TimeUnit.MILLISECONDS);
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+
+      synchronized (this.lock) {
+
+        if (this.current == batch) {
+          this.current = null;
+        }
+
+      }
+
+      this.dispatch(batch);
+
+    }
+
+  }
+
+  private void dispatch(final Batch batch) {
+
+    final FutureTask<Void> task = new FutureTask<Void>(() -> this.fetchBatch(batch), null) {
+
+      @Override
+      protected void done() {
+
+        if (this.isCancelled()) { // e.g. dropped by a discarding rejection policy
+          BatchingKeyedFetcher.completeAll(batch, new FetcherRejectedException(
+            new RejectedExecutionException("Batch discarded before it ran")));
+        }
+
+      }
+
+    };
+
+    try {
+      this.executorServiceFetcher.fetch().execute(task);
+    }
+    catch (final FetcherException | RuntimeException e) {
+      BatchingKeyedFetcher.completeAll(batch, ExecutorServices.submitException(e));
+    }
+
+  }
+
+  private void fetchBatch(final Batch batch) {
+
+    final long startNanos = System.nanoTime();
+    final int size = batch.futures.size();
+
+    this.batches.incrementAndGet();
+    this.batchedKeys.addAndGet(size);
+    this.largestBatch.accumulateAndGet(size, Math::max);
+    this.waitNanos.addAndGet(startNanos - batch.openNanos);
+
+    try {
+
+      final Map<K, V> values = this.fetcher.fetchAll(
+        Collections.unmodifiableSet(batch.futures.keySet()));
+
+      for (final Map.Entry<K, CompletableFuture<V>> entry : batch.futures.entrySet()) {
+
+        final V value = (values == null) ? null : values.get(entry.getKey());
+
+        if (value == null) {
+          entry.getValue().completeExceptionally(
+            new FetcherException("No value returned for key " + entry.getKey()));
+        }
+        else {
+          entry.getValue().complete(value);
+        }
+
+      }
+
+    }
+    catch (final Throwable e) {
+      BatchingKeyedFetcher.completeAll(batch,
+        (e instanceof FetcherException) ? (FetcherException) e : new FetcherException(e));
+    }
+    finally {
+      this.fetchNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+  }
+
+  private static <K, V> void completeAll(final BatchingKeyedFetcher<K, V>.Batch batch,
+    final FetcherException e) {
+
+    for (final CompletableFuture<V> future : batch.futures.values()) {
+      future.completeExceptionally(e);
+    }
+
+  }
+
+  @Override
+  public long getBatches() {
+    return this.batches.get();
+  }
+
+  @Override
+  public long getBatchedKeys() {
+    return this.batchedKeys.get();
+  }
+
+  @Override
+  public int getLargestBatch() {
+    return this.largestBatch.get();
+  }
+
+  @Override
+  public double getAverageBatchSize() {
+    final long count = this.batches.get();
+    return (count == 0) ? 0 : (double) this.batchedKeys.get() / count;
+  }
+
+  @Override
+  public double getAverageWaitMillis() {
+    final long count = this.batches.get();
+    return (count == 0) ? 0 : (this.waitNanos.get() / 1000000.0) / count;
+  }
+
+  @Override
+  public double getAverageFetchMillis() {
+    final long count = this.batches.get();
+    return (count == 0) ? 0 : (this.fetchNanos.get() / 1000000.0) / count;
+  }
+
+}
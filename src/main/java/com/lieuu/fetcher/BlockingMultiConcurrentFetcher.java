@@ -10,11 +10,16 @@ import com.lieuu.fetcher.exception.FetcherNotReadyException;
 import com.lieuu.fetcher.exception.FetcherTimeoutCallback;
 import com.lieuu.fetcher.response.FetcherResponse;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
+class BlockingMultiConcurrentFetcher<T> implements InstrumentedMultiFetcher<T> {
 
   private final static FetcherErrorCallback DEFAULT_ERROR_CALLBACK = e -> {
   };
@@ -27,8 +32,13 @@ class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
   private final FetcherTimeoutCallback timeoutCallback;
 
   private final double maxTimeMs;
+  private final boolean completionDriven;
+  private final boolean cancelLosers;
+  private final HedgePolicy hedgePolicy;
+  private final CancellationCounter cancellations;
 
   private final List<NonBlockingConcurrentFetcher<T>> fetchers;
+  private final FetcherResponseFactory<T> responseFactory;
 
   @SafeVarargs
   public BlockingMultiConcurrentFetcher(final NonBlockingConcurrentFetcher<T>... fetchers) {
@@ -63,8 +73,75 @@ class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
       BlockingMultiConcurrentFetcher.DEFAULT_MAX_TIME_MS, fetchers);
   }
 
+  public BlockingMultiConcurrentFetcher(final boolean completionDriven,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(BlockingMultiConcurrentFetcher.DEFAULT_MAX_TIME_MS, completionDriven, fetchers);
+  }
+
+  public BlockingMultiConcurrentFetcher(final double maxTimeMs, final boolean completionDriven,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(BlockingMultiConcurrentFetcher.DEFAULT_ERROR_CALLBACK,
+      BlockingMultiConcurrentFetcher.DEFAULT_TIMEOUT_CALLBACK, maxTimeMs, completionDriven,
+      fetchers);
+  }
+
+  public BlockingMultiConcurrentFetcher(final FetcherErrorCallback errorCallback,
+    final FetcherTimeoutCallback timeoutCallback, final double maxTimeMs,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(errorCallback, timeoutCallback, maxTimeMs, false, fetchers);
+  }
+
+  /**
+   * @param errorCallback
+   * @param timeoutCallback
+   * @param maxTimeMs
+   * @param completionDriven if true, all fetchers are started at once and the
+   *          caller parks until a future completes instead of polling each
+   *          fetcher for 1ms in turn
+   * @param fetchers
+   */
+  public BlockingMultiConcurrentFetcher(final FetcherErrorCallback errorCallback,
+    final FetcherTimeoutCallback timeoutCallback, final double maxTimeMs,
+    final boolean completionDriven, final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(errorCallback, timeoutCallback, maxTimeMs, completionDriven, false, null, fetchers);
+  }
+
+  public BlockingMultiConcurrentFetcher(final boolean completionDriven,
+    final boolean cancelLosers, final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(BlockingMultiConcurrentFetcher.DEFAULT_ERROR_CALLBACK,
+      BlockingMultiConcurrentFetcher.DEFAULT_TIMEOUT_CALLBACK,
+      BlockingMultiConcurrentFetcher.DEFAULT_MAX_TIME_MS, completionDriven, cancelLosers, null,
+      fetchers);
+  }
+
+  public BlockingMultiConcurrentFetcher(final HedgePolicy hedgePolicy,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(BlockingMultiConcurrentFetcher.DEFAULT_MAX_TIME_MS, hedgePolicy, fetchers);
+  }
+
+  public BlockingMultiConcurrentFetcher(final double maxTimeMs, final HedgePolicy hedgePolicy,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    this(BlockingMultiConcurrentFetcher.DEFAULT_ERROR_CALLBACK,
+      BlockingMultiConcurrentFetcher.DEFAULT_TIMEOUT_CALLBACK, maxTimeMs, true, true,
+      hedgePolicy, fetchers);
+  }
+
+  /**
+   * @param errorCallback
+   * @param timeoutCallback
+   * @param maxTimeMs
+   * @param completionDriven
+   * @param cancelLosers if true, fetchers still in flight when another
+   *          fetcher's value is returned are cancelled and interrupted
+   * @param hedgePolicy if not null, fetchers are started one at a time and the
+   *          next is only launched once the hedge delay of the previous one
+   *          has passed without a value, or it failed; takes precedence over
+   *          completionDriven
+   * @param fetchers
+   */
   public BlockingMultiConcurrentFetcher(final FetcherErrorCallback errorCallback,
     final FetcherTimeoutCallback timeoutCallback, final double maxTimeMs,
+    final boolean completionDriven, final boolean cancelLosers, final HedgePolicy hedgePolicy,
     final List<NonBlockingConcurrentFetcher<T>> fetchers) {
 
     this.fetchers = Collections.unmodifiableList(fetchers);
@@ -72,6 +149,11 @@ class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
     this.errorCallback = errorCallback;
     this.timeoutCallback = timeoutCallback;
     this.maxTimeMs = maxTimeMs;
+    this.completionDriven = completionDriven;
+    this.cancelLosers = cancelLosers;
+    this.hedgePolicy = hedgePolicy;
+    this.cancellations = new CancellationCounter();
+    this.responseFactory = new FetcherResponseFactory<>(fetchers.size());
 
   }
 
@@ -82,6 +164,24 @@ class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
       throw new FetcherException("Number of fetchers was zero!");
     }
 
+    if (this.cancelLosers) {
+
+      final FetcherResponse<T> kept = this.getKeptResponse();
+
+      if (kept != null) {
+        return kept; // don't restart cancelled losers only to cancel them again
+      }
+
+    }
+
+    if (this.hedgePolicy != null) {
+      return this.fetchHedged();
+    }
+
+    if (this.completionDriven) {
+      return this.fetchOnCompletion();
+    }
+
     final long startTime = System.currentTimeMillis();
 
     while ((System.currentTimeMillis() - startTime) < this.maxTimeMs) {
@@ -92,7 +192,14 @@ class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
         final Fetcher<T> fetcher = this.fetchers.get(i);
 
         try {
-          return FetcherResponseFactory.getFetcherResponse(i + 1, fetcher.fetch());
+
+          final FetcherResponse<T> response = this.responseFactory
+              .getCachedFetcherResponse(i + 1, fetcher.fetch());
+
+          this.cancelInFlightLosers(i);
+
+          return response;
+
         }
         catch (final FetcherException e) {
           if (e.getCause() instanceof FetcherNotReadyException) {
@@ -107,11 +214,255 @@ class BlockingMultiConcurrentFetcher<T> implements MultiFetcher<T> {
 
     }
 
-    return FetcherResponseFactory.getFetcherResponse(this.fetchers.size(),
+    return this.responseFactory.getCachedFetcherResponse(this.fetchers.size(),
       this.fetchers.get(this.fetchers.size() - 1).fetch());
 
   }
 
+  /**
+   * Starts every fetcher, then parks until one of the outstanding futures
+   * completes. After each completion the fetchers are scanned in rank order and
+   * the first one holding a successful value is returned: the highest ranked
+   * result completed at the time the caller is woken, which is not always the
+   * one the polling loop would have picked.
+   */
+  private FetcherResponse<T> fetchOnCompletion() throws FetcherException {
+
+    final int size = this.fetchers.size();
+    final List<CompletableFuture<T>> futures = new ArrayList<>(size);
+
+    for (final NonBlockingConcurrentFetcher<T> fetcher : this.fetchers) {
+      futures.add(fetcher.getOrSubmitFuture());
+    }
+
+    final boolean[] reported = new boolean[size];
+    final long deadline = System.nanoTime() + (long) (this.maxTimeMs * 1000 * 1000);
+
+    while (true) {
+
+      final List<CompletableFuture<T>> pending = new ArrayList<>(size);
+
+      for (int i = 0; i < size; i++) {
+
+        final CompletableFuture<T> future = futures.get(i);
+
+        if (!future.isDone()) {
+          pending.add(future);
+        }
+        else if (!future.isCompletedExceptionally()) {
+          this.cancelInFlightLosers(i);
+          return this.responseFactory.getCachedFetcherResponse(i + 1, future.getNow(null));
+        }
+        else if (!reported[i]) {
+
+          reported[i] = true;
+
+          try {
+            this.fetchers.get(i).fetch(); // rethrows the failure, wrapped
+          }
+          catch (final FetcherException e) {
+            this.errorCallback.onError(e);
+          }
+
+        }
+
+      }
+
+      final long remainingNanos = deadline - System.nanoTime();
+
+      if (pending.isEmpty() || (remainingNanos <= 0)) {
+        break;
+      }
+
+      try {
+        CompletableFuture.anyOf(pending.toArray(new CompletableFuture<?>[pending.size()])).get(
+          remainingNanos, TimeUnit.NANOSECONDS);
+      }
+      catch (final TimeoutException | ExecutionException e) {
+        // rescan; failures are reported above and the deadline ends the loop
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+    }
+
+    return this.responseFactory.getCachedFetcherResponse(size,
+      this.fetchers.get(size - 1).fetch());
+
+  }
+
+  /**
+   * Starts the first fetcher and launches the next one only when none of the
+   * started fetchers has produced a value within the hedge delay of the last
+   * one started, or straight away once all of them have failed. The first
+   * successful value wins and the started fetchers still in flight are
+   * cancelled.
+   */
+  private FetcherResponse<T> fetchHedged() throws FetcherException {
+
+    final int size = this.fetchers.size();
+    final List<CompletableFuture<T>> futures = new ArrayList<>(size);
+    final boolean[] reported = new boolean[size];
+    final long deadline = System.nanoTime() + (long) (this.maxTimeMs * 1000 * 1000);
+
+    long nextLaunch = this.launchHedge(futures, reported);
+
+    while (true) {
+
+      final List<CompletableFuture<T>> pending = new ArrayList<>(futures.size());
+
+      for (int i = 0; i < futures.size(); i++) {
+
+        final CompletableFuture<T> future = futures.get(i);
+
+        if (!future.isDone()) {
+          pending.add(future);
+        }
+        else if (!future.isCompletedExceptionally()) {
+          this.cancelInFlightLosers(i);
+          return this.responseFactory.getCachedFetcherResponse(i + 1, future.getNow(null));
+        }
+        else if (!reported[i]) {
+
+          reported[i] = true;
+
+          try {
+            this.fetchers.get(i).fetch(); // rethrows the failure, wrapped
+          }
+          catch (final FetcherException e) {
+            this.errorCallback.onError(e);
+          }
+
+        }
+
+      }
+
+      final long now = System.nanoTime();
+      final long remainingNanos = deadline - now;
+
+      if (remainingNanos <= 0) {
+        break;
+      }
+
+      if ((futures.size() < size) && (pending.isEmpty() || (now >= nextLaunch))) {
+        nextLaunch = this.launchHedge(futures, reported);
+        continue;
+      }
+
+      if (pending.isEmpty()) {
+        break; // every fetcher failed
+      }
+
+      final long waitNanos = (futures.size() < size)
+          ? Math.min(remainingNanos, nextLaunch - now) : remainingNanos;
+
+      try {
+        CompletableFuture.anyOf(pending.toArray(new CompletableFuture<?>[pending.size()])).get(
+          waitNanos, TimeUnit.NANOSECONDS);
+      }
+      catch (final TimeoutException | ExecutionException e) {
+        // rescan; the hedge delay or the deadline has passed, or a fetcher failed
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+    }
+
+    final int last = futures.size() - 1;
+
+    return this.responseFactory.getCachedFetcherResponse(last + 1,
+      this.fetchers.get(last).fetch());
+
+  }
+
+  /**
+   * Launches the next fetcher in rank order and records its latency once it
+   * succeeds.
+   *
+   * @return System.nanoTime() after which the following fetcher is launched
+   */
+  private long launchHedge(final List<CompletableFuture<T>> futures, final boolean[] reported) {
+
+    final int source = futures.size();
+    final long launchTime = System.nanoTime();
+
+    try {
+
+      final CompletableFuture<T> future = this.fetchers.get(source).getOrSubmitFuture();
+
+      if (!future.isDone()) {
+        future.whenComplete((value, e) -> {
+          if (e == null) {
+            this.hedgePolicy.record(source, System.nanoTime() - launchTime);
+          }
+        });
+      }
+
+      futures.add(future);
+
+    }
+    catch (final FetcherException e) {
+      reported[source] = true; // rejected, move on to the next fetcher
+      this.errorCallback.onError(e);
+      futures.add(AsyncFetchers.failedFuture(e));
+    }
+
+    return launchTime + this.hedgePolicy.getDelayNanos(source);
+
+  }
+
+  /**
+   * @return the first successful value, in rank order, kept from an earlier
+   *         fetch, or null if there is none
+   */
+  private FetcherResponse<T> getKeptResponse() {
+
+    for (int i = 0; i < this.fetchers.size(); i++) {
+
+      final CompletableFuture<T> future = this.fetchers.get(i).peekFuture();
+
+      if ((future != null) && future.isDone() && !future.isCompletedExceptionally()) {
+        return this.responseFactory.getCachedFetcherResponse(i + 1, future.getNow(null));
+      }
+
+    }
+
+    return null;
+
+  }
+
+  /**
+   * Cancels every other fetcher still in flight, if cancelling losers is
+   * enabled.
+   */
+  private void cancelInFlightLosers(final int winner) {
+
+    if (!this.cancelLosers) {
+      return;
+    }
+
+    for (int i = 0; i < this.fetchers.size(); i++) {
+
+      if (i != winner) {
+        this.cancellations.record(this.fetchers.get(i).cancelFuture());
+      }
+
+    }
+
+  }
+
+  @Override
+  public long getCancelledFetches() {
+    return this.cancellations.getCancelledFetches();
+  }
+
+  @Override
+  public long getCancelledFetchMillis() {
+    return this.cancellations.getCancelledFetchMillis();
+  }
+
   public void clearFuture() {
 
     for (final AbstractConcurrentFetcher<T> fetcherWrapper : this.fetchers) {
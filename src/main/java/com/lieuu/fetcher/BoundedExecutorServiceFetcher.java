@@ -0,0 +1,132 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor service fetcher with a fixed thread ceiling and a bounded queue.
+ * When both are full the rejection handler runs; with the default abort policy
+ * concurrent fetchers surface this as a FetcherRejectedException.
+ * <p>
+ * The discard and discard oldest policies cancel the task they drop, so the
+ * fetch waiting on it fails with a FetcherRejectedException instead of waiting
+ * forever. A dropped task that is not a Future cannot be told apart from one
+ * that ran, so it is rejected rather than dropped. Custom policies that drop
+ * tasks must cancel them the same way.
+ */
+class BoundedExecutorServiceFetcher implements InstrumentedExecutorServiceFetcher {
+
+  private final static long KEEP_ALIVE_SECONDS = 60; // same as a cached pool
+
+  private final ThreadPoolExecutor executor;
+  private final AtomicLong rejectedTasks;
+
+  public BoundedExecutorServiceFetcher(final int maxThreads, final int queueCapacity) {
+    this(maxThreads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public BoundedExecutorServiceFetcher(final int maxThreads, final int queueCapacity,
+    final RejectedExecutionHandler rejectionPolicy) {
+
+    final BlockingQueue<Runnable> queue = (queueCapacity > 0)
+        ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+
+    this.rejectedTasks = new AtomicLong();
+    this.executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+      BoundedExecutorServiceFetcher.KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue,
+      (runnable, executor) -> {
+        this.rejectedTasks.incrementAndGet();
+        BoundedExecutorServiceFetcher.reject(rejectionPolicy, runnable, executor);
+      });
+    this.executor.allowCoreThreadTimeOut(true); // idle pools shrink to zero
+
+  }
+
+  private static void reject(final RejectedExecutionHandler rejectionPolicy,
+    final Runnable runnable, final ThreadPoolExecutor executor) {
+
+    if (rejectionPolicy instanceof ThreadPoolExecutor.DiscardPolicy) {
+      BoundedExecutorServiceFetcher.discard(runnable);
+      return;
+    }
+
+    if (!(rejectionPolicy instanceof ThreadPoolExecutor.DiscardOldestPolicy)) {
+      rejectionPolicy.rejectedExecution(runnable, executor);
+      return;
+    }
+
+    if (executor.isShutdown()) {
+      BoundedExecutorServiceFetcher.discard(runnable);
+      return;
+    }
+
+    final Runnable oldest = executor.getQueue().peek();
+
+    if (!(oldest instanceof Future) || !executor.getQueue().remove(oldest)) {
+      throw new RejectedExecutionException("Oldest task cannot be discarded"); // or was taken
+    }
+
+    ((Future<?>) oldest).cancel(false);
+    executor.execute(runnable);
+
+  }
+
+  private static void discard(final Runnable runnable) {
+
+    if (!(runnable instanceof Future)) {
+      throw new RejectedExecutionException("Task cannot be discarded");
+    }
+
+    ((Future<?>) runnable).cancel(false);
+
+  }
+
+  @Override
+  public ExecutorService fetch() {
+    return this.executor;
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return this.executor.getQueue().size();
+  }
+
+  @Override
+  public int getQueueRemainingCapacity() {
+    return this.executor.getQueue().remainingCapacity();
+  }
+
+  @Override
+  public int getActiveThreads() {
+    return this.executor.getActiveCount();
+  }
+
+  @Override
+  public int getPoolSize() {
+    return this.executor.getPoolSize();
+  }
+
+  @Override
+  public int getLargestPoolSize() {
+    return this.executor.getLargestPoolSize();
+  }
+
+  @Override
+  public long getCompletedTasks() {
+    return this.executor.getCompletedTaskCount();
+  }
+
+  @Override
+  public long getRejectedTasks() {
+    return this.rejectedTasks.get();
+  }
+
+}
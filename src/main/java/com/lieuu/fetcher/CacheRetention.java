@@ -0,0 +1,26 @@
+package com.lieuu.fetcher;
+
+/**
+ * How a caching fetcher holds on to its cached value. For a byte budget shared
+ * by every caching fetcher, see Fetchers.getMemoryBudgetedCachingFetcher.
+ */
+public enum CacheRetention {
+
+  /**
+   * Never released by the garbage collector; only an expiry or a refresh
+   * replaces the value.
+   */
+  STRONG,
+
+  /**
+   * Released when the heap runs low, the historical behaviour. Every soft
+   * cache tends to be cleared in the same collection.
+   */
+  SOFT,
+
+  /**
+   * Released at the next collection once nothing else references the value.
+   */
+  WEAK
+
+}
@@ -0,0 +1,337 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the values cached by registered caching fetchers, written to one
+ * compact binary file at shutdown or periodically and preloaded at startup, so
+ * a restarted process does not send every fetcher to its origin at once. Each
+ * value is stored under the name it was registered with, together with the
+ * time it was loaded: an expiring fetcher gets it back with its remaining time
+ * to live, and values past their maximum stale time are dropped. Values older
+ * than the maximum age given to restore are dropped too, so fetchers that
+ * never expire do not serve a stale snapshot forever. Values whose name is no
+ * longer registered, or that cannot be deserialized, are skipped.
+ * <p>
+ * Fetchers are registered by name, which must stay the same across restarts.
+ * Waterfalls register each source under the name followed by #rank.
+ */
+public final class CacheSnapshot {
+
+  private final DiskValueStore<List<Stored>> store;
+  private final Map<String, Registration<?>> registrations;
+
+  /**
+   * @param file where the snapshot is kept, replaced atomically on write
+   */
+  public CacheSnapshot(final Path file) {
+    this.store = new DiskValueStore<>(file, new StoredSerializer());
+    this.registrations = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @param name unique and stable across restarts
+   * @param fetcher returned by one of the caching or waterfall fetcher
+   *          factories
+   * @param serializer of the cached values
+   * @return this snapshot
+   * @throws IllegalArgumentException if fetcher does not cache, or name is
+   *           already registered
+   */
+  public <T> CacheSnapshot register(final String name, final Fetcher<T> fetcher,
+    final FetcherSerializer<T> serializer) {
+
+    if (fetcher instanceof MultiFetcherValueWrapper) {
+      return this.register(name, ((MultiFetcherValueWrapper<T>) fetcher).getMultiFetcher(),
+        serializer);
+    }
+
+    if (!(fetcher instanceof CachingFetcher)) {
+      throw new IllegalArgumentException("Not a caching fetcher: " + name);
+    }
+
+    this.add(name, new Registration<>((CachingFetcher<T>) fetcher, serializer));
+
+    return this;
+
+  }
+
+  /**
+   * Registers each source of a waterfall as name#rank.
+   *
+   * @throws IllegalArgumentException if fetcher is not a waterfall fetcher
+   */
+  public <T> CacheSnapshot register(final String name, final MultiFetcher<T> fetcher,
+    final FetcherSerializer<T> serializer) {
+
+    if (!(fetcher instanceof WaterfallCachingFetcher)) {
+      throw new IllegalArgumentException("Not a waterfall fetcher: " + name);
+    }
+
+    final List<CachingFetcher<T>> sources = ((WaterfallCachingFetcher<T>) fetcher).getFetchers();
+
+    for (int i = 0; i < sources.size(); i++) {
+      this.add(name + "#" + (i + 1), new Registration<>(sources.get(i), serializer));
+    }
+
+    return this;
+
+  }
+
+  private void add(final String name, final Registration<?> registration) {
+
+    if (this.registrations.putIfAbsent(name, registration) != null) {
+      throw new IllegalArgumentException("Already registered: " + name);
+    }
+
+  }
+
+  /**
+   * Writes the values currently cached by the registered fetchers.
+   *
+   * @return number of values written
+   * @throws FetcherException if the snapshot could not be written, the
+   *           previous one is then left in place
+   */
+  public int write() throws FetcherException {
+
+    final List<Stored> entries = new ArrayList<>(this.registrations.size());
+
+    for (final Map.Entry<String, Registration<?>> registration : this.registrations
+        .entrySet()) {
+
+      final Stored stored = registration.getValue().capture(registration.getKey());
+
+      if (stored != null) {
+        entries.add(stored);
+      }
+
+    }
+
+    try {
+      this.store.write(entries, System.currentTimeMillis());
+    }
+    catch (final IOException | RuntimeException e) {
+      throw new FetcherException(e);
+    }
+
+    return entries.size();
+
+  }
+
+  /**
+   * Preloads the registered fetchers with the values of the snapshot, leaving
+   * alone those that have fetched a value meanwhile. Call it after registering
+   * and before serving.
+   *
+   * @param maxAgeMs values loaded this long ago or earlier are dropped
+   * @return number of values preloaded, 0 if there is no readable snapshot
+   */
+  public int restore(final long maxAgeMs) {
+
+    final DiskValueStore.Stored<List<Stored>> snapshot = this.store.read();
+
+    if (snapshot == null) {
+      return 0;
+    }
+
+    int restored = 0;
+
+    for (final Stored stored : snapshot.getValue()) {
+
+      final Registration<?> registration = this.registrations.get(stored.name);
+
+      if ((registration != null) && registration.restore(stored, maxAgeMs)) {
+        restored++;
+      }
+
+    }
+
+    return restored;
+
+  }
+
+  /**
+   * Writes the snapshot every periodMs on the shared scheduler, ignoring
+   * failed writes.
+   *
+   * @return cancels the periodic writes
+   */
+  public Future<?> scheduleWrites(final long periodMs) throws FetcherException {
+    return Fetchers.getScheduledExecutorServiceFetcher().fetch().scheduleAtFixedRate(() -> {
+
+      try {
+        this.write();
+      }
+      catch (final FetcherException e) {
+        // the previous snapshot stays in place, the next period retries
+      }
+
+    }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Writes the snapshot when the JVM shuts down normally.
+   */
+  public void writeOnShutdown() {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+
+      try {
+        this.write();
+      }
+      catch (final FetcherException e) {
+        // nothing left to report to
+      }
+
+    }, "fetcher-cache-snapshot"));
+  }
+
+  /**
+   * Cached value with the epoch time in ms it was loaded.
+   */
+  final static class Entry<T> {
+
+    private final T value;
+    private final long loadTime;
+
+    Entry(final T value, final long loadTime) {
+      this.value = value;
+      this.loadTime = loadTime;
+    }
+
+  }
+
+  private final static class Registration<T> {
+
+    private final CachingFetcher<T> fetcher;
+    private final FetcherSerializer<T> serializer;
+
+    private Registration(final CachingFetcher<T> fetcher, final FetcherSerializer<T> serializer) {
+      this.fetcher = fetcher;
+      this.serializer = serializer;
+    }
+
+    /**
+     * @return the serialized cached value, or null if there is none or it
+     *         cannot be serialized
+     */
+    private Stored capture(final String name) {
+
+      final Entry<T> entry = this.fetcher.getSnapshotEntry();
+
+      if (entry == null) {
+        return null;
+      }
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      try {
+        this.serializer.serialize(entry.value, out);
+      }
+      catch (final IOException | RuntimeException e) {
+        return null; // the other values are still written
+      }
+
+      return new Stored(name, entry.loadTime, out.toByteArray());
+
+    }
+
+    private boolean restore(final Stored stored, final long maxAgeMs) {
+
+      if ((System.currentTimeMillis() - stored.loadTime) >= maxAgeMs) {
+        return false; // not worth deserializing
+      }
+
+      final T value;
+
+      try {
+        value = this.serializer.deserialize(new ByteArrayInputStream(stored.bytes));
+      }
+      catch (final IOException | RuntimeException e) {
+        return false; // e.g. the value class changed, fetched again instead
+      }
+
+      return (value != null) && this.fetcher.preload(value, stored.loadTime, maxAgeMs);
+
+    }
+
+  }
+
+  private final static class Stored {
+
+    private final String name;
+    private final long loadTime;
+    private final byte[] bytes;
+
+    private Stored(final String name, final long loadTime, final byte[] bytes) {
+      this.name = name;
+      this.loadTime = loadTime;
+      this.bytes = bytes;
+    }
+
+  }
+
+  /**
+   * Entry count, then name, load time, length and bytes of each value.
+   */
+  private final static class StoredSerializer implements FetcherSerializer<List<Stored>> {
+
+    @Override
+    public void serialize(final List<Stored> entries, final OutputStream out)
+        throws IOException {
+
+      final DataOutputStream dataOut = new DataOutputStream(out);
+
+      dataOut.writeInt(entries.size());
+
+      for (final Stored stored : entries) {
+        dataOut.writeUTF(stored.name);
+        dataOut.writeLong(stored.loadTime);
+        dataOut.writeInt(stored.bytes.length);
+        dataOut.write(stored.bytes);
+      }
+
+      dataOut.flush();
+
+    }
+
+    @Override
+    public List<Stored> deserialize(final InputStream in) throws IOException {
+
+      final DataInputStream dataIn = new DataInputStream(in);
+      final int size = dataIn.readInt();
+      final List<Stored> entries = new ArrayList<>(Math.min(size, 1024));
+
+      for (int i = 0; i < size; i++) {
+
+        final String name = dataIn.readUTF();
+        final long loadTime = dataIn.readLong();
+        final byte[] bytes = new byte[dataIn.readInt()];
+
+        dataIn.readFully(bytes);
+        entries.add(new Stored(name, loadTime, bytes));
+
+      }
+
+      return entries;
+
+    }
+
+  }
+
+}
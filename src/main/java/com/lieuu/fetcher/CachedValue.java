@@ -0,0 +1,89 @@
+package com.lieuu.fetcher;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+/**
+ * Holder of a cached value under a retention policy. get() returns null once
+ * the value has been released, whether by the garbage collector or by the
+ * memory budget.
+ */
+abstract class CachedValue<T> {
+
+  @SuppressWarnings("rawtypes")
+  private final static CachedValue EMPTY = new StrongCachedValue<>(null);
+
+  private final static class StrongCachedValue<T> extends CachedValue<T> {
+
+    private final T value;
+
+    private StrongCachedValue(final T value) {
+      this.value = value;
+    }
+
+    @Override
+    T get() {
+      return this.value;
+    }
+
+  }
+
+  private final static class SoftCachedValue<T> extends CachedValue<T> {
+
+    private final SoftReference<T> value;
+
+    private SoftCachedValue(final T value) {
+      this.value = new SoftReference<>(value);
+    }
+
+    @Override
+    T get() {
+      return this.value.get();
+    }
+
+  }
+
+  private final static class WeakCachedValue<T> extends CachedValue<T> {
+
+    private final WeakReference<T> value;
+
+    private WeakCachedValue(final T value) {
+      this.value = new WeakReference<>(value);
+    }
+
+    @Override
+    T get() {
+      return this.value.get();
+    }
+
+  }
+
+  abstract T get();
+
+  /**
+   * Called once the value has been replaced, so budgeted values give their
+   * bytes back.
+   */
+  void release() {
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> CachedValue<T> empty() {
+    return CachedValue.EMPTY;
+  }
+
+  static <T> CachedValueFactory<T> factory(final CacheRetention retention) {
+
+    switch (retention) {
+      case STRONG:
+        return StrongCachedValue::new;
+      case WEAK:
+        return WeakCachedValue::new;
+      case SOFT:
+      default:
+        return SoftCachedValue::new;
+    }
+
+  }
+
+}
@@ -0,0 +1,8 @@
+package com.lieuu.fetcher;
+
+@FunctionalInterface
+interface CachedValueFactory<T> {
+
+  public CachedValue<T> wrap(T value);
+
+}
@@ -4,6 +4,8 @@ import com.lieuu.fetcher.exception.FetcherException;
 import com.lieuu.fetcher.exception.FetcherNotReadyException;
 
 import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -13,36 +15,82 @@ class CachingFetcher<T> implements Fetcher<T> {
   private final ReadWriteLock exceptionLock;
 
   private final Fetcher<T> fetcher;
-  private SoftReference<T> prevObj;
+  private final CachedValueFactory<T> valueFactory;
+  private CachedValue<T> prevObj;
+  private long prevObjLoadTime;
+  private final FailureBackoff backoff;
+  private final AtomicBoolean probing;
+  private final AtomicLong originCalls;
   private SoftReference<FetcherException> prevException;
+  private int consecutiveFailures;
+  private long retryTime;
 
   public CachingFetcher(final Fetcher<T> fetcher) {
+    this(fetcher, CacheRetention.SOFT);
+  }
+
+  public CachingFetcher(final Fetcher<T> fetcher, final CacheRetention retention) {
+    this(fetcher, CachedValue.factory(retention));
+  }
+
+  public CachingFetcher(final Fetcher<T> fetcher, final CachedValueFactory<T> valueFactory) {
+    this(fetcher, valueFactory, FailureBackoff.NEVER);
+  }
+
+  public CachingFetcher(final Fetcher<T> fetcher, final FailureBackoff backoff) {
+    this(fetcher, CachedValue.factory(CacheRetention.SOFT), backoff);
+  }
+
+  /**
+   * @param fetcher
+   * @param valueFactory wraps each fetched value in the holder deciding how
+   *          long it is retained
+   * @param backoff how long a failure is cached before a single caller retries
+   *          the underlying fetcher
+   */
+  public CachingFetcher(final Fetcher<T> fetcher, final CachedValueFactory<T> valueFactory,
+    final FailureBackoff backoff) {
     this.objLock = new ReentrantReadWriteLock();
     this.exceptionLock = new ReentrantReadWriteLock();
     this.fetcher = fetcher;
-    this.prevObj = new SoftReference<>(null);
+    this.valueFactory = valueFactory;
+    this.prevObj = CachedValue.empty();
+    this.backoff = backoff;
+    this.probing = new AtomicBoolean(false);
+    this.originCalls = new AtomicLong();
     this.prevException = new SoftReference<>(null);
   }
 
   @Override
   public T fetch() throws FetcherException {
 
-    try {
+    final boolean probe;
 
-      this.exceptionLock.readLock().lock();
+    this.exceptionLock.readLock().lock();
 
-      try {
-        final FetcherException exceptionCurrent = this.prevException.get();
+    try {
 
-        if ((exceptionCurrent != null)
-            && !(exceptionCurrent.getCause() instanceof FetcherNotReadyException)) {
-          throw exceptionCurrent;
-        }
+      final FetcherException exceptionCurrent = this.prevException.get();
+
+      if ((exceptionCurrent == null)
+          || (exceptionCurrent.getCause() instanceof FetcherNotReadyException)) {
+        probe = false;
       }
-      finally {
-        this.exceptionLock.readLock().unlock();
+      else if ((System.currentTimeMillis() < this.retryTime)
+          || !this.probing.compareAndSet(false, true)) {
+        throw exceptionCurrent; // still backing off, or another caller is probing
+      }
+      else {
+        probe = true;
       }
 
+    }
+    finally {
+      this.exceptionLock.readLock().unlock();
+    }
+
+    try {
+
       this.objLock.readLock().lock();
 
       try {
@@ -56,41 +104,82 @@ class CachingFetcher<T> implements Fetcher<T> {
         this.objLock.readLock().unlock();
       }
 
+      this.originCalls.incrementAndGet();
+
       final T value = this.fetcher.fetch();
 
       if (value == null) {
         throw new FetcherException(new NullPointerException("Value from fetcher was null"));
       }
       else {
-        this.setPrevObj(value); // store the previously retrieved value
-        // for faster retrieval
+        this.setPrevObj(value, System.currentTimeMillis()); // store the previously
+        // retrieved value, and when it was loaded, for faster retrieval
+        this.clearFailures();
         return value;
       }
 
     }
     catch (final Exception e) {
+      throw this.setPrevException(e);
+    }
+    finally {
+      if (probe) {
+        this.probing.set(false);
+      }
+    }
 
-      this.setPrevException(e);
+  }
 
-      this.exceptionLock.readLock().lock();
+  /**
+   * Caches the failure and pushes the next retry back by the backoff of the
+   * current run of consecutive failures. Not-ready failures are cached but do
+   * not count, they are retried on the next call. Nothing is cached under
+   * FailureBackoff.NONE.
+   *
+   * @return the cached exception
+   */
+  private FetcherException setPrevException(final Throwable e) {
+
+    final FetcherException exception = new FetcherException(e);
+
+    if (this.backoff == FailureBackoff.NONE) {
+      return exception;
+    }
+
+    this.exceptionLock.writeLock().lock();
+
+    try {
+
+      this.prevException = new SoftReference<>(exception);
+
+      if (!(e instanceof FetcherNotReadyException)) {
+
+        this.consecutiveFailures++;
+
+        final long ttl = this.backoff.getTtlMillis(this.consecutiveFailures);
+        final long now = System.currentTimeMillis();
+
+        this.retryTime = (ttl > (Long.MAX_VALUE - now)) ? Long.MAX_VALUE : now + ttl;
 
-      try {
-        throw this.prevException.get();
-      }
-      finally {
-        this.exceptionLock.readLock().unlock();
       }
 
     }
+    finally {
+      this.exceptionLock.writeLock().unlock();
+    }
+
+    return exception;
 
   }
 
-  private void setPrevException(final Throwable e) {
+  private void clearFailures() {
 
     this.exceptionLock.writeLock().lock();
 
     try {
-      this.prevException = new SoftReference<>(new FetcherException(e));
+      this.prevException = new SoftReference<>(null);
+      this.consecutiveFailures = 0;
+      this.retryTime = 0;
     }
     finally {
       this.exceptionLock.writeLock().unlock();
@@ -98,25 +187,175 @@ class CachingFetcher<T> implements Fetcher<T> {
 
   }
 
-  private void setPrevObj(final T obj) {
+  private void setPrevObj(final T obj, final long loadTime) {
+
+    final CachedValue<T> replaced;
 
     this.objLock.writeLock().lock();
 
     try {
-      this.prevObj = new SoftReference<>(obj);
+      replaced = this.prevObj;
+      this.prevObj = (obj != null) ? this.valueFactory.wrap(obj) : CachedValue.empty();
+      this.prevObjLoadTime = loadTime;
     }
     finally {
       this.objLock.writeLock().unlock();
     }
 
+    replaced.release();
+
+  }
+
+  /**
+   * @return number of fetches that went past the cache to the underlying
+   *         fetcher, to tell cache hits and cached failures from origin calls
+   */
+  long getOriginCalls() {
+    return this.originCalls.get();
+  }
+
+  /**
+   * @return the cached failure while fetch() would rethrow it without calling
+   *         the underlying fetcher, or null if fetch() would call it
+   */
+  FetcherException getBackoffException() {
+
+    this.exceptionLock.readLock().lock();
+
+    try {
+
+      final FetcherException exceptionCurrent = this.prevException.get();
+
+      if ((exceptionCurrent == null)
+          || (exceptionCurrent.getCause() instanceof FetcherNotReadyException)) {
+        return null;
+      }
+
+      return ((System.currentTimeMillis() < this.retryTime) || this.probing.get())
+          ? exceptionCurrent : null;
+
+    }
+    finally {
+      this.exceptionLock.readLock().unlock();
+    }
+
+  }
+
+  /**
+   * @return the cached object, or null if nothing is cached or it was
+   *         collected
+   */
+  protected T getCachedObject() {
+
+    this.objLock.readLock().lock();
+
+    try {
+      return this.prevObj.get();
+    }
+    finally {
+      this.objLock.readLock().unlock();
+    }
+
+  }
+
+  /**
+   * @return the holder of the cached object, never null
+   */
+  protected CachedValue<T> getCachedValue() {
+
+    this.objLock.readLock().lock();
+
+    try {
+      return this.prevObj;
+    }
+    finally {
+      this.objLock.readLock().unlock();
+    }
+
+  }
+
+  /**
+   * Fetches a fresh value from the underlying fetcher and replaces the cached
+   * object with it. The previous value keeps being served until the new one is
+   * stored, and failures leave both the cached object and exception untouched.
+   *
+   * @return the refreshed value
+   * @throws FetcherException
+   */
+  protected T refreshCachedObject() throws FetcherException {
+
+    final T value = this.fetcher.fetch();
+
+    if (value == null) {
+      throw new FetcherException(new NullPointerException("Value from fetcher was null"));
+    }
+
+    this.setPrevObj(value, System.currentTimeMillis());
+
+    return value;
+
   }
 
   protected void clearCachedObject() {
-    this.setPrevObj(null);
+    this.setPrevObj(null, 0);
+  }
+
+  /**
+   * @return the cached object with the epoch time in ms it was loaded, or null
+   *         if nothing is cached
+   */
+  CacheSnapshot.Entry<T> getSnapshotEntry() {
+
+    this.objLock.readLock().lock();
+
+    try {
+
+      final T value = this.prevObj.get();
+
+      return (value != null) ? new CacheSnapshot.Entry<>(value, this.prevObjLoadTime) : null;
+
+    }
+    finally {
+      this.objLock.readLock().unlock();
+    }
+
+  }
+
+  /**
+   * Caches value as if it had been fetched at loadTime, unless a value is
+   * already cached or value is maxAgeMs old or older.
+   *
+   * @return true if value was cached
+   */
+  boolean preload(final T value, final long loadTime, final long maxAgeMs) {
+
+    if ((System.currentTimeMillis() - loadTime) >= maxAgeMs) {
+      return false; // too old to serve, fetched again instead
+    }
+
+    this.objLock.writeLock().lock();
+
+    try {
+
+      if (this.prevObj.get() != null) {
+        return false; // fetched meanwhile, fresher than the snapshot
+      }
+
+      this.prevObj.release();
+      this.prevObj = this.valueFactory.wrap(value);
+      this.prevObjLoadTime = loadTime;
+
+      return true;
+
+    }
+    finally {
+      this.objLock.writeLock().unlock();
+    }
+
   }
 
   protected void clearCachedException() {
-    this.setPrevException(null);
+    this.clearFailures();
   }
 
 }
@@ -0,0 +1,87 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherRejectedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * CompletableFuture bound to the executor task computing it. Cancelling it
+ * also cancels the task, so a running fetch is interrupted instead of running
+ * to completion with nobody waiting for the result.
+ */
+final class CancellableFuture<T> extends CompletableFuture<T> {
+
+  private final long createdNanos = System.nanoTime();
+  private volatile Future<?> task;
+
+  /**
+   * Returns the task completing this future with the value of fetcher, to be
+   * executed and then passed to setTask. If the task is cancelled before it
+   * runs, e.g. dropped by a discarding rejection policy, this future fails
+   * with a FetcherRejectedException instead of never completing.
+   *
+   * @return task of type RunnableFuture
+   */
+  RunnableFuture<Void> newTask(final Fetcher<T> fetcher) {
+    return new FutureTask<Void>(() -> {
+
+      try {
+        this.complete(fetcher.fetch());
+      }
+      catch (final Throwable e) {
+        this.completeExceptionally(e);
+      }
+
+    }, null) {
+
+      @Override
+      protected void done() {
+
+        if (this.isCancelled()) {
+          CancellableFuture.this.completeExceptionally(new FetcherRejectedException(
+            new RejectedExecutionException("Task discarded before it ran")));
+        }
+
+      }
+
+    };
+  }
+
+  void setTask(final Future<?> task) {
+
+    this.task = task;
+
+    if (this.isCancelled()) {
+      task.cancel(true); // cancelled before the task was handed over
+    }
+
+  }
+
+  /**
+   * Cancels this future and its task, interrupting the task if it is running.
+   *
+   * @return ns this future had been in flight, or -1 if it was already done
+   */
+  long cancelInFlight() {
+    return this.cancel(true) ? (System.nanoTime() - this.createdNanos) : -1;
+  }
+
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+
+    final boolean cancelled = super.cancel(mayInterruptIfRunning);
+    final Future<?> current = this.task;
+
+    if (cancelled && (current != null)) {
+      current.cancel(mayInterruptIfRunning);
+    }
+
+    return cancelled;
+
+  }
+
+}
@@ -0,0 +1,36 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts fetches cancelled after losing a race and how long they had been
+ * running when cancelled.
+ */
+final class CancellationCounter {
+
+  private final AtomicLong cancelledFetches = new AtomicLong();
+  private final AtomicLong cancelledNanos = new AtomicLong();
+
+  /**
+   * @param inFlightNanos as returned by a cancel call, negative if nothing was
+   *          cancelled
+   */
+  public void record(final long inFlightNanos) {
+
+    if (inFlightNanos >= 0) {
+      this.cancelledFetches.incrementAndGet();
+      this.cancelledNanos.addAndGet(inFlightNanos);
+    }
+
+  }
+
+  public long getCancelledFetches() {
+    return this.cancelledFetches.get();
+  }
+
+  public long getCancelledFetchMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(this.cancelledNanos.get());
+  }
+
+}
@@ -0,0 +1,22 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherCircuitState;
+
+public interface CircuitBreakerFetcher<T> extends Fetcher<T> {
+
+  /**
+   * @return current state of the circuit
+   */
+  public FetcherCircuitState getState();
+
+  /**
+   * @return share of failed calls in the sliding window, 0 until it is full
+   */
+  public double getFailureRate();
+
+  /**
+   * @return share of slow calls in the sliding window, 0 until it is full
+   */
+  public double getSlowCallRate();
+
+}
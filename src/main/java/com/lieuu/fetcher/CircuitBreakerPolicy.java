@@ -0,0 +1,93 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thresholds of a circuit breaker. Outcomes are kept in a sliding window of
+ * the last windowSize calls; once the window is full, the circuit opens when
+ * the share of failed calls reaches failureRateThreshold or the share of calls
+ * taking at least slowCallMs reaches slowCallRateThreshold. After openMs one
+ * trial call is let through.
+ */
+public final class CircuitBreakerPolicy {
+
+  private final int windowSize;
+  private final double failureRateThreshold;
+  private final long slowCallNanos;
+  private final double slowCallRateThreshold;
+  private final long openNanos;
+
+  /**
+   * Policy without slow-call detection.
+   *
+   * @param windowSize number of recent calls evaluated
+   * @param failureRateThreshold share of failed calls in (0, 1] opening the
+   *          circuit
+   * @param openMs time in ms the circuit stays open before a trial call
+   */
+  public CircuitBreakerPolicy(final int windowSize, final double failureRateThreshold,
+    final long openMs) {
+    this(windowSize, failureRateThreshold, Long.MAX_VALUE, 1, openMs);
+  }
+
+  /**
+   * @param windowSize number of recent calls evaluated
+   * @param failureRateThreshold share of failed calls in (0, 1] opening the
+   *          circuit
+   * @param slowCallMs time in ms from which a call counts as slow
+   * @param slowCallRateThreshold share of slow calls in (0, 1] opening the
+   *          circuit
+   * @param openMs time in ms the circuit stays open before a trial call
+   */
+  public CircuitBreakerPolicy(final int windowSize, final double failureRateThreshold,
+    final long slowCallMs, final double slowCallRateThreshold, final long openMs) {
+
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+    }
+
+    if (!(failureRateThreshold > 0) || (failureRateThreshold > 1)) {
+      throw new IllegalArgumentException(
+        "failureRateThreshold must be in (0, 1]: " + failureRateThreshold);
+    }
+
+    if (!(slowCallRateThreshold > 0) || (slowCallRateThreshold > 1)) {
+      throw new IllegalArgumentException(
+        "slowCallRateThreshold must be in (0, 1]: " + slowCallRateThreshold);
+    }
+
+    if ((slowCallMs < 0) || (openMs < 0)) {
+      throw new IllegalArgumentException(
+        "slowCallMs and openMs must not be negative: " + slowCallMs + ", " + openMs);
+    }
+
+    this.windowSize = windowSize;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallNanos = (slowCallMs == Long.MAX_VALUE) ? Long.MAX_VALUE
+        : TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+
+  }
+
+  final int getWindowSize() {
+    return this.windowSize;
+  }
+
+  final double getFailureRateThreshold() {
+    return this.failureRateThreshold;
+  }
+
+  final long getSlowCallNanos() {
+    return this.slowCallNanos;
+  }
+
+  final double getSlowCallRateThreshold() {
+    return this.slowCallRateThreshold;
+  }
+
+  final long getOpenNanos() {
+    return this.openNanos;
+  }
+
+}
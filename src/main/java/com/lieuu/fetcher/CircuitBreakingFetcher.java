@@ -0,0 +1,239 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherCircuitCallback;
+import com.lieuu.fetcher.exception.FetcherCircuitOpenException;
+import com.lieuu.fetcher.exception.FetcherCircuitState;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.source.Source;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Circuit breaker around a fetcher. While closed, the outcome of every call is
+ * recorded in a ring buffer of the last windowSize calls, with running counts
+ * of failed and slow calls. Once the window is full and either share reaches
+ * its threshold, the circuit opens and calls fail straight away without
+ * touching the fetcher. After the open time one trial call is let through:
+ * a fast success closes the circuit with an empty window, anything else opens
+ * it again.
+ */
+class CircuitBreakingFetcher<T> implements CircuitBreakerFetcher<T> {
+
+  private final static byte FAILED = 1;
+  private final static byte SLOW = 2;
+
+  private final static FetcherCircuitCallback DEFAULT_CIRCUIT_CALLBACK = (s, p, c) -> {
+  };
+
+  private final Fetcher<T> fetcher;
+  private final CircuitBreakerPolicy policy;
+  private final Source source;
+  private final FetcherCircuitCallback circuitCallback;
+
+  private final Object lock = new Object();
+  private final byte[] outcomes;
+  private int next;
+  private int calls;
+  private int failedCalls;
+  private int slowCalls;
+
+  private volatile FetcherCircuitState state;
+  private volatile long openedNanos;
+  private final AtomicBoolean trialInFlight;
+
+  public CircuitBreakingFetcher(final Fetcher<T> fetcher, final CircuitBreakerPolicy policy) {
+    this(fetcher, policy, Source.UNKNOWN, CircuitBreakingFetcher.DEFAULT_CIRCUIT_CALLBACK);
+  }
+
+  /**
+   * @param fetcher
+   * @param policy
+   * @param source rank reported to the callback
+   * @param circuitCallback notified after every state change
+   */
+  public CircuitBreakingFetcher(final Fetcher<T> fetcher, final CircuitBreakerPolicy policy,
+    final Source source, final FetcherCircuitCallback circuitCallback) {
+    this.fetcher = fetcher;
+    this.policy = policy;
+    this.source = source;
+    this.circuitCallback = circuitCallback;
+    this.outcomes = new byte[policy.getWindowSize()];
+    this.state = FetcherCircuitState.CLOSED;
+    this.trialInFlight = new AtomicBoolean(false);
+  }
+
+  @Override
+  public T fetch() throws FetcherException {
+
+    final boolean trial = this.acquirePermission();
+    final long startTime = System.nanoTime();
+
+    boolean failed = true;
+
+    try {
+
+      final T value = this.fetcher.fetch();
+
+      failed = false;
+
+      return value;
+
+    }
+    finally {
+      this.record(trial, failed, System.nanoTime() - startTime); // errors too, or a trial sticks
+    }
+
+  }
+
+  /**
+   * @return true if the call is the half-open trial
+   * @throws FetcherCircuitOpenException if the call is not permitted
+   */
+  private boolean acquirePermission() throws FetcherCircuitOpenException {
+
+    FetcherCircuitState current = this.state;
+
+    if (current == FetcherCircuitState.CLOSED) {
+      return false;
+    }
+
+    if ((current == FetcherCircuitState.OPEN)
+        && ((System.nanoTime() - this.openedNanos) >= this.policy.getOpenNanos())) {
+      current = this.transition(FetcherCircuitState.OPEN, FetcherCircuitState.HALF_OPEN);
+    }
+
+    if ((current == FetcherCircuitState.HALF_OPEN)
+        && this.trialInFlight.compareAndSet(false, true)) {
+      return true;
+    }
+
+    if (current == FetcherCircuitState.CLOSED) {
+      return false; // closed by a trial in between
+    }
+
+    throw new FetcherCircuitOpenException("Circuit of source " + this.source.getRank() + " is "
+        + current);
+
+  }
+
+  private void record(final boolean trial, final boolean failed, final long durationNanos) {
+
+    final boolean slow = durationNanos >= this.policy.getSlowCallNanos();
+
+    if (trial) {
+
+      this.transition(FetcherCircuitState.HALF_OPEN,
+        (failed || slow) ? FetcherCircuitState.OPEN : FetcherCircuitState.CLOSED);
+      this.trialInFlight.set(false);
+
+      return;
+
+    }
+
+    final boolean trip;
+
+    synchronized (this.lock) {
+
+      if (this.state != FetcherCircuitState.CLOSED) {
+        return; // started before the circuit opened
+      }
+
+      final byte outcome = (byte) ((failed ? CircuitBreakingFetcher.FAILED : 0)
+          | (slow ? CircuitBreakingFetcher.SLOW : 0));
+
+      if (this.calls == this.outcomes.length) {
+        this.count(this.outcomes[this.next], -1); // slide out the oldest call
+      }
+      else {
+        this.calls++;
+      }
+
+      this.outcomes[this.next] = outcome;
+      this.next = (this.next + 1) % this.outcomes.length;
+      this.count(outcome, 1);
+
+      trip = (this.calls == this.outcomes.length)
+          && ((this.getFailureRate() >= this.policy.getFailureRateThreshold())
+              || (this.getSlowCallRate() >= this.policy.getSlowCallRateThreshold()));
+
+    }
+
+    if (trip) {
+      this.transition(FetcherCircuitState.CLOSED, FetcherCircuitState.OPEN);
+    }
+
+  }
+
+  private void count(final byte outcome, final int delta) {
+
+    if ((outcome & CircuitBreakingFetcher.FAILED) != 0) {
+      this.failedCalls += delta;
+    }
+
+    if ((outcome & CircuitBreakingFetcher.SLOW) != 0) {
+      this.slowCalls += delta;
+    }
+
+  }
+
+  /**
+   * Moves the circuit from expected to target, resetting the window when it
+   * closes, and notifies the callback outside the lock.
+   *
+   * @return the state after the attempt
+   */
+  private FetcherCircuitState transition(final FetcherCircuitState expected,
+    final FetcherCircuitState target) {
+
+    synchronized (this.lock) {
+
+      if (this.state != expected) {
+        return this.state; // another caller got there first
+      }
+
+      if (target == FetcherCircuitState.OPEN) {
+        this.openedNanos = System.nanoTime();
+      }
+      else if (target == FetcherCircuitState.CLOSED) {
+        this.next = 0;
+        this.calls = 0;
+        this.failedCalls = 0;
+        this.slowCalls = 0;
+      }
+
+      this.state = target;
+
+    }
+
+    this.circuitCallback.onStateChange(this.source, expected, target);
+
+    return target;
+
+  }
+
+  @Override
+  public FetcherCircuitState getState() {
+    return this.state;
+  }
+
+  @Override
+  public double getFailureRate() {
+
+    synchronized (this.lock) {
+      return (this.calls < this.outcomes.length) ? 0
+          : (double) this.failedCalls / this.outcomes.length;
+    }
+
+  }
+
+  @Override
+  public double getSlowCallRate() {
+
+    synchronized (this.lock) {
+      return (this.calls < this.outcomes.length) ? 0
+          : (double) this.slowCalls / this.outcomes.length;
+    }
+
+  }
+
+}
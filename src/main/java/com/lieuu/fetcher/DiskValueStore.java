@@ -0,0 +1,132 @@
+package com.lieuu.fetcher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A single value kept in a file, with the time it was written. Writes go to a
+ * temporary file in the same directory that is synced and then moved over the
+ * previous one, so a crash leaves either the old or the new value, never a
+ * torn one. A file that cannot be read back, e.g. written by an incompatible
+ * version, is deleted and reported as absent.
+ */
+final class DiskValueStore<T> {
+
+  private final static int MAGIC = 0x4c465631; // "LFV1"
+
+  private final Path file;
+  private final FetcherSerializer<T> serializer;
+
+  DiskValueStore(final Path file, final FetcherSerializer<T> serializer) {
+    this.file = file;
+    this.serializer = serializer;
+  }
+
+  /**
+   * @return the stored value, or null if there is none or it is unreadable
+   */
+  Stored<T> read() {
+
+    try (final InputStream in = new BufferedInputStream(Files.newInputStream(this.file))) {
+
+      final DataInputStream dataIn = new DataInputStream(in);
+
+      if (dataIn.readInt() != DiskValueStore.MAGIC) {
+        throw new IOException("Not a stored value: " + this.file);
+      }
+
+      final long writtenMillis = dataIn.readLong();
+
+      return new Stored<>(this.serializer.deserialize(dataIn), writtenMillis);
+
+    }
+    catch (final NoSuchFileException e) {
+      return null;
+    }
+    catch (final IOException | RuntimeException e) {
+      this.delete();
+      return null;
+    }
+
+  }
+
+  void write(final T value, final long writtenMillis) throws IOException {
+
+    final Path directory = this.file.toAbsolutePath().getParent();
+
+    Files.createDirectories(directory);
+
+    final Path temporary = Files.createTempFile(directory, this.file.getFileName().toString(),
+      ".tmp");
+
+    try {
+
+      try (final FileOutputStream fileOut = new FileOutputStream(temporary.toFile())) {
+
+        final DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(fileOut));
+
+        dataOut.writeInt(DiskValueStore.MAGIC);
+        dataOut.writeLong(writtenMillis);
+        this.serializer.serialize(value, dataOut);
+        dataOut.flush();
+        fileOut.getFD().sync(); // durable before it replaces the previous value
+
+      }
+
+      try {
+        Files.move(temporary, this.file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+    }
+    finally {
+      Files.deleteIfExists(temporary); // only left over if the write failed
+    }
+
+  }
+
+  void delete() {
+
+    try {
+      Files.deleteIfExists(this.file);
+    }
+    catch (final IOException e) {
+      // read again, and deleted again, on the next attempt
+    }
+
+  }
+
+  final static class Stored<T> {
+
+    private final T value;
+    private final long writtenMillis;
+
+    private Stored(final T value, final long writtenMillis) {
+      this.value = value;
+      this.writtenMillis = writtenMillis;
+    }
+
+    T getValue() {
+      return this.value;
+    }
+
+    long getWrittenMillis() {
+      return this.writtenMillis;
+    }
+
+  }
+
+}
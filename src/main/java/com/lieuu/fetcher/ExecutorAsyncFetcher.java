@@ -0,0 +1,45 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RunnableFuture;
+
+/**
+ * Adapts a blocking Fetcher to an AsyncFetcher by running it on an executor.
+ * Cancelling the returned stage's future interrupts the running fetch.
+ */
+class ExecutorAsyncFetcher<T> implements AsyncFetcher<T> {
+
+  private final Fetcher<T> fetcher;
+  private final Fetcher<ExecutorService> executorServiceFetcher;
+
+  public ExecutorAsyncFetcher(final Fetcher<T> fetcher,
+    final Fetcher<ExecutorService> executorServiceFetcher) {
+    this.fetcher = fetcher;
+    this.executorServiceFetcher = executorServiceFetcher;
+  }
+
+  @Override
+  public CompletionStage<T> fetchAsync() {
+
+    final CancellableFuture<T> future = new CancellableFuture<>();
+
+    try {
+
+      final RunnableFuture<Void> task = future.newTask(this.fetcher);
+
+      future.setTask(task);
+      this.executorServiceFetcher.fetch().execute(task);
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+      future.completeExceptionally(ExecutorServices.submitException(e));
+    }
+
+    return future;
+
+  }
+
+}
@@ -6,7 +6,7 @@ import java.util.concurrent.Executors;
 class ExecutorServiceCachingFetcher extends CachingFetcher<ExecutorService> {
 
   public ExecutorServiceCachingFetcher() {
-    super(() -> Executors.newCachedThreadPool());
+    super(() -> Executors.newCachedThreadPool(), CacheRetention.STRONG);
   }
 
 }
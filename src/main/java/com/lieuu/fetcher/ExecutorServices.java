@@ -0,0 +1,90 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherRejectedException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor factories shared by the executor service fetchers. Virtual threads
+ * are looked up reflectively so the library keeps targeting Java 8 while still
+ * handing out a virtual-thread-per-task executor on JDK 21 and later.
+ */
+final class ExecutorServices {
+
+  private final static String EXECUTOR_PROPERTY = "com.lieuu.fetcher.executor";
+  private final static String EXECUTOR_VIRTUAL = "virtual";
+
+  private final static Method VIRTUAL_THREAD_FACTORY = ExecutorServices.findVirtualThreadFactory();
+
+  private ExecutorServices() {
+  }
+
+  private static Method findVirtualThreadFactory() {
+
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    }
+    catch (final NoSuchMethodException | SecurityException e) {
+      return null; // pre-21 JDK
+    }
+
+  }
+
+  static boolean isVirtualThreadSupported() {
+    return ExecutorServices.VIRTUAL_THREAD_FACTORY != null;
+  }
+
+  /**
+   * @return true if the shared executor should use virtual threads, set with
+   *         -Dcom.lieuu.fetcher.executor=virtual
+   */
+  static boolean isVirtualThreadRequested() {
+    return ExecutorServices.EXECUTOR_VIRTUAL.equalsIgnoreCase(
+      System.getProperty(ExecutorServices.EXECUTOR_PROPERTY));
+  }
+
+  static ExecutorService newVirtualThreadPerTaskExecutor() throws FetcherException {
+
+    if (!ExecutorServices.isVirtualThreadSupported()) {
+      throw new FetcherException(new UnsupportedOperationException(
+        "Virtual threads require JDK 21 or later, running on "
+            + System.getProperty("java.version")));
+    }
+
+    try {
+      return (ExecutorService) ExecutorServices.VIRTUAL_THREAD_FACTORY.invoke(null);
+    }
+    catch (final IllegalAccessException | InvocationTargetException e) {
+      throw new FetcherException(e);
+    }
+
+  }
+
+  /**
+   * Maps a failure to fetch an executor or submit to it onto the matching
+   * FetcherException, so saturated bounded executors surface as a
+   * FetcherRejectedException.
+   *
+   * @param e exception thrown while submitting
+   * @return FetcherException to rethrow
+   */
+  static FetcherException submitException(final Exception e) {
+
+    if (e instanceof FetcherException) {
+      return (FetcherException) e;
+    }
+
+    if (e instanceof RejectedExecutionException) {
+      return new FetcherRejectedException((RejectedExecutionException) e);
+    }
+
+    return new FetcherException(e);
+
+  }
+
+}
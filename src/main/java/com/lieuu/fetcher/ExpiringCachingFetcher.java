@@ -2,34 +2,244 @@ package com.lieuu.fetcher;
 
 import com.lieuu.fetcher.exception.FetcherException;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Expiring caching fetcher. The cached value and its load time are published
+ * together as an immutable snapshot through a single volatile field, so cache
+ * hits are lock-free reads. Only misses and expiries take the lock, and only
+ * the first thread in reloads; the threads queued behind it pick up the new
+ * snapshot.
+ */
 class ExpiringCachingFetcher<T> extends CachingFetcher<T> {
 
+  private final static class Snapshot<T> {
+
+    private final CachedValue<T> value;
+    private final long loadTime;
+
+    private Snapshot(final CachedValue<T> value, final long loadTime) {
+      this.value = value;
+      this.loadTime = loadTime;
+    }
+
+  }
+
   private final Object lock = new Object();
 
-  private volatile long lastClearTime;
+  private final long creationTime;
+  private volatile Snapshot<T> snapshot;
   private final double maxCacheTime;
 
+  private final double maxStaleTime;
+  private final Fetcher<ExecutorService> executorServiceFetcher;
+  private final AtomicBoolean refreshing;
+
   public ExpiringCachingFetcher(final Fetcher<T> fetcher, final int maxCacheTime) {
     this(fetcher, (double) maxCacheTime);
   }
 
   public ExpiringCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime) {
-    super(fetcher);
-    this.lastClearTime = System.currentTimeMillis();
+    this(fetcher, maxCacheTime, maxCacheTime, null);
+  }
+
+  /**
+   * Stale-while-revalidate variant: once maxCacheTime has elapsed the cached
+   * value keeps being served while a single background refresh runs on the
+   * executor. Once maxStaleTime has elapsed without a successful refresh,
+   * callers block on an inline fetch as they would without this option.
+   *
+   * @param fetcher
+   * @param maxCacheTime time in ms after which the value is refreshed
+   * @param maxStaleTime time in ms after which a stale value is never served
+   * @param executorServiceFetcher executor running background refreshes
+   */
+  public ExpiringCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime,
+    final double maxStaleTime, final Fetcher<ExecutorService> executorServiceFetcher) {
+    this(fetcher, maxCacheTime, maxStaleTime, executorServiceFetcher,
+      CachedValue.factory(CacheRetention.SOFT));
+  }
+
+  public ExpiringCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime,
+    final CachedValueFactory<T> valueFactory) {
+    this(fetcher, maxCacheTime, maxCacheTime, null, valueFactory);
+  }
+
+  public ExpiringCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime,
+    final double maxStaleTime, final Fetcher<ExecutorService> executorServiceFetcher,
+    final CachedValueFactory<T> valueFactory) {
+    this(fetcher, maxCacheTime, maxStaleTime, executorServiceFetcher, valueFactory,
+      FailureBackoff.NEVER);
+  }
+
+  public ExpiringCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime,
+    final FailureBackoff backoff) {
+    this(fetcher, maxCacheTime, maxCacheTime, null, CachedValue.factory(CacheRetention.SOFT),
+      backoff);
+  }
+
+  public ExpiringCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime,
+    final double maxStaleTime, final Fetcher<ExecutorService> executorServiceFetcher,
+    final CachedValueFactory<T> valueFactory, final FailureBackoff backoff) {
+    super(fetcher, valueFactory, backoff);
+    this.creationTime = System.currentTimeMillis();
     this.maxCacheTime = maxCacheTime;
+    this.maxStaleTime = Math.max(maxCacheTime, maxStaleTime);
+    this.executorServiceFetcher = executorServiceFetcher;
+    this.refreshing = new AtomicBoolean(false);
   }
 
   @Override
   public T fetch() throws FetcherException {
 
+    final Snapshot<T> current = this.snapshot;
+
+    if (current != null) {
+
+      final T value = current.value.get();
+
+      if (value != null) {
+
+        final long age = System.currentTimeMillis() - current.loadTime;
+
+        if (age < this.maxCacheTime) {
+          return value; // lock-free hit
+        }
+
+        if (age < this.maxStaleTime) {
+          this.refreshInBackground();
+          return value;
+        }
+
+      }
+
+    }
+
+    return this.reload();
+
+  }
+
+  private T reload() throws FetcherException {
+
+    synchronized (this.lock) {
+
+      final Snapshot<T> current = this.snapshot;
+
+      if (current != null) {
+
+        final T value = current.value.get();
+
+        if ((value != null)
+            && ((System.currentTimeMillis() - current.loadTime) < this.maxCacheTime)) {
+          return value; // reloaded by the thread ahead of us
+        }
+
+      }
+
+      final long loadTime = System.currentTimeMillis();
+
+      this.clearCachedObject();
+
+      final T value = super.fetch();
+
+      this.snapshot = new Snapshot<>(this.getCachedValue(), loadTime);
+
+      return value;
+
+    }
+
+  }
+
+  /**
+   * Replaces the cached value with a fresh one without clearing it first, so
+   * readers keep getting the previous value until the new one is stored. The
+   * expiry clock restarts from the time the refresh began.
+   *
+   * @throws FetcherException if the underlying fetch failed, the cached value
+   *           is left untouched
+   */
+  protected void refresh() throws FetcherException {
+
+    final long startTime = System.currentTimeMillis();
+
+    this.refreshCachedObject();
+
+    this.snapshot = new Snapshot<>(this.getCachedValue(), startTime);
+
+  }
+
+  /**
+   * @return epoch time in ms the current value was loaded, or the creation time
+   *         if nothing has been loaded yet
+   */
+  protected long getLastClearTime() {
+
+    final Snapshot<T> current = this.snapshot;
+
+    return (current != null) ? current.loadTime : this.creationTime;
+
+  }
+
+  private void refreshInBackground() {
+
+    if (!this.refreshing.compareAndSet(false, true)) {
+      return; // a refresh is already running
+    }
+
+    try {
+
+      this.executorServiceFetcher.fetch().execute(() -> {
+
+        try {
+          this.refresh();
+        }
+        catch (final FetcherException | RuntimeException e) {
+          // keep serving the stale value, the next caller retries
+        }
+        finally {
+          this.refreshing.set(false);
+        }
+
+      });
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+      this.refreshing.set(false); // executor unavailable, retry on the next call
+    }
+
+  }
+
+  @Override
+  CacheSnapshot.Entry<T> getSnapshotEntry() {
+
+    final Snapshot<T> current = this.snapshot;
+    final T value = (current != null) ? current.value.get() : null;
+
+    return (value != null) ? new CacheSnapshot.Entry<>(value, current.loadTime) : null;
+
+  }
+
+  /**
+   * Keeps the original load time, so a preloaded value expires when it would
+   * have without the restart. A value already past maxStaleTime is dropped.
+   */
+  @Override
+  boolean preload(final T value, final long loadTime, final long maxAgeMs) {
+
+    if ((System.currentTimeMillis() - loadTime) >= this.maxStaleTime) {
+      return false;
+    }
+
     synchronized (this.lock) {
 
-      if ((System.currentTimeMillis() - this.lastClearTime) >= this.maxCacheTime) {
-        this.clearCachedObject();
-        this.lastClearTime = System.currentTimeMillis();
+      if ((this.snapshot != null) || !super.preload(value, loadTime, maxAgeMs)) {
+        return false;
       }
 
-      return super.fetch();
+      this.snapshot = new Snapshot<>(this.getCachedValue(), loadTime);
+
+      return true;
 
     }
 
@@ -30,6 +30,20 @@ class ExpiringMultiConcurrentFetcher<T> extends BlockingMultiConcurrentFetcher<T
     this.lastClearTime = System.currentTimeMillis();
   }
 
+  public ExpiringMultiConcurrentFetcher(final double maxCacheTimeMs, final boolean cancelLosers,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    super(true, cancelLosers, fetchers);
+    this.maxCacheTimeMs = maxCacheTimeMs;
+    this.lastClearTime = System.currentTimeMillis();
+  }
+
+  public ExpiringMultiConcurrentFetcher(final double maxCacheTimeMs, final HedgePolicy hedgePolicy,
+    final List<NonBlockingConcurrentFetcher<T>> fetchers) {
+    super(hedgePolicy, fetchers);
+    this.maxCacheTimeMs = maxCacheTimeMs;
+    this.lastClearTime = System.currentTimeMillis();
+  }
+
   @Override
   public final synchronized FetcherResponse<T> fetch() throws FetcherException {
 
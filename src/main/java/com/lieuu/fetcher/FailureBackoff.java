@@ -0,0 +1,64 @@
+package com.lieuu.fetcher;
+
+/**
+ * Negative caching policy: how long a caching fetcher keeps throwing a cached
+ * failure before letting one caller retry. The first failure is cached for
+ * the initial TTL, and the TTL doubles with each consecutive failure up to
+ * the maximum. A success resets it.
+ */
+final class FailureBackoff {
+
+  /**
+   * Caches failures until the exception is cleared or collected, the original
+   * CachingFetcher behaviour.
+   */
+  final static FailureBackoff NEVER = new FailureBackoff(Long.MAX_VALUE, Long.MAX_VALUE);
+
+  /**
+   * Does not remember failures at all: every call, including concurrent ones,
+   * reaches the underlying fetcher, for stages that decide themselves when a
+   * failing fetcher is called again.
+   */
+  final static FailureBackoff NONE = new FailureBackoff(0, 0);
+
+  private final long initialTtlMs;
+  private final long maxTtlMs;
+
+  /**
+   * @param initialTtlMs time in ms the first failure is cached, 0 retries on
+   *          every call
+   * @param maxTtlMs upper bound in ms of the doubled TTL
+   */
+  FailureBackoff(final long initialTtlMs, final long maxTtlMs) {
+
+    if (initialTtlMs < 0) {
+      throw new IllegalArgumentException("initialTtlMs must not be negative: " + initialTtlMs);
+    }
+
+    if (maxTtlMs < initialTtlMs) {
+      throw new IllegalArgumentException(
+        "maxTtlMs must be at least initialTtlMs: " + maxTtlMs + " < " + initialTtlMs);
+    }
+
+    this.initialTtlMs = initialTtlMs;
+    this.maxTtlMs = maxTtlMs;
+
+  }
+
+  /**
+   * @param consecutiveFailures failures in a row, including the latest
+   * @return time in ms the latest failure is cached
+   */
+  long getTtlMillis(final int consecutiveFailures) {
+
+    final int doublings = Math.min(Math.max(consecutiveFailures - 1, 0), 62);
+
+    if (this.initialTtlMs > (this.maxTtlMs >> doublings)) {
+      return this.maxTtlMs;
+    }
+
+    return this.initialTtlMs << doublings;
+
+  }
+
+}
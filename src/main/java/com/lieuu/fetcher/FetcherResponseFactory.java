@@ -7,24 +7,75 @@ package com.lieuu.fetcher;
 import com.lieuu.fetcher.response.FetcherResponse;
 import com.lieuu.fetcher.response.source.Source;
 
+/**
+ * Creates fetcher responses. An instance keeps the last response of each
+ * source and hands it out again while the source keeps returning the same
+ * value, so multi fetchers over caching fetchers stop allocating a response
+ * per fetch. The cache is written without locking; responses are immutable,
+ * so a racing caller at worst builds one response more than needed.
+ */
 class FetcherResponseFactory<S> {
 
-  protected static <S> FetcherResponse<S> getFetcherResponse(final int rankFinal, final S value) {
+  private final static class ImmutableFetcherResponse<S> implements FetcherResponse<S> {
+
+    private final Source source;
+    private final S value;
+
+    private ImmutableFetcherResponse(final Source source, final S value) {
+      this.source = source;
+      this.value = value;
+    }
 
-    return new FetcherResponse<S>() {
+    @Override
+    public Source source() {
+      return this.source;
+    }
 
-      @Override
-      public Source source() {
-        return Source.valueOf(rankFinal);
-      }
+    @Override
+    public S value() {
+      return this.value;
+    }
+
+  }
+
+  private final FetcherResponse<S>[] responses;
+
+  /**
+   * @param size number of sources, responses for higher ranks are not cached
+   */
+  @SuppressWarnings("unchecked")
+  public FetcherResponseFactory(final int size) {
+    this.responses = new FetcherResponse[size];
+  }
 
-      @Override
-      public S value() {
-        return value;
-      }
+  /**
+   * @return the cached response of the source at rank if it still holds value,
+   *         otherwise a new response, which replaces it
+   */
+  protected FetcherResponse<S> getCachedFetcherResponse(final int rank, final S value) {
 
-    };
+    final int index = rank - 1;
 
+    if ((index < 0) || (index >= this.responses.length)) {
+      return FetcherResponseFactory.getFetcherResponse(rank, value);
+    }
+
+    final FetcherResponse<S> cached = this.responses[index];
+
+    if ((cached != null) && (cached.value() == value)) {
+      return cached;
+    }
+
+    final FetcherResponse<S> response = FetcherResponseFactory.getFetcherResponse(rank, value);
+
+    this.responses[index] = response;
+
+    return response;
+
+  }
+
+  protected static <S> FetcherResponse<S> getFetcherResponse(final int rankFinal, final S value) {
+    return new ImmutableFetcherResponse<>(Source.valueOf(rankFinal), value);
   }
 
 }
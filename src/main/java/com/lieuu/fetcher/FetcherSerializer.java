@@ -0,0 +1,32 @@
+package com.lieuu.fetcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts the values of a persistent fetcher to and from the bytes kept on
+ * disk.
+ */
+public interface FetcherSerializer<T> {
+
+  /**
+   * Writes value to out, which is buffered and closed by the caller.
+   *
+   * @param value
+   * @param out
+   * @throws IOException
+   */
+  public void serialize(final T value, final OutputStream out) throws IOException;
+
+  /**
+   * Reads back a value written by serialize. Any exception marks the stored
+   * value as unreadable, so it is discarded and fetched again.
+   *
+   * @param in
+   * @return value read
+   * @throws IOException
+   */
+  public T deserialize(final InputStream in) throws IOException;
+
+}
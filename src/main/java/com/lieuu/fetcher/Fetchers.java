@@ -1,14 +1,30 @@
 package com.lieuu.fetcher;
 
+import com.lieuu.fetcher.exception.FetcherCircuitCallback;
 import com.lieuu.fetcher.exception.FetcherErrorCallback;
+import com.lieuu.fetcher.response.source.Source;
 
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 public final class Fetchers {
 
-  private final static Fetcher<ExecutorService> EXECUTOR_SERVICE_FETCHER = new ExecutorServiceCachingFetcher();
+  private final static Fetcher<ExecutorService> VIRTUAL_THREAD_EXECUTOR_SERVICE_FETCHER = new VirtualThreadExecutorServiceCachingFetcher();
+  private final static Fetcher<ExecutorService> EXECUTOR_SERVICE_FETCHER = (ExecutorServices.isVirtualThreadRequested()
+      && ExecutorServices.isVirtualThreadSupported())
+          ? Fetchers.VIRTUAL_THREAD_EXECUTOR_SERVICE_FETCHER : new ExecutorServiceCachingFetcher();
+  private final static Fetcher<ScheduledExecutorService> SCHEDULED_EXECUTOR_SERVICE_FETCHER = new ScheduledExecutorServiceCachingFetcher();
 
   @SafeVarargs
   public final static <T> Fetcher<T> getMultiConcurrentFetcher(final Fetcher<T>... fetchers) {
@@ -40,6 +56,36 @@ public final class Fetchers {
 
   }
 
+  @SafeVarargs
+  public final static <T> Fetcher<T> getCompletionMultiConcurrentFetcher(
+    final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(
+      MultiFetchers.getCompletionMultiConcurrentFetcher(fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getCompletionMultiConcurrentFetcher(final int maxTimeMs,
+    final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(
+        new NonBlockingConcurrentFetcher<>(fetcher, Fetchers.getExecutorServiceFetcher()));
+    }
+
+    return new MultiFetcherValueWrapper<>(
+      new BlockingMultiConcurrentFetcher<>(maxTimeMs, true, fetchersWrapped));
+
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getHedgedMultiConcurrentFetcher(
+    final double hedgePercentile, final long initialHedgeDelayMs, final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(MultiFetchers
+        .getHedgedMultiConcurrentFetcher(hedgePercentile, initialHedgeDelayMs, fetchers));
+  }
+
   @SafeVarargs
   public final static <T> Fetcher<T> getExpiringMultiConcurrentFetcher(
     final Fetcher<ExecutorService> executorServiceFetcher, final long maxTimeMs,
@@ -90,6 +136,85 @@ public final class Fetchers {
 
   }
 
+  /**
+   * Waterfall whose sources cache failures with exponential backoff, see
+   * getFailureBackoffCachingFetcher, so a failed source is re-probed instead
+   * of being skipped for good.
+   */
+  @SafeVarargs
+  public final static <T> Fetcher<T> getFailureBackoffWaterfallFetcher(
+    final FetcherErrorCallback callback, final long failureTtlMs, final long maxFailureTtlMs,
+    final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(MultiFetchers.getFailureBackoffWaterfallFetcher(
+      callback, failureTtlMs, maxFailureTtlMs, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getAdaptiveWaterfallFetcher(
+    final FetcherErrorCallback callback, final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(
+      MultiFetchers.getAdaptiveWaterfallFetcher(callback, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getAdaptiveExpiringWaterfallFetcher(
+    final FetcherErrorCallback callback, final int maxCacheTime, final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(
+      MultiFetchers.getAdaptiveExpiringWaterfallFetcher(callback, maxCacheTime, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getPrefetchingWaterfallFetcher(
+    final FetcherErrorCallback callback, final int prefetchDepth, final long maxTimeMs,
+    final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(
+      MultiFetchers.getPrefetchingWaterfallFetcher(callback, prefetchDepth, maxTimeMs, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getPersistentWaterfallFetcher(
+    final FetcherErrorCallback callback, final Path directory,
+    final FetcherSerializer<T> serializer, final long maxAgeMs, final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(MultiFetchers.getPersistentWaterfallFetcher(callback,
+      directory, serializer, maxAgeMs, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getPersistentExpiringWaterfallFetcher(
+    final FetcherErrorCallback callback, final Path directory,
+    final FetcherSerializer<T> serializer, final int maxCacheTime, final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(MultiFetchers.getPersistentExpiringWaterfallFetcher(
+      callback, directory, serializer, maxCacheTime, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <T> Fetcher<T> getCircuitBreakingWaterfallFetcher(
+    final FetcherErrorCallback callback, final FetcherCircuitCallback circuitCallback,
+    final CircuitBreakerPolicy policy, final Fetcher<T>... fetchers) {
+    return new MultiFetcherValueWrapper<>(MultiFetchers
+        .getCircuitBreakingWaterfallFetcher(callback, circuitCallback, policy, fetchers));
+  }
+
+  /**
+   * Wraps fetcher in a circuit breaker. While the circuit is open, fetch()
+   * throws a FetcherCircuitOpenException without calling fetcher.
+   *
+   * @param fetcher
+   * @param policy window and thresholds of the breaker
+   * @param circuitCallback notified of state changes, with an UNKNOWN source
+   * @return circuit breaker fetcher
+   */
+  public final static <T> CircuitBreakerFetcher<T> getCircuitBreakerFetcher(
+    final Fetcher<T> fetcher, final CircuitBreakerPolicy policy,
+    final FetcherCircuitCallback circuitCallback) {
+    return new CircuitBreakingFetcher<>(fetcher, policy, Source.UNKNOWN, circuitCallback);
+  }
+
+  public final static <T> CircuitBreakerFetcher<T> getCircuitBreakerFetcher(
+    final Fetcher<T> fetcher, final CircuitBreakerPolicy policy) {
+    return new CircuitBreakingFetcher<>(fetcher, policy);
+  }
+
   public final static <T> Fetcher<T> getBlockingConcurrentFetcher(
     final Fetcher<ExecutorService> executorServiceFetcher, final Fetcher<T> fetcher) {
     return new BlockingConcurrentFetcher<>(fetcher, executorServiceFetcher);
@@ -112,15 +237,235 @@ public final class Fetchers {
     return new CachingFetcher<>(fetcher);
   }
 
+  public final static <T> Fetcher<T> getRetentionCachingFetcher(final Fetcher<T> fetcher,
+    final CacheRetention retention) {
+    return new CachingFetcher<>(fetcher, retention);
+  }
+
+  /**
+   * Returns a caching fetcher that caches failures for failureTtlMs, doubling
+   * with each consecutive failure up to maxFailureTtlMs. Once the TTL has
+   * passed a single caller retries the underlying fetcher while the others
+   * keep getting the cached failure.
+   *
+   * @param fetcher
+   * @param failureTtlMs time in ms the first failure is cached
+   * @param maxFailureTtlMs maximum time in ms a failure is cached
+   * @return caching fetcher with negative caching
+   */
+  public final static <T> Fetcher<T> getFailureBackoffCachingFetcher(final Fetcher<T> fetcher,
+    final long failureTtlMs, final long maxFailureTtlMs) {
+    return new CachingFetcher<>(fetcher, new FailureBackoff(failureTtlMs, maxFailureTtlMs));
+  }
+
+  /**
+   * Returns a caching fetcher whose value counts against the cache memory
+   * budget shared by all memory-budgeted fetchers. When the budget is
+   * exceeded, the least recently read values are released and fetched again
+   * on their next use.
+   *
+   * @param fetcher
+   * @param sizer estimated size in bytes of a fetched value
+   * @return memory-budgeted caching fetcher
+   */
+  public final static <T> Fetcher<T> getMemoryBudgetedCachingFetcher(final Fetcher<T> fetcher,
+    final ToLongFunction<? super T> sizer) {
+    return new CachingFetcher<>(fetcher, MemoryBudget.GLOBAL.factory(sizer));
+  }
+
+  /**
+   * Returns a fetcher keeping the last value of fetcher in file, to be slotted
+   * into a waterfall or wrapped in a caching fetcher: its first fetch returns
+   * the stored value if younger than maxAgeMs, so a restarted process starts
+   * warm, and later fetches call fetcher and store the result.
+   *
+   * @param fetcher
+   * @param file where the value is kept, written atomically
+   * @param serializer e.g. Fetchers.getJavaSerializer()
+   * @param maxAgeMs maximum age in ms of a stored value, Long.MAX_VALUE for no
+   *          limit
+   * @return persistent fetcher
+   */
+  public final static <T> Fetcher<T> getPersistentFetcher(final Fetcher<T> fetcher,
+    final Path file, final FetcherSerializer<T> serializer, final long maxAgeMs) {
+    return new PersistentFetcher<>(fetcher, file, serializer, maxAgeMs);
+  }
+
+  /**
+   * Caching fetcher whose value survives restarts: the value kept in file is
+   * used on the first fetch if younger than maxAgeMs. As with
+   * getCachingFetcher the value, from disk or not, is then kept until the
+   * process restarts; see getPersistentExpiringCachingFetcher for values that
+   * must be refreshed.
+   */
+  public final static <T> Fetcher<T> getPersistentCachingFetcher(final Fetcher<T> fetcher,
+    final Path file, final FetcherSerializer<T> serializer, final long maxAgeMs) {
+    return new CachingFetcher<>(new PersistentFetcher<>(fetcher, file, serializer, maxAgeMs));
+  }
+
+  /**
+   * Expiring caching fetcher whose value survives restarts: the value kept in
+   * file is loaded when the fetcher is created, and expires maxCacheTime ms
+   * after it was fetched, as it would have without the restart.
+   */
+  public final static <T> Fetcher<T> getPersistentExpiringCachingFetcher(
+    final Fetcher<T> fetcher, final Path file, final FetcherSerializer<T> serializer,
+    final int maxCacheTime) {
+
+    final PersistentFetcher<T> persistent = new PersistentFetcher<>(fetcher, file, serializer,
+      maxCacheTime);
+    final ExpiringCachingFetcher<T> expiring = new ExpiringCachingFetcher<>(persistent,
+      maxCacheTime);
+
+    persistent.preloadInto(expiring);
+
+    return expiring;
+
+  }
+
+  /**
+   * @return serializer of Serializable values using Java serialization
+   */
+  public final static <T extends Serializable> FetcherSerializer<T> getJavaSerializer() {
+    return new JavaFetcherSerializer<>();
+  }
+
   public final static <T> Fetcher<T> getExpiringCachingFetcher(final Fetcher<T> fetcher,
     final int maxCacheTime) {
     return new ExpiringCachingFetcher<>(fetcher, maxCacheTime);
   }
 
+  public final static <T> Fetcher<T> getRetentionExpiringCachingFetcher(
+    final Fetcher<T> fetcher, final int maxCacheTime, final CacheRetention retention) {
+    return new ExpiringCachingFetcher<>(fetcher, maxCacheTime, CachedValue.factory(retention));
+  }
+
+  public final static <T> Fetcher<T> getFailureBackoffExpiringCachingFetcher(
+    final Fetcher<T> fetcher, final int maxCacheTime, final long failureTtlMs,
+    final long maxFailureTtlMs) {
+    return new ExpiringCachingFetcher<>(fetcher, maxCacheTime,
+      new FailureBackoff(failureTtlMs, maxFailureTtlMs));
+  }
+
+  public final static <T> Fetcher<T> getMemoryBudgetedExpiringCachingFetcher(
+    final Fetcher<T> fetcher, final int maxCacheTime, final ToLongFunction<? super T> sizer) {
+    return new ExpiringCachingFetcher<>(fetcher, maxCacheTime,
+      MemoryBudget.GLOBAL.factory(sizer));
+  }
+
+  /**
+   * Sets the byte budget shared by memory-budgeted caching fetchers, releasing
+   * the least recently read values straight away if it is now exceeded.
+   * Defaults to a tenth of the maximum heap size.
+   *
+   * @param maxBytes budget in bytes
+   */
+  public final static void setCacheMemoryBudget(final long maxBytes) {
+    MemoryBudget.GLOBAL.setMaxBytes(maxBytes);
+  }
+
+  public final static long getCacheMemoryBudget() {
+    return MemoryBudget.GLOBAL.getMaxBytes();
+  }
+
+  /**
+   * @return bytes currently held by memory-budgeted caching fetchers
+   */
+  public final static long getCacheMemoryUsage() {
+    return MemoryBudget.GLOBAL.getUsedBytes();
+  }
+
+  /**
+   * @return number of values released to stay within the budget
+   */
+  public final static long getCacheMemoryEvictions() {
+    return MemoryBudget.GLOBAL.getEvictions();
+  }
+
+  /**
+   * Stale-while-revalidate expiring fetcher: between maxCacheTime and
+   * maxStaleTime the cached value is returned immediately while one background
+   * refresh runs; after maxStaleTime callers block on a fresh fetch.
+   */
+  public final static <T> Fetcher<T> getStaleWhileRevalidateFetcher(final Fetcher<T> fetcher,
+    final int maxCacheTime, final int maxStaleTime) {
+    return Fetchers.getStaleWhileRevalidateFetcher(Fetchers.EXECUTOR_SERVICE_FETCHER, fetcher,
+      maxCacheTime, maxStaleTime);
+  }
+
+  public final static <T> Fetcher<T> getStaleWhileRevalidateFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final Fetcher<T> fetcher,
+    final int maxCacheTime, final int maxStaleTime) {
+    return new ExpiringCachingFetcher<>(fetcher, maxCacheTime, maxStaleTime,
+      executorServiceFetcher);
+  }
+
+  /**
+   * Refresh-ahead expiring fetcher: after the first load the value is
+   * refreshed in the background every refreshFraction of maxCacheTime, spread
+   * by +/- jitterFraction, until cancelled.
+   */
+  public final static <T> RefreshAheadFetcher<T> getRefreshAheadFetcher(final Fetcher<T> fetcher,
+    final int maxCacheTime, final double refreshFraction, final double jitterFraction) {
+    return Fetchers.getRefreshAheadFetcher(Fetchers.EXECUTOR_SERVICE_FETCHER, fetcher,
+      maxCacheTime, refreshFraction, jitterFraction);
+  }
+
+  public final static <T> RefreshAheadFetcher<T> getRefreshAheadFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final Fetcher<T> fetcher,
+    final int maxCacheTime, final double refreshFraction, final double jitterFraction) {
+    return new RefreshAheadCachingFetcher<>(fetcher, maxCacheTime, refreshFraction,
+      jitterFraction, Fetchers.SCHEDULED_EXECUTOR_SERVICE_FETCHER, executorServiceFetcher);
+  }
+
   public final static Fetcher<ExecutorService> getExecutorServiceFetcher() {
     return Fetchers.EXECUTOR_SERVICE_FETCHER;
   }
 
+  /**
+   * Returns a fetcher for a virtual-thread-per-task executor. Fetching fails
+   * with an UnsupportedOperationException cause on JDKs older than 21.
+   *
+   * @return virtual thread executor service fetcher
+   */
+  public final static Fetcher<ExecutorService> getVirtualThreadExecutorServiceFetcher() {
+    return Fetchers.VIRTUAL_THREAD_EXECUTOR_SERVICE_FETCHER;
+  }
+
+  /**
+   * Returns a new executor service fetcher with at most maxThreads threads and
+   * a queue of queueCapacity tasks. Concurrent fetchers submitting to a
+   * saturated executor fail with a FetcherRejectedException.
+   *
+   * @param maxThreads maximum number of threads
+   * @param queueCapacity maximum number of queued tasks, zero for direct handoff
+   * @return instrumented bounded executor service fetcher
+   */
+  public final static InstrumentedExecutorServiceFetcher getBoundedExecutorServiceFetcher(
+    final int maxThreads, final int queueCapacity) {
+    return new BoundedExecutorServiceFetcher(maxThreads, queueCapacity);
+  }
+
+  /**
+   * Returns a new bounded executor service fetcher running rejectionPolicy
+   * when saturated. The discard policies cancel the task they drop, so the
+   * fetch waiting on it fails with a FetcherRejectedException; custom policies
+   * that drop tasks must cancel them too.
+   *
+   * @param maxThreads maximum number of threads
+   * @param queueCapacity maximum number of queued tasks, zero for direct handoff
+   * @param rejectionPolicy run when both threads and queue are full
+   * @return instrumented bounded executor service fetcher
+   */
+  public final static InstrumentedExecutorServiceFetcher getBoundedExecutorServiceFetcher(
+    final int maxThreads, final int queueCapacity, final RejectedExecutionHandler rejectionPolicy) {
+    return new BoundedExecutorServiceFetcher(maxThreads, queueCapacity, rejectionPolicy);
+  }
+
+  public final static Fetcher<ScheduledExecutorService> getScheduledExecutorServiceFetcher() {
+    return Fetchers.SCHEDULED_EXECUTOR_SERVICE_FETCHER;
+  }
+
   public final static class Implementations {
 
     public final static Fetcher<String> getCachingFileFetcher(
@@ -128,6 +473,116 @@ public final class Fetchers {
       return new CachingFileFetcher(fileNameFetcher);
     }
 
+    /**
+     * @return read-only views of the memory-mapped file, mapped again when
+     *         its modification time, size or identity changes
+     */
+    public final static Fetcher<ByteBuffer> getMappedFileFetcher(
+      final Fetcher<String> fileNameFetcher) {
+      return new MappedFileFetcher(fileNameFetcher);
+    }
+
+    /**
+     * @return the UTF-8 text of the memory-mapped file, a view without copying
+     *         when the file is ASCII, mapped again when the file changes
+     */
+    public final static Fetcher<CharSequence> getMappedTextFileFetcher(
+      final Fetcher<String> fileNameFetcher) {
+      return Fetchers.Implementations.getMappedTextFileFetcher(fileNameFetcher,
+        StandardCharsets.UTF_8);
+    }
+
+    public final static Fetcher<CharSequence> getMappedTextFileFetcher(
+      final Fetcher<String> fileNameFetcher, final Charset charset) {
+      return new MappedTextFileFetcher(fileNameFetcher, charset);
+    }
+
+    /**
+     * @param fileNameFetcher
+     * @param parallel true to split the file across threads
+     * @return lazily read streams of the UTF-8 lines of the file, to be closed
+     *         after use
+     */
+    public final static Fetcher<Stream<String>> getStreamingLineFileFetcher(
+      final Fetcher<String> fileNameFetcher, final boolean parallel) {
+      return Fetchers.Implementations.getStreamingLineFileFetcher(fileNameFetcher,
+        StandardCharsets.UTF_8, parallel);
+    }
+
+    /**
+     * @param fileNameFetcher
+     * @param charset an ASCII-compatible charset, such as UTF-8 or ISO-8859-1
+     * @param parallel
+     */
+    public final static Fetcher<Stream<String>> getStreamingLineFileFetcher(
+      final Fetcher<String> fileNameFetcher, final Charset charset, final boolean parallel) {
+      return new StreamingFileFetcher<>(fileNameFetcher,
+        (channel, size) -> FileRecordSpliterator.delimited(channel, size, (byte) '\n'),
+        StreamingFileFetcher.lineMapper(charset), parallel);
+    }
+
+    /**
+     * @return lazily read streams of the records of the file, each up to but
+     *         excluding the delimiter, to be closed after use
+     */
+    public final static Fetcher<Stream<ByteBuffer>> getStreamingDelimitedRecordFileFetcher(
+      final Fetcher<String> fileNameFetcher, final byte delimiter, final boolean parallel) {
+      return new StreamingFileFetcher<>(fileNameFetcher,
+        (channel, size) -> FileRecordSpliterator.delimited(channel, size, delimiter),
+        Function.identity(), parallel);
+    }
+
+    /**
+     * @return lazily read streams of the recordLength byte records of the
+     *         file, to be closed after use
+     */
+    public final static Fetcher<Stream<ByteBuffer>> getStreamingFixedRecordFileFetcher(
+      final Fetcher<String> fileNameFetcher, final int recordLength, final boolean parallel) {
+
+      if (recordLength < 1) {
+        throw new IllegalArgumentException("recordLength must be positive: " + recordLength);
+      }
+
+      return new StreamingFileFetcher<>(fileNameFetcher,
+        (channel, size) -> FileRecordSpliterator.fixed(channel, size, recordLength),
+        Function.identity(), parallel);
+
+    }
+
+    /**
+     * @return the UTF-8 text of the file, read again on the first fetch after
+     *         the shared file watcher reports a change to it
+     */
+    public final static Fetcher<String> getWatchingFileFetcher(final String fileName) {
+      return Fetchers.Implementations.getWatchingFileFetcher(fileName, false);
+    }
+
+    /**
+     * @param fileName
+     * @param eagerReload true to read the file again as soon as it changes,
+     *          serving the previous text meanwhile, false to read it on the
+     *          next fetch
+     * @return the UTF-8 text of the file, kept up to date by the shared file
+     *         watcher
+     */
+    public final static Fetcher<String> getWatchingFileFetcher(final String fileName,
+      final boolean eagerReload) {
+      return Fetchers.Implementations.getWatchingFileFetcher(fileName, eagerReload,
+        WatchingFileFetcher.textLoader(fileName, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param fileName
+     * @param eagerReload
+     * @param loader reads and parses the file, called again only after the
+     *          shared file watcher reports a change to it
+     */
+    public final static <T> Fetcher<T> getWatchingFileFetcher(final String fileName,
+      final boolean eagerReload, final Fetcher<T> loader) {
+      return new WatchingFileFetcher<>(fileName, loader,
+        eagerReload ? Fetchers.getExecutorServiceFetcher() : null);
+    }
+
   }
 
 }
@@ -0,0 +1,241 @@
+package com.lieuu.fetcher;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Records of the byte range [position, end) of a file, either terminated by a
+ * delimiter byte or of a fixed length, read in chunks with positional reads so
+ * that spliterators split off the same channel can run on different threads.
+ * A range always starts at a record boundary: a delimited range is split right
+ * after the first delimiter past its middle, a fixed-length one at a multiple
+ * of the record length. Only the current chunk is held in memory; a record
+ * longer than a chunk is read on its own.
+ */
+final class FileRecordSpliterator implements Spliterator<ByteBuffer> {
+
+  private final static int CHUNK_SIZE = 64 * 1024;
+  private final static int NO_DELIMITER = -1;
+  private final static long MIN_SPLIT_SIZE = 2L * FileRecordSpliterator.CHUNK_SIZE;
+
+  private final FileChannel channel;
+  private final int delimiter;
+  private final int recordLength;
+  private final long end;
+  private long position;
+
+  private ByteBuffer chunk;
+  private long chunkStart;
+
+  private FileRecordSpliterator(final FileChannel channel, final int delimiter,
+    final int recordLength, final long position, final long end) {
+    this.channel = channel;
+    this.delimiter = delimiter;
+    this.recordLength = recordLength;
+    this.position = position;
+    this.end = end;
+    this.chunkStart = -1;
+  }
+
+  /**
+   * @return records of the whole file up to, not including, each delimiter;
+   *         a final record without delimiter is included
+   */
+  static FileRecordSpliterator delimited(final FileChannel channel, final long size,
+    final byte delimiter) {
+    return new FileRecordSpliterator(channel, delimiter & 0xff, 0, 0, size);
+  }
+
+  /**
+   * @return records of recordLength bytes of the whole file; a shorter final
+   *         record is included
+   */
+  static FileRecordSpliterator fixed(final FileChannel channel, final long size,
+    final int recordLength) {
+
+    if (recordLength < 1) {
+      throw new IllegalArgumentException("recordLength must be positive: " + recordLength);
+    }
+
+    return new FileRecordSpliterator(channel, FileRecordSpliterator.NO_DELIMITER, recordLength, 0,
+      size);
+
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super ByteBuffer> action) {
+
+    if (this.position >= this.end) {
+      return false;
+    }
+
+    final long recordEnd = (this.delimiter == FileRecordSpliterator.NO_DELIMITER)
+        ? Math.min(this.position + this.recordLength, this.end)
+        : this.findDelimiter(this.position);
+
+    final byte[] record = this.read(this.position, (int) (recordEnd - this.position));
+
+    this.position = (this.delimiter == FileRecordSpliterator.NO_DELIMITER) ? recordEnd
+        : recordEnd + 1; // skip the delimiter
+
+    action.accept(ByteBuffer.wrap(record));
+
+    return true;
+
+  }
+
+  /**
+   * @return position of the first delimiter at or after from, or end if there
+   *         is none in the range
+   */
+  private long findDelimiter(final long from) {
+
+    long next = from;
+
+    while (next < this.end) {
+
+      this.load(next);
+
+      final byte[] bytes = this.chunk.array();
+      final int limit = this.chunk.limit();
+      int i = (int) (next - this.chunkStart);
+
+      while ((i < limit) && ((bytes[i] & 0xff) != this.delimiter)) {
+        i++;
+      }
+
+      next = this.chunkStart + i;
+
+      if (i < limit) {
+        return next;
+      }
+
+    }
+
+    return this.end;
+
+  }
+
+  /**
+   * Makes the chunk start at from, unless it already holds from.
+   */
+  private void load(final long from) {
+
+    if ((this.chunk != null) && (from >= this.chunkStart)
+        && (from < (this.chunkStart + this.chunk.limit()))) {
+      return;
+    }
+
+    if (this.chunk == null) {
+      this.chunk = ByteBuffer.allocate(FileRecordSpliterator.CHUNK_SIZE);
+    }
+
+    this.chunk.clear();
+    this.chunk.limit((int) Math.min(this.chunk.capacity(), this.end - from));
+    this.readFully(this.chunk, from);
+    this.chunk.flip();
+    this.chunkStart = from;
+
+  }
+
+  private byte[] read(final long from, final int length) {
+
+    if ((this.chunk != null) && (from >= this.chunkStart)
+        && ((from + length) <= (this.chunkStart + this.chunk.limit()))) {
+
+      final int offset = (int) (from - this.chunkStart);
+
+      return Arrays.copyOfRange(this.chunk.array(), offset, offset + length);
+
+    }
+
+    final ByteBuffer record = ByteBuffer.allocate(length); // straddles chunks
+
+    this.readFully(record, from);
+
+    return record.array();
+
+  }
+
+  private void readFully(final ByteBuffer buffer, final long from) {
+
+    try {
+
+      while (buffer.hasRemaining()) {
+
+        if (this.channel.read(buffer, from + buffer.position()) < 0) {
+          throw new EOFException("File truncated while streaming at " + (from
+              + buffer.position()));
+        }
+
+      }
+
+    }
+    catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+  }
+
+  @Override
+  public Spliterator<ByteBuffer> trySplit() {
+
+    final long remaining = this.end - this.position;
+
+    if (remaining < FileRecordSpliterator.MIN_SPLIT_SIZE) {
+      return null;
+    }
+
+    final long split;
+
+    if (this.delimiter == FileRecordSpliterator.NO_DELIMITER) {
+      split = this.position + (((remaining / this.recordLength) / 2) * this.recordLength);
+    }
+    else {
+      split = this.findDelimiter(this.position + (remaining / 2)) + 1;
+    }
+
+    if ((split <= this.position) || (split >= this.end)) {
+      return null; // one record spans the rest
+    }
+
+    final FileRecordSpliterator prefix = new FileRecordSpliterator(this.channel, this.delimiter,
+      this.recordLength, this.position, split);
+
+    this.position = split;
+
+    return prefix;
+
+  }
+
+  @Override
+  public long estimateSize() {
+
+    final long remaining = this.end - this.position;
+
+    if (this.delimiter == FileRecordSpliterator.NO_DELIMITER) {
+      return (remaining + this.recordLength - 1) / this.recordLength;
+    }
+
+    return remaining; // at most one record per byte
+
+  }
+
+  @Override
+  public int characteristics() {
+
+    final int characteristics = Spliterator.ORDERED | Spliterator.NONNULL
+        | Spliterator.IMMUTABLE;
+
+    return (this.delimiter == FileRecordSpliterator.NO_DELIMITER)
+        ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED : characteristics;
+
+  }
+
+}
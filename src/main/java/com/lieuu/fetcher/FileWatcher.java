@@ -0,0 +1,192 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single WatchService and daemon thread shared by all watching file fetchers.
+ * Each directory holding a watched file is registered once; events on a file
+ * invalidate the fetchers of that file, and an overflow or a directory that
+ * can no longer be watched invalidates every fetcher in the directory.
+ * Fetchers are held weakly, so one that is no longer used stops being
+ * notified without having to be closed.
+ */
+final class FileWatcher {
+
+  final static FileWatcher GLOBAL = new FileWatcher();
+
+  private final Map<Path, Directory> directories = new ConcurrentHashMap<>();
+
+  private WatchService watchService;
+
+  private FileWatcher() {
+  }
+
+  /**
+   * Starts delivering events on the fetcher's file to it; a no-op if the
+   * fetcher is already registered.
+   *
+   * @param file absolute, normalised path
+   */
+  void register(final Path file, final WatchingFileFetcher<?> fetcher) throws FetcherException {
+
+    final Path directoryPath = file.getParent();
+    final Directory directory = this.directories.get(directoryPath);
+
+    if (directory != null) {
+      directory.add(file.getFileName(), fetcher);
+      return;
+    }
+
+    synchronized (this) {
+
+      final Directory current = this.directories.get(directoryPath);
+
+      if (current != null) {
+        current.add(file.getFileName(), fetcher);
+        return;
+      }
+
+      final Directory created = new Directory();
+
+      try {
+        directoryPath.register(this.getWatchService(), StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+      }
+      catch (final IOException e) {
+        throw new FetcherException(e);
+      }
+
+      created.add(file.getFileName(), fetcher);
+      this.directories.put(directoryPath, created);
+
+    }
+
+  }
+
+  private WatchService getWatchService() throws IOException {
+
+    if (this.watchService == null) {
+
+      this.watchService = FileSystems.getDefault().newWatchService();
+
+      final Thread thread = new Thread(this::watch, "fetcher-file-watcher");
+      thread.setDaemon(true); // never keep the JVM alive
+      thread.start();
+
+    }
+
+    return this.watchService;
+
+  }
+
+  private void watch() {
+
+    final WatchService service;
+
+    synchronized (this) {
+      service = this.watchService;
+    }
+
+    while (true) {
+
+      final WatchKey key;
+
+      try {
+        key = service.take();
+      }
+      catch (final InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      final Path directoryPath = (Path) key.watchable();
+      final Directory directory = this.directories.get(directoryPath);
+
+      for (final WatchEvent<?> event : key.pollEvents()) {
+
+        if (directory == null) {
+          continue;
+        }
+
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          directory.invalidateAll(); // events were lost
+        }
+        else {
+          directory.invalidate((Path) event.context());
+        }
+
+      }
+
+      if (!key.reset()) {
+
+        this.directories.remove(directoryPath); // registered again on the next load
+
+        if (directory != null) {
+          directory.invalidateAll();
+        }
+
+      }
+
+    }
+
+  }
+
+  private final static class Directory {
+
+    private final Map<WatchingFileFetcher<?>, Path> fetchers = new WeakHashMap<>();
+
+    private synchronized void add(final Path fileName, final WatchingFileFetcher<?> fetcher) {
+      this.fetchers.put(fetcher, fileName);
+    }
+
+    private void invalidate(final Path fileName) {
+
+      for (final WatchingFileFetcher<?> fetcher : this.getFetchers(fileName)) {
+        fetcher.invalidate();
+      }
+
+    }
+
+    private void invalidateAll() {
+
+      for (final WatchingFileFetcher<?> fetcher : this.getFetchers(null)) {
+        fetcher.invalidate();
+      }
+
+    }
+
+    /**
+     * Copies the matching fetchers, so they are invalidated outside the lock.
+     */
+    private synchronized List<WatchingFileFetcher<?>> getFetchers(final Path fileName) {
+
+      final List<WatchingFileFetcher<?>> matching = new ArrayList<>();
+
+      for (final Map.Entry<WatchingFileFetcher<?>, Path> entry : this.fetchers.entrySet()) {
+
+        if ((fileName == null) || fileName.equals(entry.getValue())) {
+          matching.add(entry.getKey());
+        }
+
+      }
+
+      return matching;
+
+    }
+
+  }
+
+}
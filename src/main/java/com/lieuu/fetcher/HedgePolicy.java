@@ -0,0 +1,60 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how long a hedged multi fetcher waits on a source before launching
+ * the next one: the configured percentile of that source's recent successful
+ * latencies, or the initial delay until enough samples have been observed.
+ * The percentile is maintained by the recorders as samples come in, so
+ * reading the delay on the fetch path costs no sort.
+ */
+final class HedgePolicy {
+
+  private final static int WINDOW = 128;
+  private final static int MIN_SAMPLES = 10;
+  // floor so sub-millisecond scheduling noise does not trigger hedges
+  private final static long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final long initialDelayNanos;
+  private final LatencyRecorder[] recorders;
+
+  /**
+   * @param percentile latency percentile used as the hedge delay, in (0, 1]
+   * @param initialDelayMs hedge delay used before enough latencies are known
+   * @param sources number of sources
+   */
+  public HedgePolicy(final double percentile, final long initialDelayMs, final int sources) {
+
+    if ((percentile <= 0) || (percentile > 1)) {
+      throw new IllegalArgumentException("percentile must be in (0, 1]: " + percentile);
+    }
+
+    this.initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialDelayMs);
+    this.recorders = new LatencyRecorder[sources];
+
+    for (int i = 0; i < sources; i++) {
+      this.recorders[i] = new LatencyRecorder(HedgePolicy.WINDOW, percentile,
+        HedgePolicy.MIN_SAMPLES);
+    }
+
+  }
+
+  public void record(final int source, final long nanos) {
+    this.recorders[source].record(nanos);
+  }
+
+  /**
+   * @param source zero-based index of the source
+   * @return delay in ns after launching the source before the next is launched
+   */
+  public long getDelayNanos(final int source) {
+
+    final long observed = this.recorders[source].getPercentile();
+
+    return (observed < 0) ? this.initialDelayNanos
+        : Math.max(HedgePolicy.MIN_DELAY_NANOS, observed);
+
+  }
+
+}
@@ -0,0 +1,35 @@
+package com.lieuu.fetcher;
+
+public interface InstrumentedBatchingFetcher<K, V> extends KeyedFetcher<K, V> {
+
+  /**
+   * @return number of bulk fetchAll calls issued
+   */
+  public long getBatches();
+
+  /**
+   * @return number of distinct keys sent across all batches
+   */
+  public long getBatchedKeys();
+
+  /**
+   * @return largest number of keys sent in a single batch
+   */
+  public int getLargestBatch();
+
+  /**
+   * @return average number of keys per batch
+   */
+  public double getAverageBatchSize();
+
+  /**
+   * @return average time in milliseconds a batch stayed open collecting keys
+   */
+  public double getAverageWaitMillis();
+
+  /**
+   * @return average time in milliseconds spent in the bulk fetchAll call
+   */
+  public double getAverageFetchMillis();
+
+}
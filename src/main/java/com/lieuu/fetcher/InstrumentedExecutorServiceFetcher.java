@@ -0,0 +1,43 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.ExecutorService;
+
+public interface InstrumentedExecutorServiceFetcher extends Fetcher<ExecutorService> {
+
+  /**
+   * @return number of tasks waiting in the executor queue
+   */
+  public int getQueueDepth();
+
+  /**
+   * @return remaining capacity of the executor queue
+   */
+  public int getQueueRemainingCapacity();
+
+  /**
+   * @return approximate number of threads actively running tasks
+   */
+  public int getActiveThreads();
+
+  /**
+   * @return current number of threads in the pool
+   */
+  public int getPoolSize();
+
+  /**
+   * @return largest number of threads that have simultaneously been in the
+   *         pool
+   */
+  public int getLargestPoolSize();
+
+  /**
+   * @return approximate number of tasks that have completed execution
+   */
+  public long getCompletedTasks();
+
+  /**
+   * @return number of tasks rejected because the pool and queue were full
+   */
+  public long getRejectedTasks();
+
+}
@@ -0,0 +1,16 @@
+package com.lieuu.fetcher;
+
+public interface InstrumentedMultiFetcher<T> extends MultiFetcher<T> {
+
+  /**
+   * @return number of in-flight fetches cancelled because another source won
+   */
+  public long getCancelledFetches();
+
+  /**
+   * @return total time in ms the cancelled fetches had been running when they
+   *         were cancelled
+   */
+  public long getCancelledFetchMillis();
+
+}
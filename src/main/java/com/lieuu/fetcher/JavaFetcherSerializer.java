@@ -0,0 +1,37 @@
+package com.lieuu.fetcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializer of Serializable values using Java serialization.
+ */
+final class JavaFetcherSerializer<T> implements FetcherSerializer<T> {
+
+  @Override
+  public void serialize(final T value, final OutputStream out) throws IOException {
+
+    final ObjectOutputStream objectOut = new ObjectOutputStream(out);
+
+    objectOut.writeObject(value);
+    objectOut.flush();
+
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public T deserialize(final InputStream in) throws IOException {
+
+    try {
+      return (T) new ObjectInputStream(in).readObject();
+    }
+    catch (final ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+
+  }
+
+}
@@ -0,0 +1,193 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keyed counterpart of CachingFetcher: one instance caches a value per key.
+ * Values are held in a ConcurrentHashMap next to a small entry (value, load
+ * time, reference bit), so a cache hit is a map lookup with no locking.
+ * Concurrent misses on the same key share a single load, and once the cache
+ * grows past maxSize entries are evicted with the CLOCK (second chance)
+ * algorithm. Unlike CachingFetcher, failures are not cached per key.
+ */
+class KeyedCachingFetcher<K, V> implements KeyedFetcher<K, V> {
+
+  static final class Entry<V> {
+
+    final V value;
+    final long loadTime;
+    volatile boolean referenced;
+
+    Entry(final V value, final long loadTime) {
+      this.value = value;
+      this.loadTime = loadTime;
+      this.referenced = true;
+    }
+
+  }
+
+  private final KeyedFetcher<K, V> fetcher;
+  private final int maxSize;
+
+  private final ConcurrentHashMap<K, Entry<V>> entries;
+  private final ConcurrentHashMap<K, CompletableFuture<V>> loading;
+
+  private final Object evictionLock = new Object();
+  private Iterator<Map.Entry<K, Entry<V>>> clockHand;
+
+  public KeyedCachingFetcher(final KeyedFetcher<K, V> fetcher, final int maxSize) {
+
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+
+    this.fetcher = fetcher;
+    this.maxSize = maxSize;
+    this.entries = new ConcurrentHashMap<>();
+    this.loading = new ConcurrentHashMap<>();
+
+  }
+
+  @Override
+  public V fetch(final K key) throws FetcherException {
+
+    final Entry<V> entry = this.entries.get(key);
+
+    if ((entry != null) && !this.isExpired(entry)) {
+
+      if (!entry.referenced) {
+        entry.referenced = true; // only write when needed to keep hits read-only
+      }
+
+      return entry.value;
+
+    }
+
+    return this.load(key);
+
+  }
+
+  private V load(final K key) throws FetcherException {
+
+    final CompletableFuture<V> created = new CompletableFuture<>();
+    final CompletableFuture<V> existing = this.loading.putIfAbsent(key, created);
+
+    if (existing != null) {
+      return KeyedCachingFetcher.await(existing); // another thread is loading this key
+    }
+
+    try {
+
+      final Entry<V> entry = this.entries.get(key);
+
+      if ((entry != null) && !this.isExpired(entry)) {
+        created.complete(entry.value); // loaded while we were racing for the slot
+        return entry.value;
+      }
+
+      final V value = this.fetcher.fetch(key);
+
+      if (value == null) {
+        throw new FetcherException(new NullPointerException("Value from fetcher was null"));
+      }
+
+      this.entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+      created.complete(value);
+
+      this.evictIfNeeded();
+
+      return value;
+
+    }
+    catch (final FetcherException e) {
+      created.completeExceptionally(e);
+      throw e;
+    }
+    catch (final RuntimeException e) {
+      final FetcherException wrapped = new FetcherException(e);
+      created.completeExceptionally(wrapped);
+      throw wrapped;
+    }
+    finally {
+      this.loading.remove(key, created);
+    }
+
+  }
+
+  private static <V> V await(final CompletableFuture<V> future) throws FetcherException {
+
+    try {
+      return future.get();
+    }
+    catch (final ExecutionException e) {
+
+      if (e.getCause() instanceof FetcherException) {
+        throw (FetcherException) e.getCause();
+      }
+
+      throw new FetcherException(e.getCause());
+
+    }
+    catch (final InterruptedException e) {
+      throw new FetcherException(e);
+    }
+
+  }
+
+  private void evictIfNeeded() {
+
+    if (this.entries.size() <= this.maxSize) {
+      return;
+    }
+
+    synchronized (this.evictionLock) {
+
+      while (this.entries.size() > this.maxSize) {
+
+        if ((this.clockHand == null) || !this.clockHand.hasNext()) {
+          this.clockHand = this.entries.entrySet().iterator();
+        }
+
+        if (!this.clockHand.hasNext()) {
+          return;
+        }
+
+        final Map.Entry<K, Entry<V>> candidate = this.clockHand.next();
+        final Entry<V> entry = candidate.getValue();
+
+        if (entry.referenced && !this.isExpired(entry)) {
+          entry.referenced = false; // second chance
+        }
+        else {
+          this.entries.remove(candidate.getKey(), entry);
+        }
+
+      }
+
+    }
+
+  }
+
+  protected boolean isExpired(final Entry<V> entry) {
+    return false;
+  }
+
+  protected void invalidate(final K key) {
+    this.entries.remove(key);
+  }
+
+  protected void clearCachedObjects() {
+    this.entries.clear();
+  }
+
+  int size() {
+    return this.entries.size();
+  }
+
+}
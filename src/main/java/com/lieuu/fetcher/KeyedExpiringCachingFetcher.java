@@ -0,0 +1,23 @@
+package com.lieuu.fetcher;
+
+class KeyedExpiringCachingFetcher<K, V> extends KeyedCachingFetcher<K, V> {
+
+  private final double maxCacheTime;
+
+  public KeyedExpiringCachingFetcher(final KeyedFetcher<K, V> fetcher, final int maxSize,
+    final int maxCacheTime) {
+    this(fetcher, maxSize, (double) maxCacheTime);
+  }
+
+  public KeyedExpiringCachingFetcher(final KeyedFetcher<K, V> fetcher, final int maxSize,
+    final double maxCacheTime) {
+    super(fetcher, maxSize);
+    this.maxCacheTime = maxCacheTime;
+  }
+
+  @Override
+  protected boolean isExpired(final Entry<V> entry) {
+    return (System.currentTimeMillis() - entry.loadTime) >= this.maxCacheTime;
+  }
+
+}
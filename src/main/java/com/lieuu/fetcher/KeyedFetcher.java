@@ -0,0 +1,17 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+public interface KeyedFetcher<K, V> {
+
+  /**
+   * Fetches an object of generic type V for the given key and throws
+   * FetcherException if it encounters an error.
+   *
+   * @param key key of type K
+   * @return v of type V
+   * @throws FetcherException
+   */
+  public V fetch(final K key) throws FetcherException;
+
+}
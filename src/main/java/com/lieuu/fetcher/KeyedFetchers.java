@@ -0,0 +1,83 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+
+import java.util.concurrent.ExecutorService;
+
+public final class KeyedFetchers {
+
+  /**
+   * Returns a fetcher caching up to maxSize keys. Once full, the least
+   * recently referenced keys are evicted first.
+   *
+   * @param fetcher underlying keyed fetcher
+   * @param maxSize maximum number of cached keys
+   * @return keyed caching fetcher
+   */
+  public final static <K, V> KeyedFetcher<K, V> getCachingFetcher(
+    final KeyedFetcher<K, V> fetcher, final int maxSize) {
+    return new KeyedCachingFetcher<>(fetcher, maxSize);
+  }
+
+  public final static <K, V> KeyedFetcher<K, V> getExpiringCachingFetcher(
+    final KeyedFetcher<K, V> fetcher, final int maxSize, final int maxCacheTime) {
+    return new KeyedExpiringCachingFetcher<>(fetcher, maxSize, maxCacheTime);
+  }
+
+  @SafeVarargs
+  public final static <K, V> KeyedFetcher<K, V> getWaterfallFetcher(final int maxSize,
+    final KeyedFetcher<K, V>... fetchers) {
+    return new KeyedMultiFetcherValueWrapper<>(KeyedMultiFetchers.getWaterfallFetcher(maxSize,
+      fetchers));
+  }
+
+  @SafeVarargs
+  public final static <K, V> KeyedFetcher<K, V> getWaterfallFetcher(
+    final FetcherErrorCallback callback, final int maxSize, final KeyedFetcher<K, V>... fetchers) {
+    return new KeyedMultiFetcherValueWrapper<>(KeyedMultiFetchers.getWaterfallFetcher(callback,
+      maxSize, fetchers));
+  }
+
+  @SafeVarargs
+  public final static <K, V> KeyedFetcher<K, V> getExpiringWaterfallFetcher(final int maxSize,
+    final int maxCacheTime, final KeyedFetcher<K, V>... fetchers) {
+    return new KeyedMultiFetcherValueWrapper<>(KeyedMultiFetchers.getExpiringWaterfallFetcher(
+      maxSize, maxCacheTime, fetchers));
+  }
+
+  /**
+   * Returns a fetcher that coalesces keys requested within windowMs, or up to
+   * maxBatchSize distinct keys, into a single fetchAll call.
+   *
+   * @param fetcher bulk fetcher
+   * @param maxBatchSize maximum number of keys per fetchAll call
+   * @param windowMs maximum time in milliseconds a batch collects keys
+   * @return instrumented batching keyed fetcher
+   */
+  public final static <K, V> InstrumentedBatchingFetcher<K, V> getBatchingFetcher(
+    final BatchFetcher<K, V> fetcher, final int maxBatchSize, final long windowMs) {
+    return KeyedFetchers.getBatchingFetcher(Fetchers.getExecutorServiceFetcher(), fetcher,
+      maxBatchSize, windowMs);
+  }
+
+  public final static <K, V> InstrumentedBatchingFetcher<K, V> getBatchingFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final BatchFetcher<K, V> fetcher,
+    final int maxBatchSize, final long windowMs) {
+    return new BatchingKeyedFetcher<>(fetcher, maxBatchSize, windowMs, executorServiceFetcher);
+  }
+
+  /**
+   * Returns a batching fetcher whose callers give up with a
+   * FetcherNotReadyException once windowMs plus maxTimeMs have passed, e.g.
+   * if the executor drops the batch without running it.
+   *
+   * @param maxTimeMs maximum time in milliseconds the batch fetch is awaited
+   */
+  public final static <K, V> InstrumentedBatchingFetcher<K, V> getBatchingFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final BatchFetcher<K, V> fetcher,
+    final int maxBatchSize, final long windowMs, final long maxTimeMs) {
+    return new BatchingKeyedFetcher<>(fetcher, maxBatchSize, windowMs, maxTimeMs,
+      executorServiceFetcher);
+  }
+
+}
@@ -0,0 +1,7 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.response.FetcherResponse;
+
+public interface KeyedMultiFetcher<K, V> extends KeyedFetcher<K, FetcherResponse<V>> {
+
+}
@@ -0,0 +1,18 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+class KeyedMultiFetcherValueWrapper<K, V> implements KeyedFetcher<K, V> {
+
+  private final KeyedMultiFetcher<K, V> fetcher;
+
+  public KeyedMultiFetcherValueWrapper(final KeyedMultiFetcher<K, V> fetcher) {
+    this.fetcher = fetcher;
+  }
+
+  @Override
+  public final V fetch(final K key) throws FetcherException {
+    return this.fetcher.fetch(key).value();
+  }
+
+}
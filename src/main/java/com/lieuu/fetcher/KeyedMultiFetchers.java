@@ -0,0 +1,43 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.Arrays;
+
+public final class KeyedMultiFetchers {
+
+  @SafeVarargs
+  public final static <K, V> KeyedMultiFetcher<K, V> getWaterfallFetcher(final int maxSize,
+    final KeyedFetcher<K, V>... fetchers) {
+
+    final KeyedCachingFetcher<K, FetcherResponse<V>> cache = new KeyedCachingFetcher<>(
+      new KeyedWaterfallFetcher<>(Arrays.asList(fetchers)), maxSize);
+
+    return key -> cache.fetch(key);
+
+  }
+
+  @SafeVarargs
+  public final static <K, V> KeyedMultiFetcher<K, V> getWaterfallFetcher(
+    final FetcherErrorCallback callback, final int maxSize, final KeyedFetcher<K, V>... fetchers) {
+
+    final KeyedCachingFetcher<K, FetcherResponse<V>> cache = new KeyedCachingFetcher<>(
+      new KeyedWaterfallFetcher<>(callback, Arrays.asList(fetchers)), maxSize);
+
+    return key -> cache.fetch(key);
+
+  }
+
+  @SafeVarargs
+  public final static <K, V> KeyedMultiFetcher<K, V> getExpiringWaterfallFetcher(
+    final int maxSize, final int maxCacheTime, final KeyedFetcher<K, V>... fetchers) {
+
+    final KeyedCachingFetcher<K, FetcherResponse<V>> cache = new KeyedExpiringCachingFetcher<>(
+      new KeyedWaterfallFetcher<>(Arrays.asList(fetchers)), maxSize, maxCacheTime);
+
+    return key -> cache.fetch(key);
+
+  }
+
+}
@@ -0,0 +1,65 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherErrorCallback;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyed counterpart of WaterfallCachingFetcher. The sources are not cached
+ * individually; the factories cache the waterfall as a whole so each key is
+ * held once regardless of the number of sources.
+ */
+class KeyedWaterfallFetcher<K, V> implements KeyedMultiFetcher<K, V> {
+
+  private final static FetcherErrorCallback DEFAULT_ERROR_CALLBACK = e -> e.printStackTrace();
+
+  private final int fetchersSize;
+  private final FetcherErrorCallback errorCallback;
+  private final List<KeyedFetcher<K, V>> fetchers;
+
+  public KeyedWaterfallFetcher(final List<KeyedFetcher<K, V>> fetchers) {
+    this(KeyedWaterfallFetcher.DEFAULT_ERROR_CALLBACK, fetchers);
+  }
+
+  public KeyedWaterfallFetcher(final FetcherErrorCallback errorCallback,
+    final List<KeyedFetcher<K, V>> fetchers) {
+    this.fetchers = Collections.unmodifiableList(fetchers);
+    this.errorCallback = errorCallback;
+    this.fetchersSize = fetchers.size();
+  }
+
+  @Override
+  public FetcherResponse<V> fetch(final K key) throws FetcherException {
+
+    if (this.fetchersSize == 0) {
+      throw new FetcherException("Number of fetchers was zero!");
+    }
+
+    for (int i = 0; i < (this.fetchersSize - 1); i++) {
+
+      try {
+
+        final V value = this.fetchers.get(i).fetch(key);
+
+        if (value == null) {
+          throw new FetcherException(new NullPointerException("Value from fetcher was null"));
+        }
+
+        return FetcherResponseFactory.getFetcherResponse(i + 1, value);
+
+      }
+      catch (final FetcherException e) {
+        this.errorCallback.onError(e);
+      }
+
+    }
+
+    return FetcherResponseFactory.getFetcherResponse(this.fetchersSize,
+      this.fetchers.get(this.fetchersSize - 1).fetch(key));
+
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.lieuu.fetcher;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of the most recent latencies of a single source, with the
+ * latency at a fixed percentile of them. The percentile is recomputed on
+ * record once every RECOMPUTE_INTERVAL samples, sorting into a buffer kept
+ * for that purpose, so reading it is a volatile read without lock or
+ * allocation.
+ */
+final class LatencyRecorder {
+
+  private final static int RECOMPUTE_INTERVAL = 16;
+
+  private final long[] samples;
+  private final long[] sorted;
+  private final double percentile;
+  private final int minSamples;
+  private int next;
+  private int count;
+  private int sinceRecompute;
+
+  private volatile long percentileNanos;
+
+  /**
+   * @param window number of recent samples kept
+   * @param percentile in (0, 1]
+   * @param minSamples samples needed before the percentile is known
+   */
+  public LatencyRecorder(final int window, final double percentile, final int minSamples) {
+    this.samples = new long[window];
+    this.sorted = new long[window];
+    this.percentile = percentile;
+    this.minSamples = Math.max(1, minSamples);
+    this.percentileNanos = -1;
+  }
+
+  public synchronized void record(final long nanos) {
+
+    this.samples[this.next] = nanos;
+    this.next = (this.next + 1) % this.samples.length;
+
+    if (this.count < this.samples.length) {
+      this.count++;
+    }
+
+    if ((this.count >= this.minSamples) && ((this.count == this.minSamples)
+        || (++this.sinceRecompute >= LatencyRecorder.RECOMPUTE_INTERVAL))) {
+      this.recompute();
+    }
+
+  }
+
+  private void recompute() {
+
+    System.arraycopy(this.samples, 0, this.sorted, 0, this.count);
+    Arrays.sort(this.sorted, 0, this.count);
+
+    final int index = (int) Math.ceil(this.percentile * this.count) - 1;
+
+    this.percentileNanos = this.sorted[Math.max(0, Math.min(index, this.count - 1))];
+    this.sinceRecompute = 0;
+
+  }
+
+  /**
+   * @return the latency in ns at the percentile of the recorded samples, as of
+   *         the last recomputation, or -1 if fewer than minSamples have been
+   *         recorded
+   */
+  public long getPercentile() {
+    return this.percentileNanos;
+  }
+
+}
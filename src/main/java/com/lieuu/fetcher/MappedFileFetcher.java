@@ -0,0 +1,129 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * Memory-maps a file and hands out read-only views of the mapping, so the
+ * content is neither copied onto the heap nor read again while it is
+ * unchanged. Every fetch compares the file's modification time, size and file
+ * key with those of the current mapping, a single stat call, and maps the file
+ * again when any of them differs; a replaced file is therefore picked up on
+ * the next fetch. Superseded mappings are released once their views are
+ * garbage collected.
+ * <p>
+ * Files should be replaced, e.g. by an atomic move, rather than rewritten in
+ * place: writes to a mapped file show through its views, and truncating it
+ * makes reading them fail.
+ */
+class MappedFileFetcher implements Fetcher<ByteBuffer> {
+
+  private final Fetcher<String> fileNameFetcher;
+  private final Object lock = new Object();
+
+  private volatile Mapping mapping;
+
+  public MappedFileFetcher(final Fetcher<String> fileNameFetcher) {
+    this.fileNameFetcher = fileNameFetcher;
+  }
+
+  /**
+   * @return a read-only view of the file, positioned at its start
+   */
+  @Override
+  public ByteBuffer fetch() throws FetcherException {
+    return this.getMappedBuffer().duplicate(); // own position and limit per caller
+  }
+
+  /**
+   * @return the read-only buffer shared by all views of the current mapping,
+   *         identical between fetches as long as the file is unchanged
+   */
+  ByteBuffer getMappedBuffer() throws FetcherException {
+
+    final Path path = Paths.get(this.fileNameFetcher.fetch());
+    final BasicFileAttributes attributes;
+
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    }
+    catch (final IOException e) {
+      throw new FetcherException(e);
+    }
+
+    final Mapping current = this.mapping;
+
+    if ((current != null) && current.isOf(path, attributes)) {
+      return current.buffer;
+    }
+
+    synchronized (this.lock) {
+
+      final Mapping reloaded = this.mapping;
+
+      if ((reloaded != null) && reloaded.isOf(path, attributes)) {
+        return reloaded.buffer; // mapped by another caller meanwhile
+      }
+
+      final Mapping created = new Mapping(path, attributes, MappedFileFetcher.map(path,
+        attributes.size()));
+
+      this.mapping = created;
+
+      return created.buffer;
+
+    }
+
+  }
+
+  private static ByteBuffer map(final Path path, final long size) throws FetcherException {
+
+    if (size > Integer.MAX_VALUE) {
+      throw new FetcherException("File too large to map: " + path + " (" + size + " bytes)");
+    }
+
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asReadOnlyBuffer(); // stays valid
+    }
+    catch (final IOException e) {
+      throw new FetcherException(e);
+    }
+
+  }
+
+  private final static class Mapping {
+
+    private final Path path;
+    private final FileTime lastModifiedTime;
+    private final long size;
+    private final Object fileKey;
+    private final ByteBuffer buffer;
+
+    private Mapping(final Path path, final BasicFileAttributes attributes,
+      final ByteBuffer buffer) {
+      this.path = path;
+      this.lastModifiedTime = attributes.lastModifiedTime();
+      this.size = attributes.size();
+      this.fileKey = attributes.fileKey();
+      this.buffer = buffer;
+    }
+
+    private boolean isOf(final Path otherPath, final BasicFileAttributes attributes) {
+      return this.path.equals(otherPath) && (this.size == attributes.size())
+          && this.lastModifiedTime.equals(attributes.lastModifiedTime())
+          && Objects.equals(this.fileKey, attributes.fileKey());
+    }
+
+  }
+
+}
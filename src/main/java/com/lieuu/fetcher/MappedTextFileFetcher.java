@@ -0,0 +1,147 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Text of a memory-mapped file. When the charset maps bytes below 0x80 to
+ * ASCII and the file contains no other bytes, as is typical of configuration
+ * files, or the charset is ISO-8859-1, the text is a view over the mapping and
+ * no character is copied. Other content is decoded once per change of the
+ * file. Unlike CachingFileFetcher, line separators are kept.
+ */
+class MappedTextFileFetcher implements Fetcher<CharSequence> {
+
+  private final MappedFileFetcher fileFetcher;
+  private final Charset charset;
+
+  private volatile Text text;
+
+  public MappedTextFileFetcher(final Fetcher<String> fileNameFetcher, final Charset charset) {
+    this.fileFetcher = new MappedFileFetcher(fileNameFetcher);
+    this.charset = charset;
+  }
+
+  @Override
+  public CharSequence fetch() throws FetcherException {
+
+    final ByteBuffer buffer = this.fileFetcher.getMappedBuffer();
+    final Text current = this.text;
+
+    if ((current != null) && (current.buffer == buffer)) {
+      return current.chars;
+    }
+
+    final Text created = new Text(buffer, this.decode(buffer));
+
+    this.text = created; // racing decodes of the same mapping are equal
+
+    return created.chars;
+
+  }
+
+  private CharSequence decode(final ByteBuffer buffer) {
+
+    if (this.charset.equals(StandardCharsets.ISO_8859_1)
+        || (this.isAsciiCompatible() && MappedTextFileFetcher.isAscii(buffer))) {
+      return new ByteBufferCharSequence(buffer, 0, buffer.limit());
+    }
+
+    return this.charset.decode(buffer.duplicate()).toString(); // immutable, unlike a CharBuffer
+
+  }
+
+  private boolean isAsciiCompatible() {
+    return this.charset.equals(StandardCharsets.UTF_8)
+        || this.charset.equals(StandardCharsets.US_ASCII);
+  }
+
+  private static boolean isAscii(final ByteBuffer buffer) {
+
+    for (int i = 0; i < buffer.limit(); i++) {
+
+      if (buffer.get(i) < 0) {
+        return false;
+      }
+
+    }
+
+    return true;
+
+  }
+
+  private final static class Text {
+
+    private final ByteBuffer buffer;
+    private final CharSequence chars;
+
+    private Text(final ByteBuffer buffer, final CharSequence chars) {
+      this.buffer = buffer;
+      this.chars = chars;
+    }
+
+  }
+
+  /**
+   * Single-byte characters read straight from a buffer with absolute gets, so
+   * the view is immutable and may be shared between threads.
+   */
+  private final static class ByteBufferCharSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    private ByteBufferCharSequence(final ByteBuffer buffer, final int offset, final int length) {
+      this.buffer = buffer;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return this.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+
+      if ((index < 0) || (index >= this.length)) {
+        throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+      }
+
+      return (char) (this.buffer.get(this.offset + index) & 0xff);
+
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+
+      if ((start < 0) || (end > this.length) || (start > end)) {
+        throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length "
+            + this.length);
+      }
+
+      return new ByteBufferCharSequence(this.buffer, this.offset + start, end - start);
+
+    }
+
+    @Override
+    public String toString() {
+
+      final byte[] bytes = new byte[this.length];
+
+      for (int i = 0; i < this.length; i++) {
+        bytes[i] = this.buffer.get(this.offset + i);
+      }
+
+      return new String(bytes, StandardCharsets.ISO_8859_1);
+
+    }
+
+  }
+
+}
@@ -0,0 +1,242 @@
+package com.lieuu.fetcher;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.ToLongFunction;
+
+/**
+ * Byte budget shared by memory-budgeted caching fetchers. Values are held
+ * strongly and accounted at the size reported by their fetcher's sizer; when
+ * a new value would take the total over the budget, the least recently read
+ * values are released until it fits. A value larger than the whole budget is
+ * returned to its caller but not retained.
+ * <p>
+ * Entries are kept in insertion order in a linked list. Reads only flag the
+ * entry, so hits stay lock-free; eviction pops the head of the list and moves
+ * flagged entries to the tail instead, clearing the flag, which approximates
+ * least recently read order at a constant cost per released entry. The list
+ * holds entries weakly, so the value of a fetcher that has been garbage
+ * collected gives its bytes back on the next insertion.
+ */
+final class MemoryBudget {
+
+  final static MemoryBudget GLOBAL = new MemoryBudget(Runtime.getRuntime().maxMemory() / 10);
+
+  final class Entry<T> extends CachedValue<T> {
+
+    private volatile T value;
+    private final Node node;
+
+    private Entry(final T value, final long bytes) {
+      this.value = value;
+      this.node = new Node(this, bytes, MemoryBudget.this.collected);
+    }
+
+    @Override
+    T get() {
+
+      final T current = this.value;
+
+      if ((current != null) && !this.node.accessed) {
+        this.node.accessed = true;
+      }
+
+      return current;
+
+    }
+
+    @Override
+    void release() {
+      MemoryBudget.this.remove(this.node);
+    }
+
+  }
+
+  /**
+   * Position of an entry in the list, guarded by the budget except for the
+   * accessed flag.
+   */
+  private final static class Node extends WeakReference<Entry<?>> {
+
+    private final long bytes;
+    private volatile boolean accessed;
+    private boolean linked;
+    private Node previous;
+    private Node next;
+
+    private Node(final Entry<?> entry, final long bytes,
+      final ReferenceQueue<Entry<?>> collected) {
+      super(entry, collected);
+      this.bytes = bytes;
+    }
+
+  }
+
+  private final ReferenceQueue<Entry<?>> collected;
+
+  private Node head;
+  private Node tail;
+  private int size;
+  private long maxBytes;
+  private long usedBytes;
+  private long evictions;
+
+  MemoryBudget(final long maxBytes) {
+    this.collected = new ReferenceQueue<>();
+    this.maxBytes = maxBytes;
+  }
+
+  <T> CachedValueFactory<T> factory(final ToLongFunction<? super T> sizer) {
+    return value -> this.add(value, sizer.applyAsLong(value));
+  }
+
+  private synchronized <T> Entry<T> add(final T value, final long bytes) {
+
+    final Entry<T> entry = new Entry<>(value, Math.max(0, bytes));
+
+    this.expunge();
+
+    if (entry.node.bytes > this.maxBytes) {
+      entry.value = null; // never fits, don't flush everything else for it
+      return entry;
+    }
+
+    this.link(entry.node);
+    this.usedBytes += entry.node.bytes;
+
+    this.evict(entry.node);
+
+    return entry;
+
+  }
+
+  private synchronized void remove(final Node node) {
+
+    if (node.linked) {
+
+      this.unlink(node);
+      this.usedBytes -= node.bytes;
+
+      final Entry<?> entry = node.get();
+
+      if (entry != null) {
+        entry.value = null;
+      }
+
+    }
+
+  }
+
+  private void link(final Node node) {
+
+    node.previous = this.tail;
+    node.next = null;
+
+    if (this.tail == null) {
+      this.head = node;
+    }
+    else {
+      this.tail.next = node;
+    }
+
+    this.tail = node;
+    node.linked = true;
+    this.size++;
+
+  }
+
+  private void unlink(final Node node) {
+
+    if (node.previous == null) {
+      this.head = node.next;
+    }
+    else {
+      node.previous.next = node.next;
+    }
+
+    if (node.next == null) {
+      this.tail = node.previous;
+    }
+    else {
+      node.next.previous = node.previous;
+    }
+
+    node.previous = null;
+    node.next = null;
+    node.linked = false;
+    this.size--;
+
+  }
+
+  /**
+   * Gives back the bytes of entries whose fetcher has been garbage collected.
+   */
+  private void expunge() {
+
+    Node node;
+
+    while ((node = (Node) this.collected.poll()) != null) {
+      this.remove(node);
+    }
+
+  }
+
+  /**
+   * Releases the least recently read entries, other than keep, until the
+   * budget is met. Entries read since they were last moved get one more pass
+   * through the list, bounded so that concurrent reads cannot keep them all
+   * alive.
+   */
+  private void evict(final Node keep) {
+
+    int chances = 2 * this.size;
+
+    while ((this.usedBytes > this.maxBytes) && (this.head != null)) {
+
+      final Node oldest = this.head;
+
+      if ((oldest == keep) && (oldest == this.tail)) {
+        return;
+      }
+
+      if ((oldest == keep) || (oldest.accessed && (chances-- > 0))) {
+        oldest.accessed = false; // second chance
+        this.unlink(oldest);
+        this.link(oldest);
+        continue;
+      }
+
+      this.remove(oldest);
+      this.evictions++;
+
+    }
+
+  }
+
+  synchronized void setMaxBytes(final long maxBytes) {
+
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+    }
+
+    this.maxBytes = maxBytes;
+
+    this.expunge();
+    this.evict(null);
+
+  }
+
+  synchronized long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  synchronized long getUsedBytes() {
+    this.expunge();
+    return this.usedBytes;
+  }
+
+  synchronized long getEvictions() {
+    return this.evictions;
+  }
+
+}
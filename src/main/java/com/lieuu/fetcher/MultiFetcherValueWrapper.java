@@ -9,12 +9,16 @@ import com.lieuu.fetcher.exception.FetcherException;
 class MultiFetcherValueWrapper<T> implements Fetcher<T> {
 
   private final MultiFetcher<T> fetcher;
+  private final ValueMultiFetcher<T> valueFetcher;
 
   /**
    * @param fetcher
    */
+  @SuppressWarnings("unchecked")
   public MultiFetcherValueWrapper(final MultiFetcher<T> fetcher) {
     this.fetcher = fetcher;
+    this.valueFetcher = (fetcher instanceof ValueMultiFetcher)
+        ? (ValueMultiFetcher<T>) fetcher : null;
   }
 
   /*
@@ -23,7 +27,17 @@ class MultiFetcherValueWrapper<T> implements Fetcher<T> {
    */
   @Override
   public final T fetch() throws FetcherException {
+
+    if (this.valueFetcher != null) {
+      return this.valueFetcher.fetchValue(); // skips the response entirely
+    }
+
     return this.fetcher.fetch().value();
+
+  }
+
+  MultiFetcher<T> getMultiFetcher() {
+    return this.fetcher;
   }
 
 }
@@ -1,7 +1,10 @@
 package com.lieuu.fetcher;
 
+import com.lieuu.fetcher.exception.FetcherCircuitCallback;
 import com.lieuu.fetcher.exception.FetcherErrorCallback;
+import com.lieuu.fetcher.response.source.Source;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -27,6 +30,27 @@ public final class MultiFetchers {
     return MultiFetchers.getMultiConcurrentFetcher(Fetchers.getExecutorServiceFetcher(), fetchers);
   }
 
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getCompletionMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(fetcher, executorServiceFetcher));
+    }
+
+    return new BlockingMultiConcurrentFetcher<>(true, fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getCompletionMultiConcurrentFetcher(
+    final Fetcher<T>... fetchers) {
+    return MultiFetchers.getCompletionMultiConcurrentFetcher(Fetchers.getExecutorServiceFetcher(),
+      fetchers);
+  }
+
   @SafeVarargs
   public final static <T> MultiFetcher<T> getExpiringMultiConcurrentFetcher(
     final Fetcher<ExecutorService> executorServiceFetcher, final long maxTimeMs,
@@ -49,6 +73,133 @@ public final class MultiFetchers {
       maxTimeMs, fetchers);
   }
 
+  /**
+   * Completion driven multi concurrent fetcher that cancels, and interrupts,
+   * the fetchers still in flight once another fetcher's value is returned.
+   */
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getCancellingMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(fetcher, executorServiceFetcher));
+    }
+
+    return new BlockingMultiConcurrentFetcher<>(true, true, fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getCancellingMultiConcurrentFetcher(
+    final Fetcher<T>... fetchers) {
+    return MultiFetchers.getCancellingMultiConcurrentFetcher(Fetchers.getExecutorServiceFetcher(),
+      fetchers);
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getExpiringCancellingMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final long maxTimeMs,
+    final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(fetcher, executorServiceFetcher));
+    }
+
+    return new ExpiringMultiConcurrentFetcher<>(maxTimeMs, true, fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getExpiringCancellingMultiConcurrentFetcher(
+    final long maxTimeMs, final Fetcher<T>... fetchers) {
+    return MultiFetchers.getExpiringCancellingMultiConcurrentFetcher(
+      Fetchers.getExecutorServiceFetcher(), maxTimeMs, fetchers);
+  }
+
+  /**
+   * Hedged fan-out: fetchers are started one at a time in rank order, the next
+   * one only after the previous has gone without a value for the given
+   * percentile of its observed latency (initialHedgeDelayMs until enough
+   * latencies are known), or has failed. Fetchers still in flight when a value
+   * arrives are cancelled.
+   */
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getHedgedMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final double hedgePercentile,
+    final long initialHedgeDelayMs, final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(fetcher, executorServiceFetcher));
+    }
+
+    return new BlockingMultiConcurrentFetcher<>(
+      new HedgePolicy(hedgePercentile, initialHedgeDelayMs, fetchers.length), fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getHedgedMultiConcurrentFetcher(
+    final double hedgePercentile, final long initialHedgeDelayMs, final Fetcher<T>... fetchers) {
+    return MultiFetchers.getHedgedMultiConcurrentFetcher(Fetchers.getExecutorServiceFetcher(),
+      hedgePercentile, initialHedgeDelayMs, fetchers);
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getExpiringHedgedMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final long maxTimeMs,
+    final double hedgePercentile, final long initialHedgeDelayMs, final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(fetcher, executorServiceFetcher));
+    }
+
+    return new ExpiringMultiConcurrentFetcher<>(maxTimeMs,
+      new HedgePolicy(hedgePercentile, initialHedgeDelayMs, fetchers.length), fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> InstrumentedMultiFetcher<T> getExpiringHedgedMultiConcurrentFetcher(
+    final long maxTimeMs, final double hedgePercentile, final long initialHedgeDelayMs,
+    final Fetcher<T>... fetchers) {
+    return MultiFetchers.getExpiringHedgedMultiConcurrentFetcher(
+      Fetchers.getExecutorServiceFetcher(), maxTimeMs, hedgePercentile, initialHedgeDelayMs,
+      fetchers);
+  }
+
+  @SafeVarargs
+  public final static <T> RefreshAheadMultiFetcher<T> getRefreshAheadMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final long maxTimeMs,
+    final double refreshFraction, final double jitterFraction, final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(fetcher, executorServiceFetcher));
+    }
+
+    return new RefreshAheadMultiConcurrentFetcher<>(
+      new BlockingMultiConcurrentFetcher<>(fetchersWrapped), maxTimeMs, refreshFraction,
+      jitterFraction, Fetchers.getScheduledExecutorServiceFetcher(), executorServiceFetcher);
+
+  }
+
+  @SafeVarargs
+  public final static <T> RefreshAheadMultiFetcher<T> getRefreshAheadMultiConcurrentFetcher(
+    final long maxTimeMs, final double refreshFraction, final double jitterFraction,
+    final Fetcher<T>... fetchers) {
+    return MultiFetchers.getRefreshAheadMultiConcurrentFetcher(
+      Fetchers.getExecutorServiceFetcher(), maxTimeMs, refreshFraction, jitterFraction, fetchers);
+  }
+
   @SafeVarargs
   public final static <T> MultiFetcher<T> getWaterfallFetcher(final Fetcher<T>... fetchers) {
 
@@ -76,4 +227,207 @@ public final class MultiFetchers {
 
   }
 
+  /**
+   * Waterfall whose sources cache failures for failureTtlMs, doubling with
+   * each consecutive failure up to maxFailureTtlMs, after which a single
+   * caller re-probes the source.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getFailureBackoffWaterfallFetcher(
+    final FetcherErrorCallback callback, final long failureTtlMs, final long maxFailureTtlMs,
+    final Fetcher<T>... fetchers) {
+
+    final FailureBackoff backoff = new FailureBackoff(failureTtlMs, maxFailureTtlMs);
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new CachingFetcher<>(fetcher, backoff));
+    }
+
+    return new WaterfallCachingFetcher<>(callback, fetchersWrapped);
+
+  }
+
+  /**
+   * Waterfall whose sources keep their last value in directory, one file per
+   * rank, so a restarted process starts warm: each source first returns its
+   * stored value if younger than maxAgeMs instead of calling the origin.
+   * Values are cached in memory as in the plain waterfall, so they are kept
+   * until the process restarts; see getPersistentExpiringWaterfallFetcher for
+   * values that must be refreshed. Each waterfall needs its own directory.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getPersistentWaterfallFetcher(
+    final FetcherErrorCallback callback, final Path directory,
+    final FetcherSerializer<T> serializer, final long maxAgeMs, final Fetcher<T>... fetchers) {
+
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (int i = 0; i < fetchers.length; i++) {
+      fetchersWrapped.add(new CachingFetcher<>(new PersistentFetcher<>(fetchers[i],
+        directory.resolve(Source.valueOf(i + 1).name()), serializer, maxAgeMs)));
+    }
+
+    return new WaterfallCachingFetcher<>(callback, fetchersWrapped);
+
+  }
+
+  /**
+   * Persistent waterfall whose sources expire their values maxCacheTime ms
+   * after fetching them. The stored values are loaded when the waterfall is
+   * created and expire when they would have without the restart.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getPersistentExpiringWaterfallFetcher(
+    final FetcherErrorCallback callback, final Path directory,
+    final FetcherSerializer<T> serializer, final int maxCacheTime, final Fetcher<T>... fetchers) {
+
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (int i = 0; i < fetchers.length; i++) {
+
+      final PersistentFetcher<T> persistent = new PersistentFetcher<>(fetchers[i],
+        directory.resolve(Source.valueOf(i + 1).name()), serializer, maxCacheTime);
+      final ExpiringCachingFetcher<T> expiring = new ExpiringCachingFetcher<>(persistent,
+        maxCacheTime);
+
+      persistent.preloadInto(expiring);
+      fetchersWrapped.add(expiring);
+
+    }
+
+    return new WaterfallCachingFetcher<>(callback, fetchersWrapped);
+
+  }
+
+  /**
+   * Waterfall with a circuit breaker per source: a source whose circuit is
+   * open is skipped without being called, reported to the error callback as a
+   * FetcherCircuitOpenException cause. Failures are not cached, not even for
+   * callers concurrent with a failing call: the breaker alone decides when a
+   * failing source is tried again.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getCircuitBreakingWaterfallFetcher(
+    final FetcherErrorCallback callback, final FetcherCircuitCallback circuitCallback,
+    final CircuitBreakerPolicy policy, final Fetcher<T>... fetchers) {
+
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (int i = 0; i < fetchers.length; i++) {
+      fetchersWrapped.add(new CachingFetcher<>(new CircuitBreakingFetcher<>(fetchers[i], policy,
+        Source.valueOf(i + 1), circuitCallback), FailureBackoff.NONE));
+    }
+
+    return new WaterfallCachingFetcher<>(callback, fetchersWrapped);
+
+  }
+
+  /**
+   * Expiring multi concurrent fetcher with a circuit breaker per source. When
+   * the cache expires, sources whose circuit is open fail straight away
+   * instead of taking an executor thread and their full latency.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getExpiringCircuitBreakingMultiConcurrentFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final long maxTimeMs,
+    final FetcherCircuitCallback circuitCallback, final CircuitBreakerPolicy policy,
+    final Fetcher<T>... fetchers) {
+
+    final List<NonBlockingConcurrentFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (int i = 0; i < fetchers.length; i++) {
+      fetchersWrapped.add(new NonBlockingConcurrentFetcher<>(new CircuitBreakingFetcher<>(
+        fetchers[i], policy, Source.valueOf(i + 1), circuitCallback), executorServiceFetcher));
+    }
+
+    return new ExpiringMultiConcurrentFetcher<>(maxTimeMs, fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getExpiringCircuitBreakingMultiConcurrentFetcher(
+    final long maxTimeMs, final FetcherCircuitCallback circuitCallback,
+    final CircuitBreakerPolicy policy, final Fetcher<T>... fetchers) {
+    return MultiFetchers.getExpiringCircuitBreakingMultiConcurrentFetcher(
+      Fetchers.getExecutorServiceFetcher(), maxTimeMs, circuitCallback, policy, fetchers);
+  }
+
+  /**
+   * Adaptive waterfall: sources are tried in the order minimising expected
+   * latency, from their observed success rate and latency, rather than in
+   * rank order. Responses still report each source's original rank. Failures
+   * are not cached; a failing source sinks behind the healthy ones and is only
+   * called again once they fail.
+   * <p>
+   * Only calls reaching an origin are observed, and a source keeps its value
+   * once it has fetched one, so the order only adapts while sources are cold
+   * or failing. See getAdaptiveExpiringWaterfallFetcher to keep adapting.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getAdaptiveWaterfallFetcher(
+    final FetcherErrorCallback callback, final Fetcher<T>... fetchers) {
+
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new CachingFetcher<>(fetcher, FailureBackoff.NONE));
+    }
+
+    return new WaterfallCachingFetcher<>(callback, true, fetchersWrapped);
+
+  }
+
+  /**
+   * Adaptive waterfall whose sources expire their value after maxCacheTime
+   * ms, so the source in front is called again on every expiry and the order
+   * keeps following the observed success rate and latency of the sources.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getAdaptiveExpiringWaterfallFetcher(
+    final FetcherErrorCallback callback, final int maxCacheTime, final Fetcher<T>... fetchers) {
+
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new ExpiringCachingFetcher<>(fetcher, maxCacheTime,
+        FailureBackoff.NONE));
+    }
+
+    return new WaterfallCachingFetcher<>(callback, true, fetchersWrapped);
+
+  }
+
+  /**
+   * Parallel-prefetch waterfall: while a source is awaited, the next
+   * prefetchDepth sources already run on the executor, so a fallback costs
+   * the slowest of the levels started rather than the sum of their latencies.
+   * The highest ranked success is still preferred; once maxTimeMs has passed
+   * the best value fetched so far is returned. Values fetched ahead stay
+   * cached in their source like in the plain waterfall.
+   */
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getPrefetchingWaterfallFetcher(
+    final Fetcher<ExecutorService> executorServiceFetcher, final FetcherErrorCallback callback,
+    final int prefetchDepth, final long maxTimeMs, final Fetcher<T>... fetchers) {
+
+    final List<CachingFetcher<T>> fetchersWrapped = new ArrayList<>(fetchers.length);
+
+    for (final Fetcher<T> fetcher : fetchers) {
+      fetchersWrapped.add(new CachingFetcher<>(fetcher));
+    }
+
+    return new WaterfallCachingFetcher<>(callback, prefetchDepth, maxTimeMs,
+      executorServiceFetcher, fetchersWrapped);
+
+  }
+
+  @SafeVarargs
+  public final static <T> MultiFetcher<T> getPrefetchingWaterfallFetcher(
+    final FetcherErrorCallback callback, final int prefetchDepth, final long maxTimeMs,
+    final Fetcher<T>... fetchers) {
+    return MultiFetchers.getPrefetchingWaterfallFetcher(Fetchers.getExecutorServiceFetcher(),
+      callback, prefetchDepth, maxTimeMs, fetchers);
+  }
+
 }
@@ -0,0 +1,96 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the last value of a fetcher on disk, so that a restarted process
+ * starts warm: the first fetch returns the stored value if it is younger than
+ * maxAgeMs, without calling the fetcher. Every later fetch calls the fetcher
+ * and stores what it returns, so the caching fetcher wrapping this one decides
+ * when the origin is called again, as it does without persistence. A value
+ * that cannot be stored is still returned; only the next warm start misses it.
+ * <p>
+ * A caching fetcher that never expires serves the warm value until the
+ * process restarts. An expiring one should be preloaded with preloadInto
+ * instead, so the stored value expires when it would have without the
+ * restart.
+ */
+class PersistentFetcher<T> implements Fetcher<T> {
+
+  private final Fetcher<T> fetcher;
+  private final DiskValueStore<T> store;
+  private final long maxAgeMs;
+  private final AtomicBoolean started;
+
+  /**
+   * @param fetcher origin
+   * @param file where the value is kept
+   * @param serializer
+   * @param maxAgeMs maximum age in ms of a stored value used on the first
+   *          fetch, Long.MAX_VALUE for no limit
+   */
+  public PersistentFetcher(final Fetcher<T> fetcher, final Path file,
+    final FetcherSerializer<T> serializer, final long maxAgeMs) {
+
+    if (maxAgeMs < 0) {
+      throw new IllegalArgumentException("maxAgeMs must not be negative: " + maxAgeMs);
+    }
+
+    this.fetcher = fetcher;
+    this.store = new DiskValueStore<>(file, serializer);
+    this.maxAgeMs = maxAgeMs;
+    this.started = new AtomicBoolean(false);
+
+  }
+
+  /**
+   * Preloads cache with the stored value if it is younger than maxAgeMs, with
+   * the time it was written as its load time. Later fetches always call the
+   * fetcher.
+   */
+  void preloadInto(final CachingFetcher<T> cache) {
+
+    if (!this.started.compareAndSet(false, true)) {
+      return; // already fetched
+    }
+
+    final DiskValueStore.Stored<T> stored = this.store.read();
+
+    if (stored != null) {
+      cache.preload(stored.getValue(), stored.getWrittenMillis(), this.maxAgeMs);
+    }
+
+  }
+
+  @Override
+  public T fetch() throws FetcherException {
+
+    if (this.started.compareAndSet(false, true)) {
+
+      final DiskValueStore.Stored<T> stored = this.store.read();
+
+      if ((stored != null)
+          && ((System.currentTimeMillis() - stored.getWrittenMillis()) < this.maxAgeMs)) {
+        return stored.getValue(); // warm start
+      }
+
+    }
+
+    final T value = this.fetcher.fetch();
+
+    try {
+      this.store.write(value, System.currentTimeMillis());
+    }
+    catch (final IOException | RuntimeException e) {
+      this.store.delete(); // no outdated value for the next warm start
+    }
+
+    return value;
+
+  }
+
+}
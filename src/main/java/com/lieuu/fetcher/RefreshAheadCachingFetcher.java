@@ -0,0 +1,188 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Expiring fetcher that refreshes its value in the background at a fraction of
+ * maxCacheTime, so hot values are replaced before they are ever observed as
+ * expired. Timers run on the shared scheduler while the refresh itself runs on
+ * the executor. If refreshes keep failing the value still expires after
+ * maxCacheTime and the next caller fetches inline.
+ *
+ * The scheduler holds a reference to this fetcher until it is cancelled.
+ */
+class RefreshAheadCachingFetcher<T> extends ExpiringCachingFetcher<T>
+    implements RefreshAheadFetcher<T> {
+
+  private final double maxCacheTime;
+  private final double refreshFraction;
+  private final double jitterFraction;
+
+  private final Fetcher<ScheduledExecutorService> scheduledExecutorServiceFetcher;
+  private final Fetcher<ExecutorService> executorServiceFetcher;
+
+  private final AtomicBoolean started;
+  private volatile boolean cancelled;
+  private volatile ScheduledFuture<?> scheduledRefresh;
+  private volatile long nextRefreshTime;
+  private volatile long lastRefreshDuration;
+
+  /**
+   * @param fetcher
+   * @param maxCacheTime time in ms after which the value expires
+   * @param refreshFraction fraction of maxCacheTime after which a refresh is
+   *          scheduled, in (0, 1]
+   * @param jitterFraction relative random spread applied to each refresh
+   *          delay, in [0, 1)
+   * @param scheduledExecutorServiceFetcher
+   * @param executorServiceFetcher
+   */
+  public RefreshAheadCachingFetcher(final Fetcher<T> fetcher, final double maxCacheTime,
+    final double refreshFraction, final double jitterFraction,
+    final Fetcher<ScheduledExecutorService> scheduledExecutorServiceFetcher,
+    final Fetcher<ExecutorService> executorServiceFetcher) {
+
+    super(fetcher, maxCacheTime);
+
+    if ((refreshFraction <= 0) || (refreshFraction > 1)) {
+      throw new IllegalArgumentException("refreshFraction must be in (0, 1]: " + refreshFraction);
+    }
+
+    if ((jitterFraction < 0) || (jitterFraction >= 1)) {
+      throw new IllegalArgumentException("jitterFraction must be in [0, 1): " + jitterFraction);
+    }
+
+    this.maxCacheTime = maxCacheTime;
+    this.refreshFraction = refreshFraction;
+    this.jitterFraction = jitterFraction;
+    this.scheduledExecutorServiceFetcher = scheduledExecutorServiceFetcher;
+    this.executorServiceFetcher = executorServiceFetcher;
+    this.started = new AtomicBoolean(false);
+    this.nextRefreshTime = -1;
+    this.lastRefreshDuration = -1;
+
+  }
+
+  @Override
+  public T fetch() throws FetcherException {
+
+    final T value = super.fetch();
+
+    if (!this.cancelled && this.started.compareAndSet(false, true)) {
+      this.scheduleRefresh(this.getLastClearTime()); // first load starts the cycle
+    }
+
+    return value;
+
+  }
+
+  /**
+   * Schedules the next refresh relative to when the current value was loaded,
+   * so the time a refresh takes does not push the next one past expiry.
+   */
+  private void scheduleRefresh(final long loadTime) {
+
+    final double jitter = (this.jitterFraction > 0)
+        ? ThreadLocalRandom.current().nextDouble(-this.jitterFraction, this.jitterFraction) : 0;
+    final long refreshTime = loadTime
+        + (long) (this.maxCacheTime * this.refreshFraction * (1 + jitter));
+    final long delay = Math.max(1, refreshTime - System.currentTimeMillis());
+
+    try {
+
+      this.nextRefreshTime = System.currentTimeMillis() + delay;
+      this.scheduledRefresh = this.scheduledExecutorServiceFetcher.fetch()
+          .schedule(this::submitRefresh, delay, TimeUnit.MILLISECONDS);
+
+      if (this.cancelled) {
+        this.cancel(); // lost a race with cancel()
+      }
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+      this.stopRefreshing(); // scheduler unavailable, fall back to lazy expiry
+    }
+
+  }
+
+  private void submitRefresh() {
+
+    try {
+      this.executorServiceFetcher.fetch().execute(this::runRefresh);
+    }
+    catch (final FetcherException | RuntimeException e) {
+      this.rescheduleRefresh(System.currentTimeMillis()); // executor saturated, retry later
+    }
+
+  }
+
+  private void runRefresh() {
+
+    final long startTime = System.currentTimeMillis();
+    final long startNanos = System.nanoTime();
+
+    long loadTime = startTime;
+
+    try {
+      this.refresh();
+      this.lastRefreshDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+    catch (final FetcherException | RuntimeException e) {
+      // keep the current value, it expires lazily if refreshes keep failing
+      loadTime = System.currentTimeMillis(); // retry a full period later
+    }
+    finally {
+      this.rescheduleRefresh(loadTime);
+    }
+
+  }
+
+  private void rescheduleRefresh(final long loadTime) {
+
+    if (this.cancelled) {
+      this.nextRefreshTime = -1;
+    }
+    else {
+      this.scheduleRefresh(loadTime);
+    }
+
+  }
+
+  private void stopRefreshing() {
+    this.nextRefreshTime = -1;
+    this.started.set(false);
+  }
+
+  @Override
+  public long getNextRefreshTime() {
+    return this.nextRefreshTime;
+  }
+
+  @Override
+  public long getLastRefreshDuration() {
+    return this.lastRefreshDuration;
+  }
+
+  @Override
+  public void cancel() {
+
+    this.cancelled = true;
+
+    final ScheduledFuture<?> current = this.scheduledRefresh;
+
+    if (current != null) {
+      current.cancel(false);
+    }
+
+    this.nextRefreshTime = -1;
+
+  }
+
+}
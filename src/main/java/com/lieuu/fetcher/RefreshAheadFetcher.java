@@ -0,0 +1,23 @@
+package com.lieuu.fetcher;
+
+public interface RefreshAheadFetcher<T> extends Fetcher<T> {
+
+  /**
+   * @return epoch time in ms of the next scheduled refresh, or -1 if none is
+   *         scheduled
+   */
+  public long getNextRefreshTime();
+
+  /**
+   * @return duration in ms of the last completed refresh, or -1 if no refresh
+   *         has completed yet
+   */
+  public long getLastRefreshDuration();
+
+  /**
+   * Stops scheduling refreshes. The cached value then expires lazily on the
+   * next fetch.
+   */
+  public void cancel();
+
+}
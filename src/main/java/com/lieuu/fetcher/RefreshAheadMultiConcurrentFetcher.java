@@ -0,0 +1,27 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.response.FetcherResponse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Refresh-ahead over a multi concurrent fetcher. Each refresh clears the
+ * sources' futures and races them again while readers keep getting the
+ * previously cached response.
+ */
+class RefreshAheadMultiConcurrentFetcher<T> extends RefreshAheadCachingFetcher<FetcherResponse<T>>
+    implements RefreshAheadMultiFetcher<T> {
+
+  public RefreshAheadMultiConcurrentFetcher(final BlockingMultiConcurrentFetcher<T> fetcher,
+    final double maxCacheTime, final double refreshFraction, final double jitterFraction,
+    final Fetcher<ScheduledExecutorService> scheduledExecutorServiceFetcher,
+    final Fetcher<ExecutorService> executorServiceFetcher) {
+    super(() -> {
+      fetcher.clearFuture();
+      return fetcher.fetch();
+    }, maxCacheTime, refreshFraction, jitterFraction, scheduledExecutorServiceFetcher,
+      executorServiceFetcher);
+  }
+
+}
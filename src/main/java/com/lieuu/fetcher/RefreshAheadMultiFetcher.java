@@ -0,0 +1,8 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.response.FetcherResponse;
+
+public interface RefreshAheadMultiFetcher<T>
+    extends RefreshAheadFetcher<FetcherResponse<T>>, MultiFetcher<T> {
+
+}
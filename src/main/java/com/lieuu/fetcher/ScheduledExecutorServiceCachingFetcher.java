@@ -0,0 +1,16 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+class ScheduledExecutorServiceCachingFetcher extends CachingFetcher<ScheduledExecutorService> {
+
+  public ScheduledExecutorServiceCachingFetcher() {
+    super(() -> Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "fetcher-scheduler");
+      thread.setDaemon(true); // timers only, never keep the JVM alive
+      return thread;
+    }), CacheRetention.STRONG);
+  }
+
+}
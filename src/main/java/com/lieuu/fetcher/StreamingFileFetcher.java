@@ -0,0 +1,115 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the records of a file instead of holding its content: every fetch
+ * opens the file and returns a lazily evaluated stream over it, read in chunks
+ * as the stream is consumed. A parallel stream splits the file into byte
+ * ranges at record boundaries, each read by its own thread. The stream owns
+ * the open file and must be closed, e.g. with try-with-resources.
+ */
+class StreamingFileFetcher<T> implements Fetcher<Stream<T>> {
+
+  private final Fetcher<String> fileNameFetcher;
+  private final BiFunction<FileChannel, Long, FileRecordSpliterator> spliteratorFactory;
+  private final Function<ByteBuffer, T> mapper;
+  private final boolean parallel;
+
+  /**
+   * @param fileNameFetcher
+   * @param spliteratorFactory records of the whole opened file
+   * @param mapper maps each record, called on the thread consuming it
+   * @param parallel true to return parallel streams
+   */
+  public StreamingFileFetcher(final Fetcher<String> fileNameFetcher,
+    final BiFunction<FileChannel, Long, FileRecordSpliterator> spliteratorFactory,
+    final Function<ByteBuffer, T> mapper, final boolean parallel) {
+    this.fileNameFetcher = fileNameFetcher;
+    this.spliteratorFactory = spliteratorFactory;
+    this.mapper = mapper;
+    this.parallel = parallel;
+  }
+
+  /**
+   * @return lines of an ASCII-compatible encoded file, without their line
+   *         separators
+   */
+  static Function<ByteBuffer, String> lineMapper(final Charset charset) {
+    return record -> {
+
+      final byte[] bytes = record.array();
+      final int length = ((bytes.length > 0) && (bytes[bytes.length - 1] == '\r'))
+          ? bytes.length - 1 : bytes.length;
+
+      return new String(bytes, 0, length, charset);
+
+    };
+  }
+
+  @Override
+  public Stream<T> fetch() throws FetcherException {
+
+    final FileChannel channel;
+    final long size;
+
+    try {
+      channel = FileChannel.open(Paths.get(this.fileNameFetcher.fetch()),
+        StandardOpenOption.READ);
+    }
+    catch (final IOException e) {
+      throw new FetcherException(e);
+    }
+
+    try {
+      size = channel.size(); // records appended later are not streamed
+    }
+    catch (final IOException e) {
+      StreamingFileFetcher.close(channel, e);
+      throw new FetcherException(e);
+    }
+
+    try {
+      return StreamSupport.stream(this.spliteratorFactory.apply(channel, size), this.parallel)
+          .map(this.mapper).onClose(() -> {
+
+            try {
+              channel.close();
+            }
+            catch (final IOException e) {
+              throw new UncheckedIOException(e);
+            }
+
+          });
+    }
+    catch (final RuntimeException e) {
+      StreamingFileFetcher.close(channel, e);
+      throw new FetcherException(e);
+    }
+
+  }
+
+  private static void close(final FileChannel channel, final Exception cause) {
+
+    try {
+      channel.close();
+    }
+    catch (final IOException e) {
+      cause.addSuppressed(e);
+    }
+
+  }
+
+}
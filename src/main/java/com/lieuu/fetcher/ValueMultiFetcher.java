@@ -0,0 +1,13 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+/**
+ * Multi fetcher that can also return the winning value alone, without
+ * building a response around it, for callers that ignore the source.
+ */
+interface ValueMultiFetcher<T> extends MultiFetcher<T> {
+
+  public T fetchValue() throws FetcherException;
+
+}
@@ -0,0 +1,11 @@
+package com.lieuu.fetcher;
+
+import java.util.concurrent.ExecutorService;
+
+class VirtualThreadExecutorServiceCachingFetcher extends CachingFetcher<ExecutorService> {
+
+  public VirtualThreadExecutorServiceCachingFetcher() {
+    super(() -> ExecutorServices.newVirtualThreadPerTaskExecutor(), CacheRetention.STRONG);
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches what a loader reads from a file until the shared FileWatcher reports
+ * a change to the file, so fetches of an unchanged file are pure cache hits,
+ * without touching the filesystem. Every event bumps a version; a fetch
+ * returns the cached value only if it was loaded at the current version, so
+ * an event arriving during a load is never lost. With eager reloading the new
+ * content is loaded on the executor as soon as the event arrives, and
+ * fetchers keep returning the previous value until it is in.
+ */
+class WatchingFileFetcher<T> implements Fetcher<T> {
+
+  private final Path file;
+  private final Fetcher<T> loader;
+  private final Fetcher<ExecutorService> executorServiceFetcher;
+
+  private final Object lock = new Object();
+  private final AtomicLong version;
+  private final AtomicBoolean reloadScheduled;
+
+  private volatile Loaded<T> loaded;
+
+  /**
+   * @param fileName file to watch
+   * @param loader reads the file
+   * @param executorServiceFetcher executor for eager reloads, null to reload
+   *          on the next fetch instead
+   */
+  public WatchingFileFetcher(final String fileName, final Fetcher<T> loader,
+    final Fetcher<ExecutorService> executorServiceFetcher) {
+    this.file = Paths.get(fileName).toAbsolutePath().normalize();
+    this.loader = loader;
+    this.executorServiceFetcher = executorServiceFetcher;
+    this.version = new AtomicLong(0);
+    this.reloadScheduled = new AtomicBoolean(false);
+  }
+
+  /**
+   * @return loader of the whole file as text, line separators included
+   */
+  static Fetcher<String> textLoader(final String fileName, final Charset charset) {
+    return () -> {
+
+      try {
+        return new String(Files.readAllBytes(Paths.get(fileName)), charset);
+      }
+      catch (final IOException e) {
+        throw new FetcherException(e);
+      }
+
+    };
+  }
+
+  @Override
+  public T fetch() throws FetcherException {
+
+    final Loaded<T> current = this.loaded;
+
+    if ((current != null) && ((current.version == this.version.get())
+        || (this.executorServiceFetcher != null))) {
+      return current.value; // eager reloads replace stale values in the background
+    }
+
+    return this.load();
+
+  }
+
+  private T load() throws FetcherException {
+
+    synchronized (this.lock) {
+
+      final long loadVersion = this.version.get();
+      final Loaded<T> current = this.loaded;
+
+      if ((current != null) && (current.version == loadVersion)) {
+        return current.value; // loaded by another caller meanwhile
+      }
+
+      FileWatcher.GLOBAL.register(this.file, this); // before reading, no change is missed
+
+      final T value = this.loader.fetch();
+
+      this.loaded = new Loaded<>(value, loadVersion);
+
+      return value;
+
+    }
+
+  }
+
+  /**
+   * Called by the FileWatcher on every event on the file.
+   */
+  void invalidate() {
+
+    this.version.incrementAndGet();
+
+    if ((this.executorServiceFetcher == null) || !this.reloadScheduled.compareAndSet(false, true)) {
+      return; // lazy, or a reload is already pending and will see the new version
+    }
+
+    try {
+
+      this.executorServiceFetcher.fetch().execute(() -> {
+
+        this.reloadScheduled.set(false);
+
+        try {
+          this.load();
+        }
+        catch (final FetcherException | RuntimeException e) {
+          this.loaded = null; // e.g. deleted, fail on the next fetch rather than serve stale
+        }
+
+      });
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+      this.reloadScheduled.set(false);
+      this.loaded = null;
+    }
+
+  }
+
+  private final static class Loaded<T> {
+
+    private final T value;
+    private final long version;
+
+    private Loaded(final T value, final long version) {
+      this.value = value;
+      this.version = version;
+    }
+
+  }
+
+}
@@ -2,19 +2,34 @@ package com.lieuu.fetcher;
 
 import com.lieuu.fetcher.exception.FetcherErrorCallback;
 import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
 import com.lieuu.fetcher.response.FetcherResponse;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-class WaterfallCachingFetcher<T> implements MultiFetcher<T> {
+class WaterfallCachingFetcher<T> implements ValueMultiFetcher<T> {
 
   private final static FetcherErrorCallback DEFAULT_ERROR_CALLBACK = e -> e.printStackTrace();
 
   private final int fetchersSize;
   private final FetcherErrorCallback errorCallback;
   private final List<CachingFetcher<T>> fetchers;
+  private final FetcherResponseFactory<T> responseFactory;
+  private final AdaptiveSourceOrder adaptiveOrder;
+
+  private final int prefetchDepth;
+  private final long maxTimeNanos;
+  private final Fetcher<ExecutorService> executorServiceFetcher;
+  private final AtomicReferenceArray<CompletableFuture<T>> prefetches;
 
   @SafeVarargs
   public WaterfallCachingFetcher(final CachingFetcher<T>... fetchers) {
@@ -33,9 +48,62 @@ class WaterfallCachingFetcher<T> implements MultiFetcher<T> {
 
   public WaterfallCachingFetcher(final FetcherErrorCallback errorCallback,
     final List<CachingFetcher<T>> fetchers) {
+    this(errorCallback, false, fetchers);
+  }
+
+  /**
+   * @param errorCallback
+   * @param adaptive if true, sources are tried in the order minimising the
+   *          expected latency given their observed success rate and latency,
+   *          instead of rank order; responses still carry the original rank
+   * @param fetchers
+   */
+  public WaterfallCachingFetcher(final FetcherErrorCallback errorCallback,
+    final boolean adaptive, final List<CachingFetcher<T>> fetchers) {
+    this.fetchers = Collections.unmodifiableList(fetchers);
+    this.errorCallback = errorCallback;
+    this.fetchersSize = fetchers.size();
+    this.responseFactory = new FetcherResponseFactory<>(this.fetchersSize);
+    this.adaptiveOrder = adaptive ? new AdaptiveSourceOrder(this.fetchersSize) : null;
+    this.prefetchDepth = 0;
+    this.maxTimeNanos = 0;
+    this.executorServiceFetcher = null;
+    this.prefetches = null;
+  }
+
+  /**
+   * Parallel-prefetch waterfall: while a source is awaited, the next
+   * prefetchDepth sources already run on the executor, so falling back costs
+   * the slowest of them rather than the sum of their latencies. The highest
+   * ranked success still wins.
+   *
+   * @param errorCallback
+   * @param prefetchDepth number of lower ranked sources started ahead, at least
+   *          1
+   * @param maxTimeMs time in ms after which the best value already fetched is
+   *          returned, or a FetcherNotReadyException thrown if there is none
+   * @param executorServiceFetcher executor running the sources
+   * @param fetchers
+   */
+  public WaterfallCachingFetcher(final FetcherErrorCallback errorCallback,
+    final int prefetchDepth, final double maxTimeMs,
+    final Fetcher<ExecutorService> executorServiceFetcher,
+    final List<CachingFetcher<T>> fetchers) {
+
+    if (prefetchDepth < 1) {
+      throw new IllegalArgumentException("prefetchDepth must be at least 1: " + prefetchDepth);
+    }
+
     this.fetchers = Collections.unmodifiableList(fetchers);
     this.errorCallback = errorCallback;
     this.fetchersSize = fetchers.size();
+    this.responseFactory = new FetcherResponseFactory<>(this.fetchersSize);
+    this.adaptiveOrder = null;
+    this.prefetchDepth = prefetchDepth;
+    this.maxTimeNanos = (long) (maxTimeMs * 1000 * 1000);
+    this.executorServiceFetcher = executorServiceFetcher;
+    this.prefetches = new AtomicReferenceArray<>(this.fetchersSize);
+
   }
 
   @Override
@@ -45,12 +113,20 @@ class WaterfallCachingFetcher<T> implements MultiFetcher<T> {
       throw new FetcherException("Number of fetchers was zero!");
     }
 
+    if (this.adaptiveOrder != null) {
+      return this.fetchAdaptive();
+    }
+
+    if (this.prefetches != null) {
+      return this.fetchPrefetching();
+    }
+
     for (int i = 0; i < (this.fetchersSize - 1); i++) {
 
       final CachingFetcher<T> fetcher = this.fetchers.get(i);
 
       try {
-        return FetcherResponseFactory.getFetcherResponse(i + 1, fetcher.fetch());
+        return this.responseFactory.getCachedFetcherResponse(i + 1, fetcher.fetch());
       }
       catch (final FetcherException e) {
         this.errorCallback.onError(e);
@@ -58,9 +134,260 @@ class WaterfallCachingFetcher<T> implements MultiFetcher<T> {
 
     }
 
-    return FetcherResponseFactory.getFetcherResponse(this.fetchers.size(),
+    return this.responseFactory.getCachedFetcherResponse(this.fetchers.size(),
       this.fetchers.get(this.fetchersSize - 1).fetch());
 
   }
 
+  @Override
+  public T fetchValue() throws FetcherException {
+
+    if (this.fetchersSize == 0) {
+      throw new FetcherException("Number of fetchers was zero!");
+    }
+
+    if (this.adaptiveOrder != null) {
+      return this.fetchAdaptive().value(); // cached response, no allocation
+    }
+
+    if (this.prefetches != null) {
+      return this.fetchPrefetching().value();
+    }
+
+    for (int i = 0; i < (this.fetchersSize - 1); i++) {
+
+      try {
+        return this.fetchers.get(i).fetch();
+      }
+      catch (final FetcherException e) {
+        this.errorCallback.onError(e);
+      }
+
+    }
+
+    return this.fetchers.get(this.fetchersSize - 1).fetch();
+
+  }
+
+  /**
+   * Tries the sources in the current adaptive order, recording the outcome
+   * and duration of every attempt that reached the origin. Cache hits and
+   * cached failures say nothing about the origin and are not recorded, but
+   * still end an exploration of their source.
+   */
+  private FetcherResponse<T> fetchAdaptive() throws FetcherException {
+
+    final int[] order = this.adaptiveOrder.getOrder();
+
+    for (int k = 0; k < order.length; k++) {
+
+      final int i = order[k];
+      final CachingFetcher<T> fetcher = this.fetchers.get(i);
+      final long originCalls = fetcher.getOriginCalls();
+      final long startTime = System.nanoTime();
+
+      try {
+
+        final T value = fetcher.fetch();
+
+        if (fetcher.getOriginCalls() != originCalls) {
+          this.adaptiveOrder.record(i, true, System.nanoTime() - startTime);
+        }
+
+        return this.responseFactory.getCachedFetcherResponse(i + 1, value);
+
+      }
+      catch (final FetcherException e) {
+
+        if (fetcher.getOriginCalls() != originCalls) {
+          this.adaptiveOrder.record(i, false, System.nanoTime() - startTime);
+        }
+
+        if (k == (order.length - 1)) {
+          throw e;
+        }
+
+        this.errorCallback.onError(e);
+
+      }
+      finally {
+        this.adaptiveOrder.endExploration(i);
+      }
+
+    }
+
+    throw new FetcherException("Number of fetchers was zero!"); // unreachable
+
+  }
+
+  /**
+   * @return the sources in rank order
+   */
+  List<CachingFetcher<T>> getFetchers() {
+    return this.fetchers;
+  }
+
+  /**
+   * Awaits the sources in rank order while the next prefetchDepth sources run
+   * ahead on the executor. Sources in front that are cached, or whose failure
+   * is cached and backing off, are answered on the calling thread, so the
+   * executor is only used from the first source that has to be fetched.
+   * Prefetched values left unused stay cached in their source for later
+   * fetches.
+   */
+  private FetcherResponse<T> fetchPrefetching() throws FetcherException {
+
+    int first = 0;
+
+    while (first < this.fetchersSize) {
+
+      final CachingFetcher<T> fetcher = this.fetchers.get(first);
+      final T cached = fetcher.getCachedObject();
+
+      if (cached != null) {
+        return this.responseFactory.getCachedFetcherResponse(first + 1, cached); // no executor
+      }
+
+      final FetcherException backoff = fetcher.getBackoffException();
+
+      if (backoff == null) {
+        break; // has to be fetched
+      }
+
+      if (first == (this.fetchersSize - 1)) {
+        throw backoff;
+      }
+
+      this.errorCallback.onError(backoff);
+      first++;
+
+    }
+
+    final List<CompletableFuture<T>> futures = new ArrayList<>(this.fetchersSize - first);
+    final long deadline = System.nanoTime() + this.maxTimeNanos;
+
+    for (int i = first; i < this.fetchersSize; i++) {
+
+      while (((first + futures.size()) < this.fetchersSize)
+          && ((first + futures.size()) <= (i + this.prefetchDepth))) {
+        futures.add(this.prefetch(first + futures.size()));
+      }
+
+      try {
+
+        final T value = futures.get(i - first).get(Math.max(0, deadline - System.nanoTime()),
+          TimeUnit.NANOSECONDS);
+
+        return this.responseFactory.getCachedFetcherResponse(i + 1, value);
+
+      }
+      catch (final ExecutionException e) {
+
+        final FetcherException cause = (e.getCause() instanceof FetcherException)
+            ? (FetcherException) e.getCause() : new FetcherException(e.getCause());
+
+        if (i == (this.fetchersSize - 1)) {
+          throw cause;
+        }
+
+        this.errorCallback.onError(cause);
+
+      }
+      catch (final TimeoutException e) {
+        return this.getFirstCompleted(futures, first, e);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+    }
+
+    throw new FetcherException("Number of fetchers was zero!"); // unreachable
+
+  }
+
+  /**
+   * @return the running fetch of source i, or a newly started one; a single
+   *         fetch per source runs at a time whatever the number of callers.
+   *         Sources that are cached, or backing off from a failure, are not
+   *         submitted.
+   */
+  private CompletableFuture<T> prefetch(final int i) {
+
+    final CompletableFuture<T> running = this.prefetches.get(i);
+
+    if (running != null) {
+      return running;
+    }
+
+    final CachingFetcher<T> fetcher = this.fetchers.get(i);
+    final T cached = fetcher.getCachedObject();
+
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    final FetcherException backoff = fetcher.getBackoffException();
+    final CompletableFuture<T> created = new CompletableFuture<>();
+
+    if (backoff != null) {
+      created.completeExceptionally(backoff);
+      return created;
+    }
+
+    if (!this.prefetches.compareAndSet(i, null, created)) {
+      return this.prefetch(i); // another caller started it
+    }
+
+    try {
+
+      this.executorServiceFetcher.fetch().execute(() -> {
+
+        try {
+          created.complete(this.fetchers.get(i).fetch());
+        }
+        catch (final Throwable e) {
+          created.completeExceptionally(e);
+        }
+        finally {
+          this.prefetches.compareAndSet(i, created, null);
+        }
+
+      });
+
+    }
+    catch (final FetcherException | RuntimeException e) {
+      created.completeExceptionally(ExecutorServices.submitException(e));
+      this.prefetches.compareAndSet(i, created, null);
+    }
+
+    return created;
+
+  }
+
+  /**
+   * @param first index of the source of the first future
+   * @return the highest ranked value already fetched once the deadline has
+   *         passed
+   * @throws FetcherNotReadyException if none of the started sources has a
+   *           value yet
+   */
+  private FetcherResponse<T> getFirstCompleted(final List<CompletableFuture<T>> futures,
+    final int first, final TimeoutException timeout) throws FetcherException {
+
+    for (int k = 0; k < futures.size(); k++) {
+
+      final CompletableFuture<T> future = futures.get(k);
+
+      if (future.isDone() && !future.isCompletedExceptionally()) {
+        return this.responseFactory.getCachedFetcherResponse(first + k + 1,
+          future.getNow(null));
+      }
+
+    }
+
+    throw new FetcherNotReadyException(timeout);
+
+  }
+
 }
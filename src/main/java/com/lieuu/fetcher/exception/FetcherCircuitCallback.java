@@ -0,0 +1,19 @@
+package com.lieuu.fetcher.exception;
+
+import com.lieuu.fetcher.response.source.Source;
+
+public interface FetcherCircuitCallback {
+
+  /**
+   * Called when the circuit breaker of a source changes state, after the
+   * change.
+   *
+   * @param source rank of the source in its multi fetcher, UNKNOWN for a
+   *          standalone circuit breaker
+   * @param previous state before the change
+   * @param current state after the change
+   */
+  public void onStateChange(final Source source, final FetcherCircuitState previous,
+    final FetcherCircuitState current);
+
+}
@@ -0,0 +1,17 @@
+package com.lieuu.fetcher.exception;
+
+public class FetcherCircuitOpenException extends FetcherException {
+
+  private static final long serialVersionUID = 6420517319880264731L;
+
+  /**
+   * FetcherException thrown without calling the underlying fetcher while its
+   * circuit breaker is open.
+   *
+   * @param string reason the call was not permitted
+   */
+  public FetcherCircuitOpenException(final String string) {
+    super(string);
+  }
+
+}
@@ -0,0 +1,21 @@
+package com.lieuu.fetcher.exception;
+
+public enum FetcherCircuitState {
+
+  /**
+   * Calls go through and their outcomes are recorded.
+   */
+  CLOSED,
+
+  /**
+   * Calls fail straight away with a FetcherCircuitOpenException.
+   */
+  OPEN,
+
+  /**
+   * A single trial call goes through; its outcome closes or reopens the
+   * circuit.
+   */
+  HALF_OPEN
+
+}
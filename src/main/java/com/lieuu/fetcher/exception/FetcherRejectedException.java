@@ -0,0 +1,19 @@
+package com.lieuu.fetcher.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+public class FetcherRejectedException extends FetcherException {
+
+  private static final long serialVersionUID = 3120785245193742719L;
+
+  /**
+   * FetcherException to wrap RejectedExecutionException when a bounded
+   * executor refuses a concurrent fetch() because it is saturated.
+   *
+   * @param val RejectedExecutionException thrown by the executor
+   */
+  public FetcherRejectedException(final RejectedExecutionException val) {
+    super(val);
+  }
+
+}
@@ -1,33 +1,171 @@
 package com.lieuu.fetcher.response.source;
 
-public enum Source {
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-  FIRST(1), SECOND(2), THIRD(3), FOURTH(4), FIFTH(5), SIXTH(6), SEVENTH(7), EIGHTH(8), NINTH(
-    9), TENTH(10), ELEVENTH(11), TWELFTH(12), THIRTEENTH(13), FOURTEENTH(14), FIFTEENTH(
-    15), SIXTEENTH(16), SEVENTEENTH(17), EIGHTEENTH(18), NINETEENTH(19), TWENTIETH(20), UNKNOWN(-1);
+/**
+ * Position of a fetcher within a multi fetcher, ranked from 1. Instances are
+ * interned per rank, so valueOf does not allocate once a rank has been seen and
+ * identity comparison keeps working as it did for the former enum. Ranks up
+ * to DENSE_RANKS are looked up in an array indexed by rank, larger ones in a
+ * map, so any positive int is a valid rank. The first twenty keep their names.
+ * <p>
+ * Source was an enum before 2.0. name, ordinal, values and valueOf(String)
+ * behave as they did for the former constants; switch statements and
+ * EnumMap or EnumSet keys have to move to getRank or a plain map.
+ */
+public final class Source implements Comparable<Source>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final static int DENSE_RANKS = 1024;
+
+  private final static AtomicReferenceArray<Source> DENSE = new AtomicReferenceArray<>(
+    Source.DENSE_RANKS + 1);
+  private final static Map<Integer, Source> SPARSE = new ConcurrentHashMap<>();
+
+  public final static Source FIRST = Source.named(1, "FIRST");
+  public final static Source SECOND = Source.named(2, "SECOND");
+  public final static Source THIRD = Source.named(3, "THIRD");
+  public final static Source FOURTH = Source.named(4, "FOURTH");
+  public final static Source FIFTH = Source.named(5, "FIFTH");
+  public final static Source SIXTH = Source.named(6, "SIXTH");
+  public final static Source SEVENTH = Source.named(7, "SEVENTH");
+  public final static Source EIGHTH = Source.named(8, "EIGHTH");
+  public final static Source NINTH = Source.named(9, "NINTH");
+  public final static Source TENTH = Source.named(10, "TENTH");
+  public final static Source ELEVENTH = Source.named(11, "ELEVENTH");
+  public final static Source TWELFTH = Source.named(12, "TWELFTH");
+  public final static Source THIRTEENTH = Source.named(13, "THIRTEENTH");
+  public final static Source FOURTEENTH = Source.named(14, "FOURTEENTH");
+  public final static Source FIFTEENTH = Source.named(15, "FIFTEENTH");
+  public final static Source SIXTEENTH = Source.named(16, "SIXTEENTH");
+  public final static Source SEVENTEENTH = Source.named(17, "SEVENTEENTH");
+  public final static Source EIGHTEENTH = Source.named(18, "EIGHTEENTH");
+  public final static Source NINETEENTH = Source.named(19, "NINETEENTH");
+  public final static Source TWENTIETH = Source.named(20, "TWENTIETH");
+  public final static Source UNKNOWN = new Source(-1, "UNKNOWN");
+
+  private final static Source[] NAMED = { Source.FIRST, Source.SECOND, Source.THIRD,
+    Source.FOURTH, Source.FIFTH, Source.SIXTH, Source.SEVENTH, Source.EIGHTH, Source.NINTH,
+    Source.TENTH, Source.ELEVENTH, Source.TWELFTH, Source.THIRTEENTH, Source.FOURTEENTH,
+    Source.FIFTEENTH, Source.SIXTEENTH, Source.SEVENTEENTH, Source.EIGHTEENTH,
+    Source.NINETEENTH, Source.TWENTIETH, Source.UNKNOWN };
 
   private final int rank;
+  private final String name;
 
-  Source(final int rank) {
+  private Source(final int rank, final String name) {
     this.rank = rank;
+    this.name = name;
+  }
+
+  private static Source named(final int rank, final String name) {
+
+    final Source source = new Source(rank, name);
+
+    Source.DENSE.set(rank, source);
+
+    return source;
+
   }
 
+  /**
+   * @param rank 1-based position of the fetcher
+   * @return the interned source for rank, or UNKNOWN if rank is not positive
+   */
   public final static Source valueOf(final int rank) {
 
-    for (final Source src : Source.values()) {
-      if (rank == src.getRank()) {
-        return src;
+    if (rank <= 0) {
+      return Source.UNKNOWN;
+    }
+
+    if (rank > Source.DENSE_RANKS) {
+      return Source.SPARSE.computeIfAbsent(rank, r -> new Source(r, "SOURCE_" + r));
+    }
+
+    final Source source = Source.DENSE.get(rank);
+
+    if (source != null) {
+      return source;
+    }
+
+    final Source created = new Source(rank, "SOURCE_" + rank);
+
+    return Source.DENSE.compareAndSet(rank, null, created) ? created : Source.DENSE.get(rank);
+
+  }
+
+  /**
+   * @param name as returned by name(), e.g. FIRST or SOURCE_30
+   * @return the interned source of that name
+   * @throws IllegalArgumentException if no source has that name
+   */
+  public final static Source valueOf(final String name) {
+
+    if (name == null) {
+      throw new NullPointerException("Name is null");
+    }
+
+    for (final Source source : Source.NAMED) {
+      if (source.name.equals(name)) {
+        return source;
       }
     }
 
-    return UNKNOWN;
+    if (name.startsWith("SOURCE_")) {
+
+      try {
+
+        final Source source = Source.valueOf(Integer.parseInt(name.substring(7)));
+
+        if (source.name.equals(name)) {
+          return source;
+        }
 
+      }
+      catch (final NumberFormatException e) {
+        // not a rank, falls through
+      }
+
+    }
+
+    throw new IllegalArgumentException("No source named " + name);
+
+  }
+
+  /**
+   * @return the named sources FIRST to TWENTIETH and UNKNOWN, in the order of
+   *         the former enum constants
+   */
+  public final static Source[] values() {
+    return Source.NAMED.clone();
   }
 
   public final int getRank() {
     return this.rank;
   }
 
+  public final String name() {
+    return this.name;
+  }
+
+  /**
+   * @return the ordinal of the former enum constant, rank - 1 for FIRST to
+   *         TWENTIETH and 20 for UNKNOWN; later ranks continue from 21
+   */
+  public final int ordinal() {
+
+    if (this.rank <= 0) {
+      return Source.NAMED.length - 1;
+    }
+
+    return (this.rank < Source.NAMED.length) ? this.rank - 1 : this.rank;
+
+  }
+
   public final boolean isBefore(final Source other) {
     return this.rank < other.getRank();
   }
@@ -48,4 +186,29 @@ public enum Source {
     return this.rank >= other.getRank();
   }
 
+  @Override
+  public final int compareTo(final Source other) {
+    return Integer.compare(this.rank, other.getRank());
+  }
+
+  @Override
+  public final boolean equals(final Object other) {
+    return (this == other)
+        || ((other instanceof Source) && (this.rank == ((Source) other).getRank()));
+  }
+
+  @Override
+  public final int hashCode() {
+    return this.rank;
+  }
+
+  @Override
+  public final String toString() {
+    return this.name;
+  }
+
+  private Object readResolve() {
+    return Source.valueOf(this.rank);
+  }
+
 }
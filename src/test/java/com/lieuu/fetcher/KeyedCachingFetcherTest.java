@@ -0,0 +1,224 @@
+package com.lieuu.fetcher;
+
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KeyedCachingFetcherTest {
+
+  @Test
+  public void keyedCachingFetcherTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final KeyedFetcher<Integer, String> fetcher = KeyedFetchers.getCachingFetcher(key -> {
+      count.incrementAndGet();
+      return "value" + key;
+    }, 100);
+
+    try {
+
+      for (int i = 0; i < 5; i++) {
+        Assert.assertEquals("value1", fetcher.fetch(1));
+        Assert.assertEquals("value2", fetcher.fetch(2));
+      }
+
+      Assertions.assertThat(count.get()).isEqualTo(2);
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void keyedCachingFetcherNullTest() {
+
+    final KeyedFetcher<Integer, String> fetcher = KeyedFetchers.getCachingFetcher(key -> null,
+      100);
+
+    try {
+      fetcher.fetch(1);
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getCause()).isInstanceOf(NullPointerException.class);
+    }
+
+  }
+
+  @Test
+  public void keyedCachingFetcherExceptionNotCachedTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final KeyedFetcher<Integer, String> fetcher = KeyedFetchers.getCachingFetcher(key -> {
+
+      if (count.incrementAndGet() == 1) {
+        throw new FetcherException("transient");
+      }
+
+      return "value" + key;
+
+    }, 100);
+
+    try {
+      fetcher.fetch(1);
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getMessage()).contains("transient");
+    }
+
+    try {
+      Assert.assertEquals("value1", fetcher.fetch(1));
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void keyedCachingFetcherSingleFlightTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final KeyedFetcher<Integer, Integer> fetcher = KeyedFetchers.getCachingFetcher(key -> {
+
+      try {
+        Thread.sleep(200);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return count.incrementAndGet();
+
+    }, 100);
+
+    final ExecutorService exec = Executors.newFixedThreadPool(32);
+    final List<Future<Integer>> futures = new ArrayList<>();
+
+    for (int i = 0; i < 32; i++) {
+      futures.add(exec.submit(() -> fetcher.fetch(7)));
+    }
+
+    try {
+
+      for (final Future<Integer> future : futures) {
+        Assertions.assertThat(future.get()).isEqualTo(1);
+      }
+
+    }
+    catch (InterruptedException | ExecutionException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      exec.shutdown();
+    }
+
+    Assertions.assertThat(count.get()).isEqualTo(1);
+
+  }
+
+  @Test
+  public void keyedCachingFetcherEvictionTest() {
+
+    final int maxSize = 100;
+
+    final KeyedCachingFetcher<Integer, String> fetcher = new KeyedCachingFetcher<>(
+      key -> "value" + key, maxSize);
+
+    try {
+
+      for (int i = 0; i < (maxSize * 100); i++) {
+
+        Assert.assertEquals("value" + i, fetcher.fetch(i));
+        Assert.assertEquals("value0", fetcher.fetch(0)); // keep one key hot
+
+        Assertions.assertThat(fetcher.size()).isLessThanOrEqualTo(maxSize);
+
+      }
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void keyedExpiringCachingFetcherTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final KeyedFetcher<String, Integer> fetcher = KeyedFetchers.getExpiringCachingFetcher(
+      key -> count.incrementAndGet(), 100, 50);
+
+    try {
+
+      Assertions.assertThat(fetcher.fetch("a")).isEqualTo(1);
+      Assertions.assertThat(fetcher.fetch("a")).isEqualTo(1);
+
+      Thread.sleep(200);
+
+      Assertions.assertThat(fetcher.fetch("a")).isEqualTo(2);
+      Assertions.assertThat(fetcher.fetch("a")).isEqualTo(2);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void keyedWaterfallFetcherTest() {
+
+    final KeyedMultiFetcher<Integer, String> fetcher = KeyedMultiFetchers.getWaterfallFetcher(
+      e -> Assertions.assertThat(e.getMessage()).contains("odd key"), 100, key -> {
+
+        if ((key % 2) != 0) {
+          throw new FetcherException("odd key");
+        }
+
+        return "primary" + key;
+
+      }, key -> "backup" + key);
+
+    try {
+
+      final FetcherResponse<String> even = fetcher.fetch(2);
+      final FetcherResponse<String> odd = fetcher.fetch(3);
+
+      Assert.assertEquals("primary2", even.value());
+      Assert.assertEquals(Source.FIRST, even.source());
+      Assert.assertEquals("backup3", odd.value());
+      Assert.assertEquals(Source.SECOND, odd.source());
+
+      Assert.assertEquals("backup3", KeyedFetchers.getWaterfallFetcher(e -> {
+      }, 100, (KeyedFetcher<Integer, String>) key -> {
+        throw new FetcherException("down");
+      }, key -> "backup" + key).fetch(3));
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
@@ -0,0 +1,48 @@
+package com.lieuu.fetcher;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+  @Test
+  public void percentileTest() {
+
+    final LatencyRecorder recorder = new LatencyRecorder(100, 0.9, 10);
+
+    for (int i = 1; i < 10; i++) {
+      recorder.record(i);
+    }
+
+    Assert.assertEquals(-1, recorder.getPercentile()); // not enough samples
+
+    recorder.record(10);
+
+    Assert.assertEquals(9, recorder.getPercentile()); // computed once known
+
+    for (int i = 11; i <= 25; i++) {
+      recorder.record(i);
+    }
+
+    Assert.assertEquals(9, recorder.getPercentile()); // not recomputed on every sample
+
+    recorder.record(26);
+
+    Assert.assertEquals(24, recorder.getPercentile());
+
+  }
+
+  @Test
+  public void windowTest() {
+
+    final LatencyRecorder recorder = new LatencyRecorder(16, 1, 1);
+
+    for (int i = 0; i < 64; i++) {
+      recorder.record((i < 32) ? 1000 : 1);
+    }
+
+    Assert.assertEquals(1, recorder.getPercentile()); // old samples left the window
+
+  }
+
+}
@@ -0,0 +1,260 @@
+package com.lieuu.fetcher.async;
+
+import com.lieuu.fetcher.AsyncFetcher;
+import com.lieuu.fetcher.AsyncFetchers;
+import com.lieuu.fetcher.AsyncMultiFetchers;
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncFetcherTest {
+
+  private static <T> AsyncFetcher<T> delayed(final T value, final long delayMs) {
+
+    return () -> {
+
+      final CompletableFuture<T> future = new CompletableFuture<>();
+
+      try {
+        Fetchers.getScheduledExecutorServiceFetcher().fetch().schedule(
+          () -> future.complete(value), delayMs, TimeUnit.MILLISECONDS);
+      }
+      catch (final FetcherException e) {
+        future.completeExceptionally(e);
+      }
+
+      return future;
+
+    };
+
+  }
+
+  private static <T> AsyncFetcher<T> failing(final String message) {
+
+    return () -> {
+      final CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(new FetcherException(message));
+      return future;
+    };
+
+  }
+
+  @Test
+  public void asyncAdapterRoundTripTest() {
+
+    final Fetcher<String> fetcher = AsyncFetchers.getBlockingFetcher(
+      AsyncFetchers.getAsyncFetcher(() -> "test"));
+
+    try {
+      Assert.assertEquals("test", fetcher.fetch());
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void asyncAdapterExceptionTest() {
+
+    final Fetcher<String> fetcher = AsyncFetchers.getBlockingFetcher(
+      AsyncFetchers.getAsyncFetcher(() -> {
+        throw new FetcherException("failed");
+      }));
+
+    try {
+      fetcher.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getMessage()).contains("failed");
+    }
+
+  }
+
+  @Test
+  public void asyncCachingFetcherTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final AsyncFetcher<Integer> fetcher = AsyncFetchers.getCachingFetcher(
+      () -> AsyncFetcherTest.delayed(count.incrementAndGet(), 100).fetchAsync());
+
+    final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+    for (int i = 0; i < 50; i++) {
+      futures.add(fetcher.fetchAsync().toCompletableFuture());
+    }
+
+    for (final CompletableFuture<Integer> future : futures) {
+      Assertions.assertThat(future.join()).isEqualTo(1);
+    }
+
+    Assertions.assertThat(count.get()).isEqualTo(1);
+
+  }
+
+  @Test
+  public void asyncCachingFetcherCallerIsolationTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final AsyncFetcher<Integer> fetcher = AsyncFetchers.getCachingFetcher(
+      () -> AsyncFetcherTest.delayed(count.incrementAndGet(), 100).fetchAsync());
+
+    final CompletableFuture<Integer> cancelled = fetcher.fetchAsync().toCompletableFuture();
+    final CompletableFuture<Integer> completed = fetcher.fetchAsync().toCompletableFuture();
+    final CompletableFuture<Integer> other = fetcher.fetchAsync().toCompletableFuture();
+
+    cancelled.cancel(true);
+    completed.complete(42);
+
+    Assertions.assertThat(other.join()).isEqualTo(1); // unaffected by the other callers
+    Assertions.assertThat(fetcher.fetchAsync().toCompletableFuture().join()).isEqualTo(1);
+    Assertions.assertThat(count.get()).isEqualTo(1);
+
+    final AsyncFetcher<String> waterfall = AsyncFetchers.getWaterfallFetcher(e -> {
+    }, AsyncFetcherTest.delayed("first", 100), AsyncFetcherTest.delayed("second", 0));
+
+    waterfall.fetchAsync().toCompletableFuture().cancel(true);
+
+    Assertions.assertThat(waterfall.fetchAsync().toCompletableFuture().join()).isEqualTo("first");
+
+  }
+
+  @Test
+  public void asyncExpiringCachingFetcherTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final AsyncFetcher<Integer> fetcher = AsyncFetchers.getExpiringCachingFetcher(
+      () -> CompletableFuture.completedFuture(count.incrementAndGet()), 50);
+
+    try {
+
+      Assertions.assertThat(fetcher.fetchAsync().toCompletableFuture().join()).isEqualTo(1);
+      Assertions.assertThat(fetcher.fetchAsync().toCompletableFuture().join()).isEqualTo(1);
+
+      Thread.sleep(200);
+
+      Assertions.assertThat(fetcher.fetchAsync().toCompletableFuture().join()).isEqualTo(2);
+
+    }
+    catch (final InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void asyncWaterfallFetcherTest() {
+
+    final AsyncFetcher<String> fetcher = AsyncFetchers.getWaterfallFetcher(
+      e -> Assertions.assertThat(e.getMessage()).contains("should never reach here!"),
+      AsyncFetcherTest.failing("should never reach here!"), AsyncFetcherTest.delayed("test", 50),
+      AsyncFetcherTest.failing("should never reach here!"));
+
+    Assert.assertEquals("test", fetcher.fetchAsync().toCompletableFuture().join());
+    Assert.assertEquals("test", fetcher.fetchAsync().toCompletableFuture().join());
+
+  }
+
+  @Test
+  public void asyncWaterfallAllFailingTest() {
+
+    final AsyncFetcher<String> fetcher = AsyncFetchers.getWaterfallFetcher(e -> {
+    }, AsyncFetcherTest.failing("should never reach here!"), AsyncFetcherTest.failing(
+      "should reach here!"));
+
+    try {
+      fetcher.fetchAsync().toCompletableFuture().get();
+      Assert.fail();
+    }
+    catch (final ExecutionException e) {
+      Assertions.assertThat(e.getCause()).isInstanceOf(FetcherException.class);
+      Assertions.assertThat(e.getCause().getMessage()).contains("should reach here!");
+    }
+    catch (final InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void asyncMultiConcurrentFanOutTest() {
+
+    final int numFetchers = 50;
+
+    @SuppressWarnings ("unchecked")
+    final AsyncFetcher<Integer>[] fetchers = new AsyncFetcher[numFetchers];
+
+    for (int i = 0; i < numFetchers; i++) {
+      fetchers[i] = AsyncFetcherTest.delayed(i, 500 - (i * 5));
+    }
+
+    final CompletableFuture<FetcherResponse<Integer>> future = AsyncMultiFetchers
+        .getMultiConcurrentFetcher(fetchers).fetchAsync().toCompletableFuture();
+
+    final FetcherResponse<Integer> response = future.join();
+
+    Assertions.assertThat(response.value()).isEqualTo(numFetchers - 1);
+
+  }
+
+  @Test
+  public void asyncMultiConcurrentRankingTest() {
+
+    final AsyncFetcher<String> fetcher = AsyncFetchers.getMultiConcurrentFetcher(
+      AsyncFetcherTest.delayed("first", 300), AsyncFetcherTest.failing("second"),
+      AsyncFetcherTest.delayed("third", 50));
+
+    try {
+
+      Assert.assertEquals("third", fetcher.fetchAsync().toCompletableFuture().join());
+
+      Thread.sleep(500);
+
+      Assert.assertEquals("first", fetcher.fetchAsync().toCompletableFuture().join());
+      Assert.assertEquals(Source.FIRST, AsyncMultiFetchers.getMultiConcurrentFetcher(
+        AsyncFetcherTest.delayed("first", 0)).fetchAsync().toCompletableFuture().join().source());
+
+    }
+    catch (final InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void asyncMultiConcurrentTimeoutTest() {
+
+    final AsyncFetcher<String> fetcher = AsyncFetchers.getMultiConcurrentFetcher(100,
+      AsyncFetcherTest.delayed("slow", 2000));
+
+    try {
+      fetcher.fetchAsync().toCompletableFuture().get();
+      Assert.fail();
+    }
+    catch (final ExecutionException e) {
+      Assertions.assertThat(e.getCause()).isInstanceOf(FetcherNotReadyException.class);
+    }
+    catch (final InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
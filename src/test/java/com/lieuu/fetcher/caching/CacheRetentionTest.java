@@ -0,0 +1,197 @@
+package com.lieuu.fetcher.caching;
+
+import com.lieuu.fetcher.CacheRetention;
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheRetentionTest {
+
+  private static Fetcher<byte[]> countingFetcher(final AtomicInteger count, final int size) {
+    return () -> {
+      count.incrementAndGet();
+      return new byte[size];
+    };
+  }
+
+  private static void collectGarbage() throws InterruptedException {
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void strongRetentionTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<byte[]> strong = Fetchers
+        .getRetentionCachingFetcher(CacheRetentionTest.countingFetcher(count, 1024),
+          CacheRetention.STRONG);
+
+    try {
+
+      strong.fetch();
+
+      CacheRetentionTest.collectGarbage();
+
+      strong.fetch();
+
+      Assertions.assertThat(count.get()).isEqualTo(1);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void weakRetentionTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<byte[]> weak = Fetchers
+        .getRetentionCachingFetcher(CacheRetentionTest.countingFetcher(count, 1024),
+          CacheRetention.WEAK);
+
+    try {
+
+      weak.fetch(); // not referenced past this line
+
+      CacheRetentionTest.collectGarbage();
+
+      weak.fetch();
+
+      Assertions.assertThat(count.get()).isEqualTo(2);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void memoryBudgetTest() {
+
+    final long budget = Fetchers.getCacheMemoryBudget();
+    final long evictions = Fetchers.getCacheMemoryEvictions();
+
+    final AtomicInteger countA = new AtomicInteger(0);
+    final AtomicInteger countB = new AtomicInteger(0);
+    final AtomicInteger countC = new AtomicInteger(0);
+
+    final Fetcher<byte[]> a = Fetchers.getMemoryBudgetedCachingFetcher(
+      CacheRetentionTest.countingFetcher(countA, 400), value -> value.length);
+    final Fetcher<byte[]> b = Fetchers.getMemoryBudgetedCachingFetcher(
+      CacheRetentionTest.countingFetcher(countB, 400), value -> value.length);
+    final Fetcher<byte[]> c = Fetchers.getMemoryBudgetedCachingFetcher(
+      CacheRetentionTest.countingFetcher(countC, 400), value -> value.length);
+
+    try {
+
+      Fetchers.setCacheMemoryBudget(0); // release values left by other fetchers
+      Fetchers.setCacheMemoryBudget(1000);
+
+      a.fetch();
+      Thread.sleep(5);
+      b.fetch();
+      Thread.sleep(5);
+      a.fetch(); // b is now the least recently read
+      Thread.sleep(5);
+      c.fetch(); // over budget, b is released
+
+      a.fetch();
+      c.fetch();
+      b.fetch();
+
+      Assert.assertEquals(1, countA.get());
+      Assert.assertEquals(2, countB.get());
+      Assert.assertEquals(1, countC.get());
+      Assertions.assertThat(Fetchers.getCacheMemoryEvictions() - evictions).isGreaterThan(0);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      Fetchers.setCacheMemoryBudget(budget);
+    }
+
+  }
+
+  @Test
+  public void memoryBudgetOversizedValueTest() {
+
+    final long budget = Fetchers.getCacheMemoryBudget();
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<byte[]> huge = Fetchers.getMemoryBudgetedCachingFetcher(
+      CacheRetentionTest.countingFetcher(count, 2048), value -> value.length);
+
+    try {
+
+      Fetchers.setCacheMemoryBudget(0);
+      Fetchers.setCacheMemoryBudget(1000);
+
+      Assert.assertEquals(2048, huge.fetch().length); // still returned
+      Assert.assertEquals(2048, huge.fetch().length);
+
+      Assert.assertEquals(2, count.get()); // but never retained
+      Assert.assertEquals(0, Fetchers.getCacheMemoryUsage());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      Fetchers.setCacheMemoryBudget(budget);
+    }
+
+  }
+
+  @Test
+  public void memoryBudgetCollectedFetcherTest() {
+
+    final long budget = Fetchers.getCacheMemoryBudget();
+
+    try {
+
+      Fetchers.setCacheMemoryBudget(0);
+      Fetchers.setCacheMemoryBudget(1000);
+
+      CacheRetentionTest.fetchAndDrop(400);
+
+      Assert.assertEquals(400, Fetchers.getCacheMemoryUsage());
+
+      for (int i = 0; (i < 20) && (Fetchers.getCacheMemoryUsage() > 0); i++) {
+        CacheRetentionTest.collectGarbage();
+      }
+
+      Assert.assertEquals(0, Fetchers.getCacheMemoryUsage()); // given back without eviction
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      Fetchers.setCacheMemoryBudget(budget);
+    }
+
+  }
+
+  private static void fetchAndDrop(final int size) throws FetcherException {
+    Fetchers.getMemoryBudgetedCachingFetcher(
+      CacheRetentionTest.countingFetcher(new AtomicInteger(0), size), value -> value.length)
+        .fetch();
+  }
+
+}
@@ -0,0 +1,220 @@
+package com.lieuu.fetcher.caching;
+
+import com.lieuu.fetcher.CacheSnapshot;
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheSnapshotTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static Fetcher<String> counting(final String value, final AtomicInteger calls) {
+    return () -> {
+      calls.incrementAndGet();
+      return value;
+    };
+  }
+
+  private static Fetcher<String> failing(final AtomicInteger calls) {
+    return () -> {
+      calls.incrementAndGet();
+      throw new FetcherException("origin down");
+    };
+  }
+
+  private Path getFile() {
+    return this.folder.getRoot().toPath().resolve("cache.snapshot");
+  }
+
+  @Test
+  public void snapshotRestoreTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      final Fetcher<String> expiring = Fetchers.getExpiringCachingFetcher(
+        CacheSnapshotTest.counting("expiring", calls), 60000);
+      final Fetcher<String> caching = Fetchers.getCachingFetcher(
+        CacheSnapshotTest.counting("caching", calls));
+      final Fetcher<String> unused = Fetchers.getCachingFetcher(
+        CacheSnapshotTest.counting("unused", calls));
+
+      final CacheSnapshot snapshot = new CacheSnapshot(this.getFile())
+          .register("expiring", expiring, Fetchers.<String> getJavaSerializer())
+          .register("caching", caching, Fetchers.<String> getJavaSerializer())
+          .register("unused", unused, Fetchers.<String> getJavaSerializer());
+
+      expiring.fetch();
+      caching.fetch();
+
+      Assert.assertEquals(2, snapshot.write()); // nothing cached by unused
+      Assert.assertEquals(2, calls.get());
+
+      final Fetcher<String> restartedExpiring = Fetchers.getExpiringCachingFetcher(
+        CacheSnapshotTest.counting("other", calls), 60000);
+      final Fetcher<String> restartedCaching = Fetchers.getCachingFetcher(
+        CacheSnapshotTest.counting("other", calls));
+
+      final CacheSnapshot restarted = new CacheSnapshot(this.getFile())
+          .register("expiring", restartedExpiring, Fetchers.<String> getJavaSerializer())
+          .register("caching", restartedCaching, Fetchers.<String> getJavaSerializer());
+
+      Assert.assertEquals(2, restarted.restore(60000));
+      Assert.assertEquals("expiring", restartedExpiring.fetch());
+      Assert.assertEquals("caching", restartedCaching.fetch());
+      Assert.assertEquals(2, calls.get()); // no origin call after the restart
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void remainingTimeToLiveTest() throws InterruptedException {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      final Fetcher<String> expiring = Fetchers.getExpiringCachingFetcher(
+        CacheSnapshotTest.counting("v1", calls), 1000);
+
+      expiring.fetch();
+      Thread.sleep(600);
+
+      Assert.assertEquals(1, new CacheSnapshot(this.getFile())
+          .register("expiring", expiring, Fetchers.<String> getJavaSerializer()).write());
+
+      final Fetcher<String> restarted = Fetchers.getExpiringCachingFetcher(
+        CacheSnapshotTest.counting("v2", calls), 1000);
+
+      Assert.assertEquals(1, new CacheSnapshot(this.getFile())
+          .register("expiring", restarted, Fetchers.<String> getJavaSerializer()).restore(60000));
+      Assert.assertEquals("v1", restarted.fetch());
+
+      Thread.sleep(600); // past the original load time plus 1000 ms
+
+      Assert.assertEquals("v2", restarted.fetch());
+      Assert.assertEquals(2, calls.get());
+
+      final Fetcher<String> expired = Fetchers.getExpiringCachingFetcher(
+        CacheSnapshotTest.counting("v3", calls), 1000);
+
+      Assert.assertEquals(0, new CacheSnapshot(this.getFile())
+          .register("expiring", expired, Fetchers.<String> getJavaSerializer()).restore(60000));
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void maxAgeTest() throws InterruptedException {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      final Fetcher<String> caching = Fetchers.getCachingFetcher(
+        CacheSnapshotTest.counting("old", calls));
+
+      caching.fetch();
+
+      Assert.assertEquals(1, new CacheSnapshot(this.getFile())
+          .register("caching", caching, Fetchers.<String> getJavaSerializer()).write());
+
+      Thread.sleep(100);
+
+      final Fetcher<String> restarted = Fetchers.getCachingFetcher(
+        CacheSnapshotTest.counting("new", calls));
+
+      Assert.assertEquals(0, new CacheSnapshot(this.getFile())
+          .register("caching", restarted, Fetchers.<String> getJavaSerializer()).restore(50));
+      Assert.assertEquals("new", restarted.fetch()); // never expires, so not preloaded
+      Assert.assertEquals(2, calls.get());
+
+      final Fetcher<String> young = Fetchers.getCachingFetcher(
+        CacheSnapshotTest.counting("other", calls));
+
+      Assert.assertEquals(1, new CacheSnapshot(this.getFile())
+          .register("caching", young, Fetchers.<String> getJavaSerializer()).restore(60000));
+      Assert.assertEquals("old", young.fetch());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void waterfallSnapshotTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      final MultiFetcher<String> waterfall = MultiFetchers.getWaterfallFetcher(e -> {
+      }, CacheSnapshotTest.failing(calls), CacheSnapshotTest.counting("backup", calls));
+
+      waterfall.fetch();
+
+      Assert.assertEquals(1, new CacheSnapshot(this.getFile())
+          .register("waterfall", waterfall, Fetchers.<String> getJavaSerializer()).write());
+
+      final Fetcher<String> restarted = Fetchers.getWaterfallFetcher(e -> {
+      }, CacheSnapshotTest.failing(calls), CacheSnapshotTest.counting("other", calls));
+
+      Assert.assertEquals(1, new CacheSnapshot(this.getFile())
+          .register("waterfall", restarted, Fetchers.<String> getJavaSerializer()).restore(60000));
+      Assert.assertEquals("backup", restarted.fetch());
+      Assert.assertEquals(3, calls.get()); // only the failing primary called again
+
+      final MultiFetcher<String> restartedMulti = MultiFetchers.getWaterfallFetcher(e -> {
+      }, CacheSnapshotTest.counting("primary", calls), CacheSnapshotTest.counting("other",
+        calls));
+
+      new CacheSnapshot(this.getFile()).register("waterfall", restartedMulti,
+        Fetchers.<String> getJavaSerializer()).restore(60000);
+
+      final FetcherResponse<String> response = restartedMulti.fetch();
+
+      Assert.assertEquals(Source.FIRST, response.source()); // ranks keep their order
+      Assert.assertEquals("primary", response.value());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+    try {
+      new CacheSnapshot(this.getFile()).register("plain", () -> "value",
+        Fetchers.<String> getJavaSerializer());
+      Assertions.fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+      // nothing cached to snapshot
+    }
+
+  }
+
+}
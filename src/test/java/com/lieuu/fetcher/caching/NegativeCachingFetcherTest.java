@@ -0,0 +1,149 @@
+package com.lieuu.fetcher.caching;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NegativeCachingFetcherTest {
+
+  private static FetcherException fetchFailure(final Fetcher<?> fetcher) {
+
+    try {
+      fetcher.fetch();
+    }
+    catch (final FetcherException e) {
+      return e;
+    }
+
+    throw new AssertionError("fetch should have failed");
+
+  }
+
+  @Test
+  public void negativeCachingBackoffTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<String> fetcher = Fetchers.getFailureBackoffCachingFetcher(() -> {
+      count.incrementAndGet();
+      throw new FetcherException("backend down");
+    }, 100, 400);
+
+    try {
+
+      final FetcherException first = NegativeCachingFetcherTest.fetchFailure(fetcher);
+
+      Assert.assertSame(first, NegativeCachingFetcherTest.fetchFailure(fetcher)); // cached
+      Assert.assertEquals(1, count.get());
+
+      Thread.sleep(150); // first TTL of 100ms has passed
+
+      NegativeCachingFetcherTest.fetchFailure(fetcher);
+      Assert.assertEquals(2, count.get());
+
+      Thread.sleep(100); // second TTL is 200ms
+
+      NegativeCachingFetcherTest.fetchFailure(fetcher);
+      Assert.assertEquals(2, count.get());
+
+      Thread.sleep(150);
+
+      NegativeCachingFetcherTest.fetchFailure(fetcher);
+      Assert.assertEquals(3, count.get());
+
+    }
+    catch (final InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void negativeCachingRecoveryTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<String> fetcher = Fetchers.getFailureBackoffCachingFetcher(() -> {
+
+      if (count.incrementAndGet() == 1) {
+        throw new FetcherException("transient");
+      }
+
+      return "recovered";
+
+    }, 50, 1000);
+
+    try {
+
+      NegativeCachingFetcherTest.fetchFailure(fetcher);
+
+      Thread.sleep(100);
+
+      Assert.assertEquals("recovered", fetcher.fetch());
+      Assert.assertEquals("recovered", fetcher.fetch());
+      Assert.assertEquals(2, count.get());
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void cachedFailureIsNotRewrappedTest() {
+
+    final Fetcher<String> fetcher = Fetchers.getCachingFetcher(() -> {
+      throw new FetcherException("backend down");
+    });
+
+    final FetcherException first = NegativeCachingFetcherTest.fetchFailure(fetcher);
+
+    for (int i = 0; i < 10; i++) {
+      Assert.assertSame(first, NegativeCachingFetcherTest.fetchFailure(fetcher));
+    }
+
+  }
+
+  @Test
+  public void waterfallReprobesPrimaryTest() {
+
+    final AtomicInteger primaryCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getFailureBackoffWaterfallFetcher(e -> {
+    }, 50, 1000, () -> {
+
+      if (primaryCalls.incrementAndGet() == 1) {
+        throw new FetcherException("primary blip");
+      }
+
+      return "primary";
+
+    }, () -> "backup");
+
+    try {
+
+      Assert.assertEquals(Source.SECOND, waterfall.fetch().source());
+      Assert.assertEquals(Source.SECOND, waterfall.fetch().source()); // primary backing off
+
+      Thread.sleep(100);
+
+      Assert.assertEquals(Source.FIRST, waterfall.fetch().source());
+      Assert.assertEquals(2, primaryCalls.get());
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+}
@@ -0,0 +1,189 @@
+package com.lieuu.fetcher.caching;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PersistentCachingFetcherTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static Fetcher<String> counting(final String value, final AtomicInteger calls) {
+    return () -> {
+      calls.incrementAndGet();
+      return value;
+    };
+  }
+
+  @Test
+  public void warmStartTest() throws IOException {
+
+    final Path file = this.folder.getRoot().toPath().resolve("value.bin");
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      final Fetcher<String> first = Fetchers.getPersistentCachingFetcher(
+        PersistentCachingFetcherTest.counting("v1", calls), file,
+        Fetchers.<String> getJavaSerializer(), Long.MAX_VALUE);
+
+      Assert.assertEquals("v1", first.fetch());
+      Assert.assertEquals("v1", first.fetch());
+      Assert.assertEquals(1, calls.get());
+      Assert.assertTrue(Files.exists(file));
+
+      final Fetcher<String> restarted = Fetchers.getPersistentCachingFetcher(
+        PersistentCachingFetcherTest.counting("v2", calls), file,
+        Fetchers.<String> getJavaSerializer(), Long.MAX_VALUE);
+
+      Assert.assertEquals("v1", restarted.fetch()); // from disk
+      Assert.assertEquals(1, calls.get());
+
+      final Fetcher<String> expired = Fetchers.getPersistentCachingFetcher(
+        PersistentCachingFetcherTest.counting("v3", calls), file,
+        Fetchers.<String> getJavaSerializer(), 0);
+
+      Assert.assertEquals("v3", expired.fetch()); // stored value too old
+      Assert.assertEquals(2, calls.get());
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void unreadableValueTest() throws IOException {
+
+    final Path file = this.folder.newFile("corrupt.bin").toPath();
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    Files.write(file, new byte[] { 1, 2, 3 });
+
+    try {
+
+      final Fetcher<String> fetcher = Fetchers.getPersistentCachingFetcher(
+        PersistentCachingFetcherTest.counting("fresh", calls), file,
+        Fetchers.<String> getJavaSerializer(), Long.MAX_VALUE);
+
+      Assert.assertEquals("fresh", fetcher.fetch());
+      Assert.assertEquals(1, calls.get());
+
+      final Fetcher<String> restarted = Fetchers.getPersistentCachingFetcher(
+        PersistentCachingFetcherTest.counting("other", calls), file,
+        Fetchers.<String> getJavaSerializer(), Long.MAX_VALUE);
+
+      Assert.assertEquals("fresh", restarted.fetch()); // rewritten over the corrupt file
+      Assert.assertEquals(1, calls.get());
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void persistentWaterfallTest() {
+
+    final Path directory = this.folder.getRoot().toPath().resolve("waterfall");
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      final MultiFetcher<String> waterfall = MultiFetchers.getPersistentWaterfallFetcher(e -> {
+      }, directory, Fetchers.<String> getJavaSerializer(), Long.MAX_VALUE,
+        PersistentCachingFetcherTest.counting("primary", calls),
+        PersistentCachingFetcherTest.counting("backup", calls));
+
+      Assert.assertEquals("primary", waterfall.fetch().value());
+      Assert.assertEquals(1, calls.get());
+
+      final MultiFetcher<String> restarted = MultiFetchers.getPersistentWaterfallFetcher(e -> {
+      }, directory, Fetchers.<String> getJavaSerializer(), Long.MAX_VALUE, () -> {
+        calls.incrementAndGet();
+        throw new FetcherException("origin down");
+      }, PersistentCachingFetcherTest.counting("backup", calls));
+
+      final FetcherResponse<String> response = restarted.fetch();
+
+      Assert.assertEquals("primary", response.value()); // warm, origin not called
+      Assert.assertEquals(Source.FIRST, response.source());
+      Assert.assertEquals(1, calls.get());
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void persistentExpiringTest() throws InterruptedException {
+
+    final Path file = this.folder.getRoot().toPath().resolve("expiring.bin");
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    try {
+
+      Assert.assertEquals("v1", Fetchers.getPersistentExpiringCachingFetcher(
+        PersistentCachingFetcherTest.counting("v1", calls), file,
+        Fetchers.<String> getJavaSerializer(), 300).fetch());
+
+      final Fetcher<String> restarted = Fetchers.getPersistentExpiringCachingFetcher(
+        PersistentCachingFetcherTest.counting("v2", calls), file,
+        Fetchers.<String> getJavaSerializer(), 300);
+
+      Assert.assertEquals("v1", restarted.fetch()); // from disk
+      Assert.assertEquals(1, calls.get());
+
+      Thread.sleep(400); // past the original load time plus 300 ms
+
+      Assert.assertEquals("v2", restarted.fetch());
+      Assert.assertEquals(2, calls.get());
+
+      final MultiFetcher<String> waterfall = MultiFetchers.getPersistentExpiringWaterfallFetcher(
+        e -> {
+        }, this.folder.getRoot().toPath().resolve("waterfall"),
+        Fetchers.<String> getJavaSerializer(), 300, PersistentCachingFetcherTest.counting(
+          "primary", calls));
+
+      Assert.assertEquals("primary", waterfall.fetch().value());
+
+      final MultiFetcher<String> restartedWaterfall = MultiFetchers
+          .getPersistentExpiringWaterfallFetcher(e -> {
+          }, this.folder.getRoot().toPath().resolve("waterfall"),
+            Fetchers.<String> getJavaSerializer(), 300, PersistentCachingFetcherTest.counting(
+              "refreshed", calls));
+
+      Assert.assertEquals("primary", restartedWaterfall.fetch().value());
+      Assert.assertEquals(3, calls.get());
+
+      Thread.sleep(400);
+
+      Assert.assertEquals("refreshed", restartedWaterfall.fetch().value()); // not served forever
+      Assert.assertEquals(4, calls.get());
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
@@ -0,0 +1,232 @@
+package com.lieuu.fetcher.caching.concurrent;
+
+import com.lieuu.fetcher.AsyncFetchers;
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.InstrumentedExecutorServiceFetcher;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.exception.FetcherRejectedException;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class BoundedExecutorServiceFetcherTest {
+
+  private static Fetcher<String> awaiting(final CountDownLatch latch) {
+
+    return () -> {
+
+      try {
+        latch.await();
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return "done";
+
+    };
+
+  }
+
+  @Test
+  public void boundedExecutorRejectionTest() {
+
+    final InstrumentedExecutorServiceFetcher exec = Fetchers.getBoundedExecutorServiceFetcher(1,
+      1);
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    final Fetcher<String> running = Fetchers.getNonBlockingConcurrentFetcher(exec,
+      BoundedExecutorServiceFetcherTest.awaiting(latch));
+    final Fetcher<String> rejected = Fetchers.getBlockingConcurrentFetcher(exec,
+      BoundedExecutorServiceFetcherTest.awaiting(latch));
+
+    try {
+      running.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e).isInstanceOf(FetcherNotReadyException.class);
+    }
+
+    try {
+      Fetchers.getNonBlockingConcurrentFetcher(exec, () -> "queued").fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e).isInstanceOf(FetcherNotReadyException.class);
+    }
+
+    try {
+      rejected.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e).isInstanceOf(FetcherRejectedException.class);
+    }
+
+    Assertions.assertThat(exec.getActiveThreads()).isEqualTo(1);
+    Assertions.assertThat(exec.getQueueDepth()).isEqualTo(1);
+    Assertions.assertThat(exec.getQueueRemainingCapacity()).isEqualTo(0);
+    Assertions.assertThat(exec.getRejectedTasks()).isEqualTo(1);
+
+    latch.countDown();
+
+    try {
+
+      final long deadline = System.currentTimeMillis() + 5000;
+
+      while ((exec.getQueueDepth() > 0) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(1); // wait for the worker to take the queued task
+      }
+
+      Assertions.assertThat(rejected.fetch()).isEqualTo("done"); // retried once capacity frees
+      Assertions.assertThat(running.fetch()).isEqualTo("done");
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+    Assertions.assertThat(exec.getLargestPoolSize()).isEqualTo(1);
+    Assertions.assertThat(exec.getCompletedTasks()).isGreaterThanOrEqualTo(2);
+
+  }
+
+  @Test
+  public void boundedExecutorCallerRunsTest() {
+
+    final InstrumentedExecutorServiceFetcher exec = Fetchers.getBoundedExecutorServiceFetcher(1,
+      0, new ThreadPoolExecutor.CallerRunsPolicy());
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+
+      try {
+        Fetchers.getNonBlockingConcurrentFetcher(exec,
+          BoundedExecutorServiceFetcherTest.awaiting(latch)).fetch();
+        Assert.fail();
+      }
+      catch (final FetcherNotReadyException e) {
+        // occupying the only thread
+      }
+
+      Assertions.assertThat(Fetchers.getBlockingConcurrentFetcher(exec, () -> "caller").fetch())
+          .isEqualTo("caller");
+      Assertions.assertThat(exec.getRejectedTasks()).isEqualTo(1);
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+    finally {
+      latch.countDown();
+    }
+
+  }
+
+  @Test
+  public void boundedExecutorDiscardTest() {
+
+    final InstrumentedExecutorServiceFetcher exec = Fetchers.getBoundedExecutorServiceFetcher(1,
+      0, new ThreadPoolExecutor.DiscardPolicy());
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+
+      try {
+        Fetchers.getNonBlockingConcurrentFetcher(exec,
+          BoundedExecutorServiceFetcherTest.awaiting(latch)).fetch();
+        Assert.fail();
+      }
+      catch (final FetcherNotReadyException e) {
+        // occupying the only thread
+      }
+
+      final Fetcher<String> discarded = Fetchers.getBlockingConcurrentFetcher(exec,
+        () -> "discarded");
+
+      try {
+        discarded.fetch(); // waited forever before the discarded task was cancelled
+        Assert.fail();
+      }
+      catch (final FetcherRejectedException e) {
+        // dropped by the policy
+      }
+
+      Assertions.assertThat(exec.getRejectedTasks()).isEqualTo(1);
+
+      latch.countDown();
+
+      final long deadline = System.currentTimeMillis() + 5000;
+
+      while ((exec.getActiveThreads() > 0) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(1); // wait for the only thread to be free again
+      }
+
+      Assertions.assertThat(discarded.fetch()).isEqualTo("discarded"); // submitted again
+
+    }
+    catch (final FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+    finally {
+      latch.countDown();
+    }
+
+  }
+
+  @Test
+  public void boundedExecutorDiscardOldestTest() {
+
+    final InstrumentedExecutorServiceFetcher exec = Fetchers.getBoundedExecutorServiceFetcher(1,
+      1, new ThreadPoolExecutor.DiscardOldestPolicy());
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+
+      try {
+        Fetchers.getNonBlockingConcurrentFetcher(exec,
+          BoundedExecutorServiceFetcherTest.awaiting(latch)).fetch();
+        Assert.fail();
+      }
+      catch (final FetcherNotReadyException e) {
+        // occupying the only thread
+      }
+
+      final CompletableFuture<String> oldest = AsyncFetchers
+          .getAsyncFetcher(exec, () -> "oldest").fetchAsync().toCompletableFuture();
+      final CompletableFuture<String> newest = AsyncFetchers
+          .getAsyncFetcher(exec, () -> "newest").fetchAsync().toCompletableFuture();
+
+      try {
+        oldest.get(5, TimeUnit.SECONDS);
+        Assert.fail();
+      }
+      catch (final ExecutionException e) {
+        Assertions.assertThat(e.getCause()).isInstanceOf(FetcherRejectedException.class);
+      }
+
+      latch.countDown();
+
+      Assertions.assertThat(newest.get(5, TimeUnit.SECONDS)).isEqualTo("newest");
+
+    }
+    catch (final FetcherException | InterruptedException | ExecutionException
+        | TimeoutException e) {
+      Assert.fail(e.getMessage());
+    }
+    finally {
+      latch.countDown();
+    }
+
+  }
+
+}
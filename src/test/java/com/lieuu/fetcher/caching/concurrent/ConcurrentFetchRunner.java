@@ -0,0 +1,72 @@
+package com.lieuu.fetcher.caching.concurrent;
+
+import com.lieuu.fetcher.Fetcher;
+import org.assertj.core.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs fetches of one fetcher from many threads released at the same time.
+ */
+public final class ConcurrentFetchRunner {
+
+  private ConcurrentFetchRunner() {
+  }
+
+  /**
+   * @return the last value fetched by each thread
+   */
+  public static <T> List<T> run(final Fetcher<T> fetcher, final int threads,
+    final int fetchesPerThread) {
+
+    final ExecutorService exec = Executors.newFixedThreadPool(threads);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<T>> futures = new ArrayList<>(threads);
+
+    for (int i = 0; i < threads; i++) {
+
+      futures.add(exec.submit(() -> {
+
+        start.await();
+
+        T last = null;
+
+        for (int j = 0; j < fetchesPerThread; j++) {
+          last = fetcher.fetch();
+        }
+
+        return last;
+
+      }));
+
+    }
+
+    start.countDown();
+
+    final List<T> results = new ArrayList<>(threads);
+
+    try {
+
+      for (final Future<T> future : futures) {
+        results.add(future.get());
+      }
+
+    }
+    catch (InterruptedException | ExecutionException e) {
+      Assertions.fail(e.getMessage(), e); // cause kept in the test report
+    }
+    finally {
+      exec.shutdown();
+    }
+
+    return results;
+
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.lieuu.fetcher.caching.concurrent;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentFetcherContentionTest {
+
+  private final static int MAX_THREADS = 64;
+
+  @Test
+  public void singleFlightColdStartTest() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<Integer> fetcher = Fetchers.getBlockingConcurrentFetcher(() -> {
+
+      try {
+        Thread.sleep(200); // keep the fetch in flight while threads race
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return count.incrementAndGet();
+
+    });
+
+    final List<Integer> results = ConcurrentFetchRunner.run(fetcher,
+      ConcurrentFetcherContentionTest.MAX_THREADS, 1);
+
+    Assertions.assertThat(count.get()).isEqualTo(1);
+    Assertions.assertThat(results).containsOnly(1);
+
+  }
+
+}
@@ -0,0 +1,69 @@
+package com.lieuu.fetcher.caching.concurrent;
+
+import com.lieuu.fetcher.AsyncFetchers;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executors;
+
+public class VirtualThreadExecutorServiceFetcherTest {
+
+  private static boolean isVirtualThreadSupported() {
+
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    }
+    catch (final NoSuchMethodException e) {
+      return false;
+    }
+
+  }
+
+  private static boolean isVirtual(final Thread thread) throws FetcherException {
+
+    try {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+    catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      throw new FetcherException(e);
+    }
+
+  }
+
+  @Test
+  public void virtualThreadExecutorUnsupportedTest() {
+
+    Assume.assumeFalse(VirtualThreadExecutorServiceFetcherTest.isVirtualThreadSupported());
+
+    try {
+      Fetchers.getVirtualThreadExecutorServiceFetcher().fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getCause().getCause()).isInstanceOf(
+        UnsupportedOperationException.class);
+    }
+
+  }
+
+  @Test
+  public void virtualThreadExecutorTest() {
+
+    Assume.assumeTrue(VirtualThreadExecutorServiceFetcherTest.isVirtualThreadSupported());
+
+    final boolean virtual = AsyncFetchers.getAsyncFetcher(
+      Fetchers.getVirtualThreadExecutorServiceFetcher(),
+      () -> VirtualThreadExecutorServiceFetcherTest.isVirtual(Thread.currentThread()))
+        .fetchAsync().toCompletableFuture().join();
+
+    Assert.assertTrue(virtual); // fetched on a virtual thread
+
+  }
+
+}
@@ -0,0 +1,152 @@
+package com.lieuu.fetcher.caching.concurrent.multi;
+
+import com.lieuu.fetcher.AsyncFetchers;
+import com.lieuu.fetcher.AsyncMultiFetchers;
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.InstrumentedAsyncMultiFetcher;
+import com.lieuu.fetcher.InstrumentedMultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class CancellingMultiConcurrentFetcherTest {
+
+  private static Fetcher<String> slow(final CountDownLatch started,
+    final CountDownLatch interrupted) {
+
+    return () -> {
+
+      started.countDown();
+
+      try {
+        Thread.sleep(5000);
+      }
+      catch (final InterruptedException e) {
+        interrupted.countDown();
+        throw new FetcherException(e);
+      }
+
+      return "slow";
+
+    };
+
+  }
+
+  /**
+   * Only answers once the slow fetchers are running, so that they are
+   * interrupted rather than cancelled before they start.
+   */
+  private static Fetcher<String> fast(final CountDownLatch started) {
+
+    return () -> {
+
+      try {
+        started.await(1, TimeUnit.SECONDS);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return "fast";
+
+    };
+
+  }
+
+  @Test
+  public void testLosersAreCancelled() {
+
+    final CountDownLatch started = new CountDownLatch(2);
+    final CountDownLatch interrupted = new CountDownLatch(2);
+
+    final InstrumentedMultiFetcher<String> fetcher = MultiFetchers
+        .getCancellingMultiConcurrentFetcher(
+          CancellingMultiConcurrentFetcherTest.slow(started, interrupted),
+          CancellingMultiConcurrentFetcherTest.fast(started),
+          CancellingMultiConcurrentFetcherTest.slow(started, interrupted));
+
+    try {
+
+      final long startTime = System.currentTimeMillis();
+      final FetcherResponse<String> response = fetcher.fetch();
+
+      Assert.assertEquals("fast", response.value());
+      Assert.assertEquals(Source.SECOND, response.source());
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+
+      Assertions.assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+      Assertions.assertThat(fetcher.getCancelledFetches()).isEqualTo(2);
+      Assertions.assertThat(fetcher.getCancelledFetchMillis()).isGreaterThanOrEqualTo(0);
+
+      Assert.assertEquals("fast", fetcher.fetch().value()); // winner is kept
+      Assertions.assertThat(fetcher.getCancelledFetches()).isEqualTo(2);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void testLosersRunWithoutCancellation() {
+
+    final CountDownLatch interrupted = new CountDownLatch(1);
+
+    final InstrumentedMultiFetcher<String> fetcher = MultiFetchers
+        .getHedgedMultiConcurrentFetcher(0.95, 1000, () -> "fast",
+          CancellingMultiConcurrentFetcherTest.slow(new CountDownLatch(1), interrupted));
+
+    try {
+      Assert.assertEquals("fast", fetcher.fetch().value()); // nothing in flight to cancel
+      Assertions.assertThat(interrupted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+      Assertions.assertThat(fetcher.getCancelledFetches()).isEqualTo(0);
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void testAsyncLosersAreCancelled() {
+
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+
+    final InstrumentedAsyncMultiFetcher<String> fetcher = AsyncMultiFetchers
+        .getCancellingMultiConcurrentFetcher(
+          AsyncFetchers.getAsyncFetcher(
+            CancellingMultiConcurrentFetcherTest.slow(started, interrupted)),
+          AsyncFetchers.getAsyncFetcher(CancellingMultiConcurrentFetcherTest.fast(started)));
+
+    try {
+
+      final FetcherResponse<String> response = fetcher.fetchAsync().toCompletableFuture().get(1,
+        TimeUnit.SECONDS);
+
+      Assert.assertEquals("fast", response.value());
+      Assertions.assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+      Assertions.assertThat(fetcher.getCancelledFetches()).isEqualTo(1);
+
+      Assert.assertEquals("fast",
+        fetcher.fetchAsync().toCompletableFuture().get(1, TimeUnit.SECONDS).value());
+      Assertions.assertThat(fetcher.getCancelledFetches()).isEqualTo(1);
+
+    }
+    catch (InterruptedException | ExecutionException | TimeoutException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
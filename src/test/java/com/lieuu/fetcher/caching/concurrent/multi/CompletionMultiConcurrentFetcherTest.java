@@ -0,0 +1,137 @@
+package com.lieuu.fetcher.caching.concurrent.multi;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class CompletionMultiConcurrentFetcherTest {
+
+  @Test
+  public void testCompletionFasterSourceWins() {
+
+    final int waitTime = 500;
+
+    final Fetcher<String> fetcher = Fetchers.getCompletionMultiConcurrentFetcher(() -> {
+      try {
+        Thread.sleep(waitTime);
+      }
+      catch (final Exception e) {
+        Assertions.fail(e.getMessage());
+      }
+      return "first";
+    }, () -> "second");
+
+    try {
+
+      Assert.assertEquals("second", fetcher.fetch());
+
+      Thread.sleep(waitTime * 2);
+
+      Assert.assertEquals("first", fetcher.fetch());
+      Assert.assertEquals("first", fetcher.fetch());
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      e.printStackTrace();
+      Assert.fail();
+    }
+
+  }
+
+  @Test
+  public void testCompletionRankingWhenAllDone() {
+
+    final MultiFetcher<String> fetcher = MultiFetchers.getCompletionMultiConcurrentFetcher(
+      () -> "first", () -> "second", () -> "third");
+
+    try {
+
+      fetcher.fetch();
+      Thread.sleep(100);
+
+      final FetcherResponse<String> response = fetcher.fetch();
+
+      Assert.assertEquals("first", response.value());
+      Assert.assertEquals(Source.FIRST, response.source());
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      e.printStackTrace();
+      Assert.fail();
+    }
+
+  }
+
+  @Test
+  public void testCompletionWakesOnResult() {
+
+    final int waitTime = 300;
+
+    final Fetcher<String> fetcher = Fetchers.getCompletionMultiConcurrentFetcher(5000, () -> {
+      try {
+        Thread.sleep(waitTime);
+        throw new IOException("Networking unavailable.");
+      }
+      catch (final InterruptedException | IOException e) {
+        throw new FetcherException(e);
+      }
+    }, () -> {
+      try {
+        Thread.sleep(waitTime);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+      return "backup value";
+    });
+
+    try {
+
+      final long startTime = System.currentTimeMillis();
+
+      Assert.assertEquals("backup value", fetcher.fetch());
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(waitTime * 3);
+
+      Assert.assertEquals("backup value", fetcher.fetch());
+
+    }
+    catch (final FetcherException e) {
+      e.printStackTrace();
+      Assert.fail();
+    }
+
+  }
+
+  @Test
+  public void testCompletionAllFailing() {
+
+    final Fetcher<String> fetcher = Fetchers.getCompletionMultiConcurrentFetcher(() -> {
+      throw new FetcherException("first failed");
+    }, () -> {
+      throw new FetcherException("second failed");
+    });
+
+    final long startTime = System.currentTimeMillis();
+
+    try {
+      fetcher.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getMessage()).contains("second failed");
+    }
+
+    Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+
+  }
+
+}
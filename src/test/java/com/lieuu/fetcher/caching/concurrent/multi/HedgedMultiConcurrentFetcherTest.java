@@ -0,0 +1,156 @@
+package com.lieuu.fetcher.caching.concurrent.multi;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgedMultiConcurrentFetcherTest {
+
+  private static Fetcher<String> sleeping(final String value, final long sleepMs,
+    final AtomicBoolean slow, final CountDownLatch interrupted) {
+
+    return () -> {
+
+      try {
+        Thread.sleep(slow.get() ? sleepMs : 10);
+      }
+      catch (final InterruptedException e) {
+        interrupted.countDown();
+        throw new FetcherException(e);
+      }
+
+      return value;
+
+    };
+
+  }
+
+  @Test
+  public void testFastPrimaryIsNeverHedged() {
+
+    final AtomicInteger backupCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> fetcher = MultiFetchers.getExpiringHedgedMultiConcurrentFetcher(0,
+      0.95, 200, () -> "primary", () -> {
+        backupCalls.incrementAndGet();
+        return "backup";
+      });
+
+    try {
+
+      for (int i = 0; i < 9; i++) { // within the initial delay, before latencies are used
+
+        final FetcherResponse<String> response = fetcher.fetch();
+
+        Assert.assertEquals("primary", response.value());
+        Assert.assertEquals(Source.FIRST, response.source());
+
+      }
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+    Assertions.assertThat(backupCalls.get()).isEqualTo(0);
+
+  }
+
+  @Test
+  public void testSlowPrimaryIsHedgedAndCancelled() {
+
+    final CountDownLatch interrupted = new CountDownLatch(1);
+
+    final Fetcher<String> fetcher = Fetchers.getHedgedMultiConcurrentFetcher(0.95, 50,
+      HedgedMultiConcurrentFetcherTest.sleeping("primary", 2000, new AtomicBoolean(true),
+        interrupted),
+      () -> "backup");
+
+    try {
+
+      final long startTime = System.currentTimeMillis();
+
+      Assert.assertEquals("backup", fetcher.fetch());
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+      Assertions.assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue(); // loser cancelled
+
+      Assert.assertEquals("backup", fetcher.fetch()); // winner is kept
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void testFailedPrimaryHedgesImmediately() {
+
+    final AtomicInteger errors = new AtomicInteger(0);
+
+    final MultiFetcher<String> fetcher = MultiFetchers.getHedgedMultiConcurrentFetcher(0.95, 60000,
+      () -> {
+        errors.incrementAndGet();
+        throw new FetcherException("primary down");
+      }, () -> "backup");
+
+    try {
+
+      final long startTime = System.currentTimeMillis();
+      final FetcherResponse<String> response = fetcher.fetch();
+
+      Assert.assertEquals("backup", response.value());
+      Assert.assertEquals(Source.SECOND, response.source());
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+      Assertions.assertThat(errors.get()).isEqualTo(1);
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void testHedgeDelayFollowsObservedLatency() {
+
+    final AtomicBoolean slow = new AtomicBoolean(false);
+
+    final MultiFetcher<String> fetcher = MultiFetchers.getExpiringHedgedMultiConcurrentFetcher(0,
+      0.95, 60000,
+      HedgedMultiConcurrentFetcherTest.sleeping("primary", 2000, slow, new CountDownLatch(1)),
+      () -> "backup");
+
+    try {
+
+      for (int i = 0; i < 20; i++) { // primary answers in ~10ms, a few may still be hedged
+        Assertions.assertThat(fetcher.fetch().value()).isIn("primary", "backup");
+      }
+
+      slow.set(true);
+
+      final long startTime = System.currentTimeMillis();
+
+      Assert.assertEquals("backup", fetcher.fetch().value()); // hedged after ~p95, not 60s
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
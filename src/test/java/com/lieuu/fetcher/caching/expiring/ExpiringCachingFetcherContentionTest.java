@@ -0,0 +1,74 @@
+package com.lieuu.fetcher.caching.expiring;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.caching.concurrent.ConcurrentFetchRunner;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExpiringCachingFetcherContentionTest {
+
+  private final static int THREADS = 32;
+  private final static int MAX_CACHE_TIME_MS = 50;
+
+  @Test
+  public void hitContentionTest() {
+
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    final Fetcher<Integer> fetcher = Fetchers.getExpiringCachingFetcher(
+      (Fetcher<Integer>) () -> loads.incrementAndGet(), 60000);
+
+    Assertions.assertThat(ConcurrentFetchRunner.run(fetcher,
+      ExpiringCachingFetcherContentionTest.THREADS, 10000)).containsOnly(1);
+    Assertions.assertThat(loads.get()).isEqualTo(1);
+
+  }
+
+  @Test
+  public void expiryContentionTest() {
+
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    final Fetcher<Integer> expiring = Fetchers.getExpiringCachingFetcher(() -> {
+
+      try {
+        Thread.sleep(10); // waiting threads pile up behind the reload
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return loads.incrementAndGet();
+
+    }, ExpiringCachingFetcherContentionTest.MAX_CACHE_TIME_MS);
+
+    final Fetcher<Integer> paced = () -> {
+
+      try {
+        Thread.sleep(1); // spread the fetches over several expiries
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return expiring.fetch();
+
+    };
+
+    final long startTime = System.currentTimeMillis();
+
+    ConcurrentFetchRunner.run(paced, ExpiringCachingFetcherContentionTest.THREADS, 200);
+
+    final long elapsedMs = System.currentTimeMillis() - startTime;
+
+    // one reload per expiry, not one per waiting thread
+    Assertions.assertThat(loads.get()).isGreaterThan(1).isLessThanOrEqualTo(
+      (int) (elapsedMs / ExpiringCachingFetcherContentionTest.MAX_CACHE_TIME_MS) + 2);
+
+  }
+
+}
@@ -111,4 +111,77 @@ public class ExpiringCachingFetcherTest {
 
   }
 
+  @Test
+  public void testStaleWhileRevalidate() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<Integer> swr = Fetchers.getStaleWhileRevalidateFetcher(() -> {
+
+      final int value = count.incrementAndGet();
+
+      if (value > 1) {
+
+        try {
+          Thread.sleep(300); // slow refresh
+        }
+        catch (final InterruptedException e) {
+          throw new FetcherException(e);
+        }
+
+      }
+
+      return value;
+
+    }, 100, 60000);
+
+    try {
+
+      Assertions.assertThat(swr.fetch()).isEqualTo(1);
+
+      Thread.sleep(150);
+
+      final long startTime = System.currentTimeMillis();
+
+      for (int i = 0; i < 10; i++) {
+        Assertions.assertThat(swr.fetch()).isEqualTo(1); // stale, refresh in background
+      }
+
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(200);
+
+      Thread.sleep(600);
+
+      Assertions.assertThat(swr.fetch()).isEqualTo(2);
+      Assertions.assertThat(count.get()).isEqualTo(2); // a single refresh ran
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void testStaleWhileRevalidateHardBound() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final Fetcher<Integer> swr = Fetchers.getStaleWhileRevalidateFetcher(
+      (Fetcher<Integer>) () -> count.incrementAndGet(), 50, 150);
+
+    try {
+
+      Assertions.assertThat(swr.fetch()).isEqualTo(1);
+
+      Thread.sleep(300);
+
+      Assertions.assertThat(swr.fetch()).isEqualTo(2); // past maxStaleTime, fetched inline
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
 }
@@ -0,0 +1,152 @@
+package com.lieuu.fetcher.caching.expiring;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.RefreshAheadFetcher;
+import com.lieuu.fetcher.RefreshAheadMultiFetcher;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RefreshAheadFetcherTest {
+
+  @Test
+  public void testRefreshAheadFetcher() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final RefreshAheadFetcher<Integer> fetcher = Fetchers
+        .getRefreshAheadFetcher((Fetcher<Integer>) () -> {
+
+          try {
+            Thread.sleep(50); // slow enough to notice an inline fetch
+          }
+          catch (final InterruptedException e) {
+            throw new FetcherException(e);
+          }
+
+          return count.incrementAndGet();
+
+        }, 200, 0.5, 0.1);
+
+    try {
+
+      Assertions.assertThat(fetcher.getNextRefreshTime()).isEqualTo(-1);
+      Assertions.assertThat(fetcher.fetch()).isEqualTo(1);
+      Assertions.assertThat(fetcher.getNextRefreshTime())
+          .isGreaterThan(System.currentTimeMillis());
+
+      int previous = 1;
+
+      for (int i = 0; i < 100; i++) {
+
+        final long startTime = System.nanoTime();
+        final int value = fetcher.fetch();
+
+        // reads never wait on an inline fetch
+        Assertions.assertThat(System.nanoTime() - startTime).isLessThan(40_000_000L);
+        Assertions.assertThat(value).isGreaterThanOrEqualTo(previous);
+
+        previous = value;
+
+        Thread.sleep(10);
+
+      }
+
+      Assertions.assertThat(previous).isGreaterThan(3);
+      Assertions.assertThat(fetcher.getLastRefreshDuration()).isGreaterThanOrEqualTo(45);
+
+      fetcher.cancel();
+
+      Assertions.assertThat(fetcher.getNextRefreshTime()).isEqualTo(-1);
+
+      final int cancelledAt = count.get();
+
+      Thread.sleep(300);
+
+      // at most the refresh in flight when cancelled
+      Assertions.assertThat(count.get()).isLessThanOrEqualTo(cancelledAt + 1);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void testRefreshAheadFetcherFailureKeepsValue() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final RefreshAheadFetcher<Integer> fetcher = Fetchers.getRefreshAheadFetcher(() -> {
+
+      if (count.incrementAndGet() > 1) {
+        throw new FetcherException("refresh failed");
+      }
+
+      return 1;
+
+    }, 1000, 0.05, 0);
+
+    try {
+
+      Assertions.assertThat(fetcher.fetch()).isEqualTo(1);
+
+      Thread.sleep(200);
+
+      Assertions.assertThat(count.get()).isGreaterThan(1); // refreshes were attempted
+      Assertions.assertThat(fetcher.fetch()).isEqualTo(1);
+      Assertions.assertThat(fetcher.getLastRefreshDuration()).isEqualTo(-1);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+    finally {
+      fetcher.cancel();
+    }
+
+  }
+
+  @Test
+  public void testRefreshAheadMultiConcurrentFetcher() {
+
+    final AtomicInteger count = new AtomicInteger(0);
+
+    final RefreshAheadMultiFetcher<Integer> fetcher = MultiFetchers
+        .getRefreshAheadMultiConcurrentFetcher(100, 0.5, 0.2, () -> count.incrementAndGet(), () -> {
+          throw new FetcherException("backup down");
+        });
+
+    try {
+
+      final FetcherResponse<Integer> first = fetcher.fetch();
+
+      Assert.assertEquals(Source.FIRST, first.source());
+      Assertions.assertThat(first.value()).isEqualTo(1);
+
+      Thread.sleep(300);
+
+      final FetcherResponse<Integer> refreshed = fetcher.fetch();
+
+      Assert.assertEquals(Source.FIRST, refreshed.source());
+      Assertions.assertThat(refreshed.value()).isGreaterThan(1);
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assert.fail(e.getMessage());
+    }
+    finally {
+      fetcher.cancel();
+    }
+
+  }
+
+}
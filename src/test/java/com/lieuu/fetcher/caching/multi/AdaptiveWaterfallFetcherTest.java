@@ -0,0 +1,291 @@
+package com.lieuu.fetcher.caching.multi;
+
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptiveWaterfallFetcherTest {
+
+  @Test
+  public void failingPrimarySinksTest() {
+
+    final AtomicInteger primaryCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getAdaptiveWaterfallFetcher(e -> {
+    }, () -> {
+
+      primaryCalls.incrementAndGet();
+
+      try {
+        Thread.sleep(2); // slow to fail
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      throw new FetcherException("primary down");
+
+    }, () -> "backup");
+
+    try {
+
+      for (int i = 0; i < 2000; i++) {
+
+        final FetcherResponse<String> response = waterfall.fetch();
+
+        Assert.assertEquals("backup", response.value());
+        Assert.assertEquals(Source.SECOND, response.source()); // original rank
+
+      }
+
+      final int primaryCallsBefore = primaryCalls.get();
+
+      for (int i = 0; i < 100; i++) {
+        waterfall.fetch();
+      }
+
+      Assertions.assertThat(primaryCallsBefore).isLessThan(1000);
+      Assert.assertEquals(primaryCallsBefore, primaryCalls.get()); // no longer tried first
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void healthyPrimaryKeepsItsPlaceTest() {
+
+    final AtomicInteger backupCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getAdaptiveWaterfallFetcher(e -> {
+    }, () -> "primary", () -> {
+      backupCalls.incrementAndGet();
+      return "backup";
+    });
+
+    try {
+
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertEquals(Source.FIRST, waterfall.fetch().source());
+      }
+
+      Assert.assertEquals(0, backupCalls.get());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void recoveredPrimaryRisesTest() throws InterruptedException {
+
+    final AtomicBoolean primaryDown = new AtomicBoolean(true);
+    final AtomicInteger primaryCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getAdaptiveWaterfallFetcher(e -> {
+    }, () -> {
+
+      primaryCalls.incrementAndGet();
+
+      if (primaryDown.get()) {
+
+        try {
+          Thread.sleep(2); // slow to fail
+        }
+        catch (final InterruptedException e) {
+          throw new FetcherException(e);
+        }
+
+        throw new FetcherException("primary down");
+
+      }
+
+      return "primary";
+
+    }, () -> {
+
+      try {
+        Thread.sleep(5); // slow origin, cached once fetched
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return "backup";
+
+    });
+
+    try {
+
+      for (int i = 0; i < 2000; i++) {
+        waterfall.fetch();
+      }
+
+      final int primaryCallsBefore = primaryCalls.get();
+
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals(Source.SECOND, waterfall.fetch().source());
+      }
+
+      Assert.assertEquals(primaryCallsBefore, primaryCalls.get()); // sunk
+
+      primaryDown.set(false);
+
+      final long deadline = System.currentTimeMillis() + 15000;
+      int firstInARow = 0;
+
+      while ((firstInARow < 100) && (System.currentTimeMillis() < deadline)) {
+
+        firstInARow = (waterfall.fetch().source() == Source.FIRST) ? (firstInARow + 1) : 0;
+
+        Thread.sleep(1);
+
+      }
+
+      Assert.assertEquals(100, firstInARow); // explored, then back in front
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void expiringSourcesKeepAdaptingTest() throws InterruptedException {
+
+    final AtomicBoolean primaryDown = new AtomicBoolean(false);
+    final AtomicInteger primaryCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getAdaptiveExpiringWaterfallFetcher(
+      e -> {
+      }, 1, () -> {
+
+        primaryCalls.incrementAndGet();
+
+        if (primaryDown.get()) {
+
+          try {
+            Thread.sleep(2); // slow to fail
+          }
+          catch (final InterruptedException e) {
+            throw new FetcherException(e);
+          }
+
+          throw new FetcherException("primary down");
+
+        }
+
+        return "primary";
+
+      }, () -> "backup");
+
+    try {
+
+      for (int i = 0; i < 200; i++) {
+        Assert.assertEquals(Source.FIRST, waterfall.fetch().source()); // warm
+        Thread.sleep(1);
+      }
+
+      primaryDown.set(true); // only noticed because the cached value expires
+
+      final long deadline = System.currentTimeMillis() + 15000;
+      int skippedInARow = 0;
+
+      while ((skippedInARow < 100) && (System.currentTimeMillis() < deadline)) {
+
+        final int primaryCallsBefore = primaryCalls.get();
+
+        Assert.assertEquals(Source.SECOND, waterfall.fetch().source());
+
+        skippedInARow = (primaryCalls.get() == primaryCallsBefore) ? (skippedInARow + 1) : 0;
+
+        Thread.sleep(1);
+
+      }
+
+      Assert.assertEquals(100, skippedInARow); // sunk behind the backup
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void cacheHitsNotRecordedTest() {
+
+    final AtomicInteger primaryCalls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getAdaptiveWaterfallFetcher(e -> {
+    }, () -> {
+      primaryCalls.incrementAndGet();
+      throw new FetcherException("primary down"); // fails fast
+    }, () -> {
+
+      try {
+        Thread.sleep(100); // slow origin, cached once fetched
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return "backup";
+
+    });
+
+    try {
+
+      for (int i = 0; i < 2000; i++) {
+        waterfall.fetch();
+      }
+
+      final int primaryCallsBefore = primaryCalls.get();
+
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals("backup", waterfall.fetch().value());
+      }
+
+      Assert.assertEquals(primaryCallsBefore + 100, primaryCalls.get()); // still cheaper
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void allFailingTest() {
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getAdaptiveWaterfallFetcher(e -> {
+    }, () -> {
+      throw new FetcherException("first down");
+    }, () -> {
+      throw new FetcherException("second down");
+    });
+
+    try {
+      waterfall.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getCause().getMessage()).contains("down");
+    }
+
+  }
+
+}
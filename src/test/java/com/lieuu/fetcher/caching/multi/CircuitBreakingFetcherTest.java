@@ -0,0 +1,316 @@
+package com.lieuu.fetcher.caching.multi;
+
+import com.lieuu.fetcher.CircuitBreakerFetcher;
+import com.lieuu.fetcher.CircuitBreakerPolicy;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherCircuitOpenException;
+import com.lieuu.fetcher.exception.FetcherCircuitState;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CircuitBreakingFetcherTest {
+
+  @Test
+  public void circuitOpensAndRecoversTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+    final List<FetcherCircuitState> transitions = new CopyOnWriteArrayList<>();
+
+    final CircuitBreakerFetcher<String> breaker = Fetchers.getCircuitBreakerFetcher(() -> {
+
+      calls.incrementAndGet();
+
+      if (!healthy.get()) {
+        throw new FetcherException("backend down");
+      }
+
+      return "ok";
+
+    }, new CircuitBreakerPolicy(4, 0.5, 100),
+      (source, previous, current) -> transitions.add(current));
+
+    for (int i = 0; i < 4; i++) {
+      try {
+        breaker.fetch();
+        Assert.fail();
+      }
+      catch (final FetcherException e) {
+        Assertions.assertThat(e).isNotInstanceOf(FetcherCircuitOpenException.class);
+      }
+    }
+
+    Assert.assertEquals(FetcherCircuitState.OPEN, breaker.getState());
+    Assertions.assertThat(breaker.getFailureRate()).isEqualTo(1.0); // the window that tripped
+
+    try {
+      breaker.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e).isInstanceOf(FetcherCircuitOpenException.class);
+      Assert.assertEquals(4, calls.get()); // not called while open
+    }
+
+    try {
+
+      healthy.set(true);
+
+      Thread.sleep(150);
+
+      Assert.assertEquals("ok", breaker.fetch()); // trial call
+      Assert.assertEquals(FetcherCircuitState.CLOSED, breaker.getState());
+      Assert.assertEquals(5, calls.get());
+
+    }
+    catch (FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+    Assertions.assertThat(transitions).containsExactly(FetcherCircuitState.OPEN,
+      FetcherCircuitState.HALF_OPEN, FetcherCircuitState.CLOSED);
+
+  }
+
+  @Test
+  public void failedTrialReopensTest() {
+
+    final CircuitBreakerFetcher<String> breaker = Fetchers.getCircuitBreakerFetcher(() -> {
+      throw new FetcherException("backend down");
+    }, new CircuitBreakerPolicy(2, 1, 50));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        breaker.fetch();
+      }
+      catch (final FetcherException e) {
+        // trips the circuit
+      }
+    }
+
+    try {
+
+      Thread.sleep(80);
+
+      try {
+        breaker.fetch();
+      }
+      catch (final FetcherException e) {
+        Assertions.assertThat(e).isNotInstanceOf(FetcherCircuitOpenException.class); // trial
+      }
+
+      Assert.assertEquals(FetcherCircuitState.OPEN, breaker.getState());
+
+    }
+    catch (final InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void errorInTrialReopensTest() {
+
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+
+    final CircuitBreakerFetcher<String> breaker = Fetchers.getCircuitBreakerFetcher(() -> {
+
+      if (!healthy.get()) {
+        throw new LinkageError("not a FetcherException");
+      }
+
+      return "ok";
+
+    }, new CircuitBreakerPolicy(2, 1, 50));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        breaker.fetch();
+        Assert.fail();
+      }
+      catch (final FetcherException e) {
+        Assertions.fail(e.getMessage());
+      }
+      catch (final LinkageError e) {
+        // trips the circuit
+      }
+    }
+
+    Assert.assertEquals(FetcherCircuitState.OPEN, breaker.getState());
+
+    try {
+
+      Thread.sleep(80);
+
+      try {
+        breaker.fetch();
+        Assert.fail();
+      }
+      catch (final LinkageError e) {
+        // trial
+      }
+
+      Assert.assertEquals(FetcherCircuitState.OPEN, breaker.getState());
+
+      healthy.set(true);
+
+      Thread.sleep(80);
+
+      Assert.assertEquals("ok", breaker.fetch()); // a new trial is let through
+      Assert.assertEquals(FetcherCircuitState.CLOSED, breaker.getState());
+
+    }
+    catch (final FetcherException | InterruptedException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void slowCallsOpenCircuitTest() {
+
+    final CircuitBreakerFetcher<String> breaker = Fetchers.getCircuitBreakerFetcher(() -> {
+
+      try {
+        Thread.sleep(30);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      return "slow";
+
+    }, new CircuitBreakerPolicy(3, 1, 20, 0.6, 10000));
+
+    try {
+
+      for (int i = 0; i < 3; i++) {
+        Assert.assertEquals("slow", breaker.fetch()); // successful, but slow
+      }
+
+      Assert.assertEquals(FetcherCircuitState.OPEN, breaker.getState());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void waterfallSkipsOpenSourceTest() {
+
+    final AtomicInteger primaryCalls = new AtomicInteger(0);
+    final List<Source> opened = new CopyOnWriteArrayList<>();
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getCircuitBreakingWaterfallFetcher(e -> {
+    }, (source, previous, current) -> {
+      if (current == FetcherCircuitState.OPEN) {
+        opened.add(source);
+      }
+    }, new CircuitBreakerPolicy(3, 1, 60000), () -> {
+      primaryCalls.incrementAndGet();
+      throw new FetcherException("primary down");
+    }, () -> "backup");
+
+    try {
+
+      for (int i = 0; i < 10; i++) {
+        Assert.assertEquals(Source.SECOND, waterfall.fetch().source());
+      }
+
+      Assert.assertEquals(3, primaryCalls.get()); // skipped once the circuit opened
+      Assertions.assertThat(opened).containsExactly(Source.FIRST);
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void waterfallDoesNotCacheFailuresTest() throws InterruptedException {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+    final CountDownLatch probing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getCircuitBreakingWaterfallFetcher(e -> {
+    }, (source, previous, current) -> {
+    }, new CircuitBreakerPolicy(100, 1, 60000), () -> {
+
+      final int call = calls.incrementAndGet();
+
+      if (call == 1) {
+        throw new FetcherException("down once");
+      }
+
+      if (call == 2) {
+
+        probing.countDown();
+
+        try {
+          release.await();
+        }
+        catch (final InterruptedException e) {
+          throw new FetcherException(e);
+        }
+
+        throw new FetcherException("down again");
+
+      }
+
+      return "ok";
+
+    });
+
+    try {
+      waterfall.fetch();
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      // first failure
+    }
+
+    final Thread prober = new Thread(() -> {
+      try {
+        waterfall.fetch();
+      }
+      catch (final FetcherException e) {
+        // second failure
+      }
+    });
+
+    prober.start();
+
+    try {
+
+      probing.await();
+
+      Assert.assertEquals("ok", waterfall.fetch().value()); // not the first failure again
+      Assert.assertEquals(3, calls.get());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      release.countDown();
+      prober.join();
+    }
+
+  }
+
+}
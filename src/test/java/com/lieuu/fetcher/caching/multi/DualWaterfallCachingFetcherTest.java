@@ -2,7 +2,11 @@ package com.lieuu.fetcher.caching.multi;
 
 import com.lieuu.fetcher.Fetcher;
 import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
 import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
 import org.assertj.core.api.Assertions;
 import org.junit.Assert;
 import org.junit.Test;
@@ -148,4 +152,29 @@ public class DualWaterfallCachingFetcherTest {
 
   }
 
+  @Test
+  public void dualWaterfallCachingFetcherResponseReuseTest() {
+
+    final MultiFetcher<String> fetcher = MultiFetchers.getWaterfallFetcher(
+      e -> Assertions.assertThat(e.getMessage()).contains("primary down"),
+      (Fetcher<String>) () -> {
+        throw new FetcherException("primary down");
+      }, (Fetcher<String>) () -> "test");
+
+    try {
+
+      final FetcherResponse<String> response = fetcher.fetch();
+
+      Assert.assertEquals(Source.SECOND, response.source());
+      Assert.assertEquals("test", response.value());
+      Assert.assertSame(response, fetcher.fetch()); // cached value, cached response
+
+    }
+    catch (final FetcherException e) {
+      e.printStackTrace();
+      Assert.fail();
+    }
+
+  }
+
 }
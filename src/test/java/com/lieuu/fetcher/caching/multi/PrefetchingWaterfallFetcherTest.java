@@ -0,0 +1,192 @@
+package com.lieuu.fetcher.caching.multi;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.response.FetcherResponse;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrefetchingWaterfallFetcherTest {
+
+  private static Fetcher<String> sleeping(final long sleepMs, final String value,
+    final AtomicInteger calls) {
+
+    return () -> {
+
+      calls.incrementAndGet();
+
+      try {
+        Thread.sleep(sleepMs);
+      }
+      catch (final InterruptedException e) {
+        throw new FetcherException(e);
+      }
+
+      if (value == null) {
+        throw new FetcherException("down");
+      }
+
+      return value;
+
+    };
+
+  }
+
+  @Test
+  public void fallbackCostsMaxLatencyTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+    final AtomicInteger errors = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getPrefetchingWaterfallFetcher(
+      e -> errors.incrementAndGet(), 2, 5000, PrefetchingWaterfallFetcherTest.sleeping(300,
+        null, calls), PrefetchingWaterfallFetcherTest.sleeping(300, null, calls),
+      PrefetchingWaterfallFetcherTest.sleeping(300, "third", calls));
+
+    try {
+
+      final long startTime = System.currentTimeMillis();
+      final FetcherResponse<String> response = waterfall.fetch();
+
+      Assert.assertEquals("third", response.value());
+      Assert.assertEquals(Source.THIRD, response.source());
+      Assertions.assertThat(System.currentTimeMillis() - startTime).isLessThan(800);
+      Assert.assertEquals(3, calls.get());
+      Assert.assertEquals(2, errors.get());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void primaryPreferredTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getPrefetchingWaterfallFetcher(e -> {
+    }, 1, 5000, PrefetchingWaterfallFetcherTest.sleeping(200, "first", calls),
+      PrefetchingWaterfallFetcherTest.sleeping(0, "second", calls));
+
+    try {
+
+      final FetcherResponse<String> response = waterfall.fetch();
+
+      Assert.assertEquals("first", response.value());
+      Assert.assertEquals(Source.FIRST, response.source());
+
+      final FetcherResponse<String> cached = waterfall.fetch();
+
+      Assert.assertEquals(Source.FIRST, cached.source());
+      Assert.assertEquals(2, calls.get()); // served from the primary's cache
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void deadlineTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getPrefetchingWaterfallFetcher(e -> {
+    }, 1, 100, PrefetchingWaterfallFetcherTest.sleeping(1000, "first", calls),
+      PrefetchingWaterfallFetcherTest.sleeping(0, "second", calls));
+
+    try {
+
+      final FetcherResponse<String> response = waterfall.fetch();
+
+      Assert.assertEquals("second", response.value()); // best value by the deadline
+      Assert.assertEquals(Source.SECOND, response.source());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+    final MultiFetcher<String> slowWaterfall = MultiFetchers.getPrefetchingWaterfallFetcher(
+      e -> {
+      }, 1, 100, PrefetchingWaterfallFetcherTest.sleeping(1000, "first", calls),
+      PrefetchingWaterfallFetcherTest.sleeping(1000, "second", calls));
+
+    try {
+      slowWaterfall.fetch();
+      Assertions.fail("Expected FetcherNotReadyException");
+    }
+    catch (final FetcherNotReadyException e) {
+      // nothing fetched by the deadline
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void cachedSourcesNotSubmittedTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+    final AtomicInteger errors = new AtomicInteger(0);
+    final AtomicInteger submissions = new AtomicInteger(0);
+
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(3, 3, 0, TimeUnit.MILLISECONDS,
+      new LinkedBlockingQueue<>()) {
+
+      @Override
+      public void execute(final Runnable command) {
+        submissions.incrementAndGet();
+        super.execute(command);
+      }
+
+    };
+
+    final MultiFetcher<String> waterfall = MultiFetchers.getPrefetchingWaterfallFetcher(
+      () -> executor, e -> errors.incrementAndGet(), 2, 5000, PrefetchingWaterfallFetcherTest
+          .sleeping(0, null, calls), PrefetchingWaterfallFetcherTest.sleeping(0, null, calls),
+      PrefetchingWaterfallFetcherTest.sleeping(0, "third", calls));
+
+    try {
+
+      Assert.assertEquals(Source.THIRD, waterfall.fetch().source());
+      Assert.assertEquals(3, submissions.get());
+
+      for (int i = 0; i < 100; i++) {
+
+        final FetcherResponse<String> response = waterfall.fetch();
+
+        Assert.assertEquals("third", response.value());
+        Assert.assertEquals(Source.THIRD, response.source());
+
+      }
+
+      Assert.assertEquals(3, submissions.get()); // failures cached, third cached
+      Assert.assertEquals(3, calls.get());
+      Assert.assertEquals(202, errors.get());
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      executor.shutdown();
+    }
+
+  }
+
+}
@@ -0,0 +1,98 @@
+package com.lieuu.fetcher.impl;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public class MappedFileFetcherTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void mappedTextFileFetcherTest() {
+
+    final Fetcher<CharSequence> fetcher = Fetchers.Implementations.getMappedTextFileFetcher(
+      () -> "src/test/resources/demo2.txt");
+
+    try {
+
+      final CharSequence text = fetcher.fetch();
+
+      Assert.assertEquals("text\nlsdfsdf", text.toString()); // line separators kept
+      Assert.assertEquals("lsdf", text.subSequence(5, 9).toString());
+      Assert.assertSame(text, fetcher.fetch()); // unchanged file, same view
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void mappedFileReloadTest() throws IOException {
+
+    final Path file = this.folder.newFile("config.txt").toPath();
+
+    Files.write(file, "a=1".getBytes(StandardCharsets.UTF_8));
+
+    final Fetcher<ByteBuffer> fetcher = Fetchers.Implementations.getMappedFileFetcher(
+      () -> file.toString());
+    final Fetcher<CharSequence> textFetcher = Fetchers.Implementations.getMappedTextFileFetcher(
+      () -> file.toString());
+
+    try {
+
+      final ByteBuffer buffer = fetcher.fetch();
+
+      Assert.assertTrue(buffer.isReadOnly());
+      Assert.assertEquals(3, buffer.remaining());
+      Assert.assertEquals("a=1", textFetcher.fetch().toString());
+
+      final Path replacement = this.folder.newFile("config.tmp").toPath();
+
+      Files.write(replacement, "a=2\nb=\u00e9".getBytes(StandardCharsets.UTF_8));
+      Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+      Assert.assertEquals(8, fetcher.fetch().remaining());
+      Assert.assertEquals("a=2\nb=\u00e9", textFetcher.fetch().toString()); // decoded, not ASCII
+      Assert.assertEquals(3, buffer.remaining()); // earlier views keep the old mapping
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void mappedFileMissingTest() {
+
+    final Fetcher<ByteBuffer> fetcher = Fetchers.Implementations.getMappedFileFetcher(
+      () -> "src/test/resources/missing.txt");
+
+    try {
+      fetcher.fetch();
+      Assertions.fail("Expected FetcherException");
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getCause()).isInstanceOf(IOException.class);
+    }
+
+  }
+
+}
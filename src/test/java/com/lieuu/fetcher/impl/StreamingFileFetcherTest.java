@@ -0,0 +1,119 @@
+package com.lieuu.fetcher.impl;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StreamingFileFetcherTest {
+
+  private final static int LINES = 200000;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void streamingLineFileFetcherTest() throws IOException {
+
+    final Path file = this.folder.newFile("lines.txt").toPath();
+
+    Files.write(file, "first\r\n\nthird\nlast".getBytes(StandardCharsets.UTF_8));
+
+    final Fetcher<Stream<String>> fetcher = Fetchers.Implementations
+        .getStreamingLineFileFetcher(() -> file.toString(), false);
+
+    try (final Stream<String> lines = fetcher.fetch()) {
+      Assert.assertEquals(Arrays.asList("first", "", "third", "last"),
+        lines.collect(Collectors.toList()));
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void parallelStreamingLineFileFetcherTest() throws IOException {
+
+    final Path file = this.folder.newFile("large.txt").toPath();
+
+    try (final BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+
+      for (int i = 0; i < StreamingFileFetcherTest.LINES; i++) {
+        writer.write("line " + i + "\n"); // a few MB, split into many ranges
+      }
+
+    }
+
+    final Fetcher<Stream<String>> fetcher = Fetchers.Implementations
+        .getStreamingLineFileFetcher(() -> file.toString(), true);
+
+    try (final Stream<String> lines = fetcher.fetch()) {
+
+      Assert.assertTrue(lines.isParallel());
+
+      final List<String> collected = lines.collect(Collectors.toList());
+
+      Assert.assertEquals(StreamingFileFetcherTest.LINES, collected.size());
+
+      for (int i = 0; i < StreamingFileFetcherTest.LINES; i++) {
+        Assert.assertEquals("line " + i, collected.get(i)); // encounter order kept
+      }
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void streamingRecordFileFetcherTest() throws IOException {
+
+    final Path file = this.folder.newFile("records.bin").toPath();
+    final byte[] bytes = new byte[300000];
+
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i % 100);
+    }
+
+    Files.write(file, bytes);
+
+    final Fetcher<Stream<ByteBuffer>> fixedFetcher = Fetchers.Implementations
+        .getStreamingFixedRecordFileFetcher(() -> file.toString(), 100, true);
+    final Fetcher<Stream<ByteBuffer>> delimitedFetcher = Fetchers.Implementations
+        .getStreamingDelimitedRecordFileFetcher(() -> file.toString(), (byte) 0, true);
+
+    try (final Stream<ByteBuffer> records = fixedFetcher.fetch()) {
+      Assert.assertEquals(3000, records.filter(r -> (r.remaining() == 100) && (r.get(0) == 0)
+          && (r.get(99) == 99)).count());
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+    try (final Stream<ByteBuffer> records = delimitedFetcher.fetch()) {
+      Assert.assertEquals(3000, records.skip(1).filter(r -> (r.remaining() == 99)
+          && (r.get(0) == 1)).count()); // the first record is empty
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
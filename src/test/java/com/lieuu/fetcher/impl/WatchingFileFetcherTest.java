@@ -0,0 +1,112 @@
+package com.lieuu.fetcher.impl;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WatchingFileFetcherTest {
+
+  private final static long WAIT_MS = 15000; // polling watch services are slow
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static void write(final Path file, final String text) throws IOException {
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void watchingFileFetcherTest() throws IOException, InterruptedException {
+
+    final Path file = this.folder.newFile("fragment.conf").toPath();
+    final AtomicInteger loads = new AtomicInteger(0);
+
+    WatchingFileFetcherTest.write(file, "a=1\n");
+
+    final Fetcher<String> fetcher = Fetchers.Implementations.getWatchingFileFetcher(
+      file.toString(), false, () -> {
+
+        loads.incrementAndGet();
+
+        try {
+          return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        }
+        catch (final IOException e) {
+          throw new FetcherException(e);
+        }
+
+      });
+
+    try {
+
+      Assert.assertEquals("a=1\n", fetcher.fetch());
+
+      for (int i = 0; i < 1000; i++) {
+        fetcher.fetch();
+      }
+
+      Assert.assertEquals(1, loads.get()); // cache hits until the file changes
+
+      WatchingFileFetcherTest.write(file, "a=2\n");
+
+      final long deadline = System.currentTimeMillis() + WatchingFileFetcherTest.WAIT_MS;
+
+      while (!"a=2\n".equals(fetcher.fetch()) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(10);
+      }
+
+      Assert.assertEquals("a=2\n", fetcher.fetch());
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+  @Test
+  public void eagerReloadTest() throws IOException, InterruptedException {
+
+    final Path file = this.folder.newFile("eager.conf").toPath();
+
+    WatchingFileFetcherTest.write(file, "v1");
+
+    final Fetcher<String> fetcher = Fetchers.Implementations.getWatchingFileFetcher(
+      file.toString(), true);
+    final Fetcher<String> other = Fetchers.Implementations.getWatchingFileFetcher(
+      this.folder.newFile("other.conf").toString());
+
+    try {
+
+      Assert.assertEquals("v1", fetcher.fetch());
+      Assert.assertEquals("", other.fetch());
+
+      WatchingFileFetcherTest.write(file, "v2");
+
+      final long deadline = System.currentTimeMillis() + WatchingFileFetcherTest.WAIT_MS;
+
+      while (!"v2".equals(fetcher.fetch()) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(10); // the stale value is served until the reload is in
+      }
+
+      Assert.assertEquals("v2", fetcher.fetch());
+      Assert.assertEquals("", other.fetch()); // same directory, other file
+
+    }
+    catch (final FetcherException e) {
+      Assert.fail(e.getMessage());
+    }
+
+  }
+
+}
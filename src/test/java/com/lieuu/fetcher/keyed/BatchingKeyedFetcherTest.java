@@ -0,0 +1,249 @@
+package com.lieuu.fetcher.keyed;
+
+import com.lieuu.fetcher.Fetchers;
+import com.lieuu.fetcher.InstrumentedBatchingFetcher;
+import com.lieuu.fetcher.InstrumentedExecutorServiceFetcher;
+import com.lieuu.fetcher.KeyedFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.exception.FetcherNotReadyException;
+import com.lieuu.fetcher.exception.FetcherRejectedException;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchingKeyedFetcherTest {
+
+  private static List<Future<String>> fetchConcurrently(
+    final InstrumentedBatchingFetcher<Integer, String> fetcher, final int numKeys,
+    final ExecutorService exec) {
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<String>> futures = new ArrayList<>(numKeys);
+
+    for (int i = 0; i < numKeys; i++) {
+
+      final int key = i;
+
+      futures.add(exec.submit(() -> {
+        start.await();
+        return fetcher.fetch(key);
+      }));
+
+    }
+
+    start.countDown();
+
+    return futures;
+
+  }
+
+  @Test
+  public void batchingWindowTest() {
+
+    final AtomicInteger calls = new AtomicInteger(0);
+
+    final InstrumentedBatchingFetcher<Integer, String> fetcher = KeyedFetchers.getBatchingFetcher(
+      keys -> {
+
+        calls.incrementAndGet();
+
+        final Map<Integer, String> values = new HashMap<>();
+
+        for (final Integer key : keys) {
+          values.put(key, "value" + key);
+        }
+
+        return values;
+
+      }, 1000, 200);
+
+    final ExecutorService exec = Executors.newFixedThreadPool(20);
+
+    try {
+
+      final List<Future<String>> futures = BatchingKeyedFetcherTest.fetchConcurrently(fetcher, 20,
+        exec);
+
+      for (int i = 0; i < futures.size(); i++) {
+        Assert.assertEquals("value" + i, futures.get(i).get());
+      }
+
+    }
+    catch (InterruptedException | ExecutionException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      exec.shutdown();
+    }
+
+    Assertions.assertThat(calls.get()).isEqualTo(1);
+    Assertions.assertThat(fetcher.getBatches()).isEqualTo(1);
+    Assertions.assertThat(fetcher.getBatchedKeys()).isEqualTo(20);
+    Assertions.assertThat(fetcher.getLargestBatch()).isEqualTo(20);
+    Assertions.assertThat(fetcher.getAverageWaitMillis()).isGreaterThan(100);
+
+  }
+
+  @Test
+  public void batchingMaxBatchSizeTest() {
+
+    final InstrumentedBatchingFetcher<Integer, String> fetcher = KeyedFetchers.getBatchingFetcher(
+      keys -> {
+
+        Assertions.assertThat(keys.size()).isLessThanOrEqualTo(5);
+
+        final Map<Integer, String> values = new HashMap<>();
+
+        for (final Integer key : keys) {
+          values.put(key, "value" + key);
+        }
+
+        return values;
+
+      }, 5, 60000);
+
+    final ExecutorService exec = Executors.newFixedThreadPool(20);
+
+    try {
+
+      final List<Future<String>> futures = BatchingKeyedFetcherTest.fetchConcurrently(fetcher, 20,
+        exec);
+
+      for (int i = 0; i < futures.size(); i++) {
+        Assert.assertEquals("value" + i, futures.get(i).get());
+      }
+
+    }
+    catch (InterruptedException | ExecutionException e) {
+      Assertions.fail(e.getMessage());
+    }
+    finally {
+      exec.shutdown();
+    }
+
+    Assertions.assertThat(fetcher.getBatches()).isEqualTo(4);
+    Assertions.assertThat(fetcher.getAverageBatchSize()).isEqualTo(5.0);
+
+  }
+
+  @Test
+  public void batchingMissingKeyAndFailureTest() {
+
+    final InstrumentedBatchingFetcher<Integer, String> missing = KeyedFetchers.getBatchingFetcher(
+      keys -> new HashMap<>(), 10, 10);
+
+    try {
+      missing.fetch(1);
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getMessage()).contains("No value returned for key 1");
+    }
+
+    final InstrumentedBatchingFetcher<Integer, String> failing = KeyedFetchers.getBatchingFetcher(
+      keys -> {
+        throw new FetcherException("bulk endpoint down");
+      }, 10, 10);
+
+    try {
+      failing.fetch(1);
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e.getMessage()).contains("bulk endpoint down");
+    }
+
+  }
+
+  @Test
+  public void discardedBatchFailsTest() throws InterruptedException {
+
+    final InstrumentedExecutorServiceFetcher bounded = Fetchers.getBoundedExecutorServiceFetcher(
+      1, 1, new ThreadPoolExecutor.DiscardOldestPolicy());
+    final ExecutorService callers = Executors.newSingleThreadExecutor();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try {
+
+      bounded.fetch().execute(() -> {
+        try {
+          release.await(); // keeps the only thread busy
+        }
+        catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+
+      final InstrumentedBatchingFetcher<Integer, String> fetcher = KeyedFetchers
+          .getBatchingFetcher(bounded, keys -> new HashMap<>(), 10, 10);
+      final Future<String> caller = callers.submit(() -> fetcher.fetch(1));
+
+      while (bounded.getQueueDepth() == 0) {
+        Thread.sleep(1); // until the batch is queued
+      }
+
+      bounded.fetch().execute(() -> {
+      }); // discards the batch
+
+      caller.get(5, TimeUnit.SECONDS);
+      Assert.fail();
+
+    }
+    catch (final ExecutionException e) {
+      Assertions.assertThat(e.getCause()).isInstanceOf(FetcherRejectedException.class);
+    }
+    catch (final FetcherException | TimeoutException e) {
+      Assertions.fail(e.getMessage()); // the caller was left waiting
+    }
+    finally {
+      release.countDown();
+      callers.shutdown();
+    }
+
+  }
+
+  @Test
+  public void droppedBatchTimesOutTest() {
+
+    final ExecutorService dropping = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new LinkedBlockingQueue<>()) {
+
+      @Override
+      public void execute(final Runnable command) {
+        // drops every task without a trace
+      }
+
+    };
+
+    final InstrumentedBatchingFetcher<Integer, String> fetcher = KeyedFetchers
+        .getBatchingFetcher(() -> dropping, keys -> new HashMap<>(), 10, 10, 100);
+
+    try {
+      fetcher.fetch(1);
+      Assert.fail();
+    }
+    catch (final FetcherException e) {
+      Assertions.assertThat(e).isInstanceOf(FetcherNotReadyException.class);
+    }
+    finally {
+      dropping.shutdown();
+    }
+
+  }
+
+}
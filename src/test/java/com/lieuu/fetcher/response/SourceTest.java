@@ -0,0 +1,128 @@
+package com.lieuu.fetcher.response;
+
+import com.lieuu.fetcher.Fetcher;
+import com.lieuu.fetcher.MultiFetcher;
+import com.lieuu.fetcher.MultiFetchers;
+import com.lieuu.fetcher.exception.FetcherException;
+import com.lieuu.fetcher.response.source.Source;
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SourceTest {
+
+  @Test
+  public void namedRanksTest() {
+
+    Assert.assertSame(Source.FIRST, Source.valueOf(1));
+    Assert.assertSame(Source.TWENTIETH, Source.valueOf(20));
+    Assert.assertSame(Source.UNKNOWN, Source.valueOf(0));
+    Assert.assertSame(Source.UNKNOWN, Source.valueOf(-1));
+
+    Assert.assertTrue(Source.FIRST.isBefore(Source.SECOND));
+    Assert.assertTrue(Source.TWENTIETH.isAfter(Source.NINETEENTH));
+    Assert.assertEquals("FIRST", Source.FIRST.name());
+
+  }
+
+  @Test
+  public void formerEnumMethodsTest() {
+
+    Assert.assertEquals(21, Source.values().length);
+    Assert.assertSame(Source.UNKNOWN, Source.values()[20]);
+    Assert.assertSame(Source.THIRD, Source.valueOf("THIRD"));
+    Assert.assertSame(Source.valueOf(30), Source.valueOf("SOURCE_30"));
+    Assert.assertEquals(0, Source.FIRST.ordinal());
+    Assert.assertEquals(19, Source.TWENTIETH.ordinal());
+    Assert.assertEquals(20, Source.UNKNOWN.ordinal());
+    Assert.assertEquals(21, Source.valueOf(21).ordinal());
+
+    for (final String name : new String[] { "first", "SOURCE_3", "SOURCE_x", "" }) {
+
+      try {
+        Source.valueOf(name);
+        Assertions.fail("Expected IllegalArgumentException for " + name);
+      }
+      catch (final IllegalArgumentException e) {
+        // not a source name
+      }
+
+    }
+
+  }
+
+  @Test
+  public void unboundedRanksTest() {
+
+    final Source thirtieth = Source.valueOf(30);
+    final Source thousandth = Source.valueOf(1000);
+
+    Assert.assertSame(thirtieth, Source.valueOf(30)); // interned
+    Assert.assertSame(thousandth, Source.valueOf(1000));
+    Assert.assertEquals(30, thirtieth.getRank());
+    Assert.assertEquals(1000, thousandth.getRank());
+
+    Assert.assertTrue(Source.TWENTIETH.isBefore(thirtieth));
+    Assert.assertTrue(thousandth.isAfter(thirtieth));
+    Assertions.assertThat(thirtieth).isGreaterThan(Source.TWENTIETH);
+
+  }
+
+  @Test
+  public void largeRanksTest() {
+
+    final Source large = Source.valueOf(200000000);
+    final Source largest = Source.valueOf(Integer.MAX_VALUE);
+
+    Assert.assertSame(large, Source.valueOf(200000000));
+    Assert.assertSame(largest, Source.valueOf(Integer.MAX_VALUE));
+    Assert.assertSame(Source.valueOf(1025), Source.valueOf(1025)); // first rank past the array
+    Assert.assertEquals(Integer.MAX_VALUE, largest.getRank());
+    Assert.assertEquals("SOURCE_1025", Source.valueOf(1025).name());
+    Assert.assertSame(Source.UNKNOWN, Source.valueOf(Integer.MIN_VALUE));
+
+    Assert.assertTrue(large.isBefore(largest));
+    Assert.assertTrue(Source.valueOf(1024).isBefore(Source.valueOf(1025)));
+
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void wideWaterfallTest() {
+
+    final Fetcher<Integer>[] fetchers = new Fetcher[32];
+
+    for (int i = 0; i < fetchers.length; i++) {
+
+      final int value = i + 1;
+
+      fetchers[i] = () -> {
+
+        if (value < 32) {
+          throw new FetcherException("replica " + value + " down");
+        }
+
+        return value;
+
+      };
+
+    }
+
+    final MultiFetcher<Integer> waterfall = MultiFetchers.getWaterfallFetcher(e -> {
+    }, fetchers);
+
+    try {
+
+      final FetcherResponse<Integer> response = waterfall.fetch();
+
+      Assert.assertEquals(Integer.valueOf(32), response.value());
+      Assert.assertEquals(32, response.source().getRank()); // no longer UNKNOWN
+
+    }
+    catch (final FetcherException e) {
+      Assertions.fail(e.getMessage());
+    }
+
+  }
+
+}